@@ -0,0 +1,114 @@
+package edu.utdallas.cs6378.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import edu.utdallas.cs6378.client.ObjectSender;
+import edu.utdallas.cs6378.models.RequestToWrite;
+import edu.utdallas.cs6378.models.TransactionId;
+import edu.utdallas.cs6378.models.WriteCall;
+import edu.utdallas.cs6378.server.ObjectStore;
+import edu.utdallas.cs6378.server.WriteRequestProcessor;
+import edu.utdallas.cs6378.transport.MessageLink;
+
+/**
+ * This class is the JMH benchmark of the commit path of WriteRequestProcessor. The processor
+ * is created without the properties of a node, as the simulator creates it, and its thread is
+ * not started: the benchmark thread hands it the messages directly. The "yes" votes and the
+ * "done" responses go to links that drop them.
+ *
+ * @Method: commit()
+ * A transaction that the processor stages and votes on, and whose WriteCall commits it. The
+ * WriteCalls of "batchSize" transactions are processed together, as the processor does with
+ * the WriteCalls that are queued at once: the staged messages are appended to the ObjectStore
+ * in the order of their transaction ids and the store is synced once before the "done"
+ * responses. The durability modes differ only by the sync: "none" leaves it to the operating
+ * system, "commit" forces every record and "group" forces a batch of records at once. Such
+ * batches only form in a cluster under "lease" ordering, the benchmark forms them by itself.
+ *
+ * The objects are written to a temporary directory that is deleted at the end.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommitBenchmarks {
+
+	private static final int NUM_OF_CLIENTS = 5;
+
+	@Param({ObjectStore.NONE, ObjectStore.GROUP, ObjectStore.COMMIT})
+	public String durability;
+
+	@Param({"1", "8"})
+	public int batchSize;
+
+	private File directory;
+	private WriteRequestProcessor writeReqProcessor;
+	private final List<Object> writeCalls = new ArrayList<Object>();
+	private int requestId;
+
+	@Setup
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("commitbenchmark").toFile();
+		ConcurrentHashMap<String, ObjectSender> clientConnections = new ConcurrentHashMap<String, ObjectSender>();
+		for(int i = 1; i <= NUM_OF_CLIENTS; i++) {
+			clientConnections.put("C"+i, new ObjectSender(DROP));
+		}
+		ObjectStore objectStore = new ObjectStore(directory.getPath(), "O1.txt", durability);
+		writeReqProcessor = new WriteRequestProcessor("S1", "O1.txt", objectStore, 1.0f, new Random(1),
+				clientConnections, new ConcurrentHashMap<String, ObjectSender>());
+	}
+
+	@Benchmark
+	public long commit() {
+		requestId++;
+		String client = "C"+(requestId % NUM_OF_CLIENTS + 1);
+		TransactionId transactionId = new TransactionId(requestId, client, requestId);
+		RequestToWrite reqToWrite = new RequestToWrite("O1.txt", client, "Message at timestamp: "+requestId+" by client "+client);
+		reqToWrite.setRequestId(requestId);
+		reqToWrite.setTransactionId(transactionId);
+		writeReqProcessor.processRequestToWrite(reqToWrite);
+		WriteCall writeCall = new WriteCall("commit", client, "O1.txt");
+		writeCall.setRequestId(requestId);
+		writeCall.setTransactionId(transactionId);
+		writeCalls.add(writeCall);
+		if(writeCalls.size() == batchSize) {
+			writeReqProcessor.processWriteCalls(writeCalls);
+			writeCalls.clear();
+		}
+		return writeReqProcessor.getObjectStore().size();
+	}
+
+	@TearDown
+	public void tearDown() {
+		writeReqProcessor.processWriteCalls(writeCalls);
+		writeCalls.clear();
+		writeReqProcessor.getObjectStore().close();
+		for(File file: directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	private static final MessageLink DROP = new MessageLink() {
+		@Override
+		public void send(Object message) throws IOException {
+		}
+	};
+}
@@ -0,0 +1,204 @@
+package edu.utdallas.cs6378.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * This class is an independent class that has a main method which runs the JMH benchmarks of
+ * the hot paths of the project and compares them with a baseline. This is not part of the
+ * project specification, and unlike the nodes it needs no properties file. The benchmarks can
+ * also be run on their own with "java -jar target/benchmarks.jar", which takes every option of
+ * JMH.
+ *
+ * The suite covers the serialization of every message by both codecs (SerializationBenchmarks),
+ * the quorum check of RequestState for several quorum systems and the queue of RequestProcessor
+ * (QuorumBenchmarks), the send queue of ObjectSender (QueueBenchmarks) and the commit path of
+ * WriteRequestProcessor (CommitBenchmarks). The time per operation of every benchmark is printed
+ * with the error that JMH gives for it, the half width of its 99.9% confidence interval.
+ *
+ * The results can be saved as a baseline, and a later run compared with it. A benchmark is
+ * reported as a regression when it is slower than its baseline by more than the threshold
+ * (25% by default) beyond its own error, and the run then exits with status 1. The baseline
+ * checked in as Benchmarks/baseline.txt was measured on the machine named in its header, so
+ * it should be measured again before it is used on another machine.
+ *
+ * Usage: java -cp target/benchmarks.jar edu.utdallas.cs6378.benchmarks.HotPathBenchmarks
+ *        [-filter regex] [-baseline file] [-save file] [-threshold 0.25] [-warmup 5]
+ *        [-iterations 5] [-millis 500] [-forks 1]
+ *
+ */
+public class HotPathBenchmarks {
+
+	public static void main(String[] args) throws Exception {
+		String filter = "";
+		String baselineFile = null;
+		String saveFile = null;
+		double threshold = 0.25;
+		int warmupIterations = 5;
+		int iterations = 5;
+		long iterationMillis = 500;
+		int forks = 1;
+		for(int i = 0; i + 1 < args.length; i = i + 2) {
+			if("-filter".equals(args[i])) {
+				filter = args[i + 1];
+			} else if("-baseline".equals(args[i])) {
+				baselineFile = args[i + 1];
+			} else if("-save".equals(args[i])) {
+				saveFile = args[i + 1];
+			} else if("-threshold".equals(args[i])) {
+				threshold = Double.parseDouble(args[i + 1]);
+			} else if("-warmup".equals(args[i])) {
+				warmupIterations = Integer.parseInt(args[i + 1]);
+			} else if("-iterations".equals(args[i])) {
+				iterations = Integer.parseInt(args[i + 1]);
+			} else if("-millis".equals(args[i])) {
+				iterationMillis = Long.parseLong(args[i + 1]);
+			} else if("-forks".equals(args[i])) {
+				forks = Integer.parseInt(args[i + 1]);
+			} else {
+				throw new IllegalArgumentException("Unknown option "+args[i]);
+			}
+		}
+		Map<String, Result> baseline = baselineFile == null
+				? new LinkedHashMap<String, Result>() : load(baselineFile);
+
+		Options options = new OptionsBuilder()
+				.include(HotPathBenchmarks.class.getPackage().getName()+".*"+filter)
+				.warmupIterations(warmupIterations)
+				.warmupTime(TimeValue.milliseconds(iterationMillis))
+				.measurementIterations(iterations)
+				.measurementTime(TimeValue.milliseconds(iterationMillis))
+				.forks(forks)
+				.build();
+		Collection<RunResult> runResults = new Runner(options).run();
+
+		System.out.println();
+		System.out.println(environment());
+		System.out.println(String.format("%-70s %14s %12s %14s %9s", "benchmark", "ns/op", "error", "baseline", "change"));
+		List<Result> results = new ArrayList<Result>();
+		int numOfRegressions = 0;
+		for(RunResult runResult: runResults) {
+			Result result = new Result(nameOf(runResult.getParams()), runResult.getPrimaryResult().getScore(),
+					runResult.getPrimaryResult().getScoreError());
+			results.add(result);
+			Result before = baseline.get(result.getName());
+			String comparison = "";
+			if(before != null) {
+				double change = (result.getMean() - before.getMean()) / before.getMean();
+				boolean regression = result.getMean() - result.getError() > before.getMean() * (1 + threshold);
+				if(regression) {
+					numOfRegressions++;
+				}
+				comparison = String.format(" %14.1f %+8.1f%%%s", before.getMean(), change * 100, regression ? "  REGRESSION" : "");
+			}
+			System.out.println(String.format("%-70s %14.1f %12.1f%s", result.getName(), result.getMean(), result.getError(), comparison));
+		}
+		if(saveFile != null) {
+			save(saveFile, results);
+			System.out.println("Results saved to "+saveFile);
+		}
+		if(numOfRegressions > 0) {
+			System.out.println(numOfRegressions+" benchmarks are more than "+Math.round(threshold * 100)+"% slower than the baseline");
+			System.exit(1);
+		}
+	}
+
+	/*
+	 * The name of a benchmark is its class and method followed by its parameters, for instance
+	 * "QuorumBenchmarks.updateState:quorumSystemName=tree.7".
+	 */
+	private static String nameOf(BenchmarkParams params) {
+		String benchmark = params.getBenchmark();
+		StringBuilder name = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+		String separator = ":";
+		for(String key: params.getParamsKeys()) {
+			name.append(separator).append(key).append('=').append(params.getParam(key));
+			separator = ",";
+		}
+		return name.toString();
+	}
+
+	private static String environment() {
+		return "java "+System.getProperty("java.version")+" ("+System.getProperty("java.vm.name")+"), "
+				+System.getProperty("os.name")+" "+System.getProperty("os.arch")+", "
+				+Runtime.getRuntime().availableProcessors()+" processors";
+	}
+
+	/*
+	 * A baseline has one benchmark per line: its name, the time per operation and the error,
+	 * separated by tabs. Lines starting with '#' are comments.
+	 */
+	private static Map<String, Result> load(String file) throws IOException {
+		Map<String, Result> baseline = new LinkedHashMap<String, Result>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while((line = reader.readLine()) != null) {
+				if(line.trim().isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] fields = line.split("\t");
+				baseline.put(fields[0], new Result(fields[0], Double.parseDouble(fields[1]), Double.parseDouble(fields[2])));
+			}
+		} finally {
+			reader.close();
+		}
+		return baseline;
+	}
+
+	private static void save(String file, List<Result> results) throws IOException {
+		PrintWriter writer = new PrintWriter(new FileWriter(file));
+		try {
+			writer.println("# "+environment());
+			writer.println("# benchmark\tns/op\terror");
+			for(Result result: results) {
+				writer.println(String.format("%s\t%.1f\t%.1f", result.getName(), result.getMean(), result.getError()));
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	/*
+	 * The time per operation of a benchmark and its error. JMH gives no error for a single
+	 * measured iteration, which counts as none.
+	 */
+	private static class Result {
+		private final String name;
+		private final double mean;
+		private final double error;
+
+		private Result(String name, double mean, double error) {
+			this.name = name;
+			this.mean = mean;
+			this.error = Double.isNaN(error) ? 0 : error;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public double getMean() {
+			return mean;
+		}
+
+		public double getError() {
+			return error;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package edu.utdallas.cs6378.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import edu.utdallas.cs6378.client.ObjectSender;
+import edu.utdallas.cs6378.models.Grant;
+import edu.utdallas.cs6378.models.Request;
+import edu.utdallas.cs6378.transport.MessageLink;
+import edu.utdallas.cs6378.utilities.TimedQueue;
+
+/**
+ * This class is the JMH benchmark of the send queue of ObjectSender. The queue is a TimedQueue
+ * of 100 objects, the capacity the nodes give it. The socket write that follows is left out,
+ * it is measured in the cluster by the "transport.send.us" histogram.
+ *
+ * @Method: handoff()
+ * An object that the benchmark thread puts in the queue and a sender thread takes out, either
+ * one by one or drained in batches as with "sendbatchsize". Once the queue is full the put
+ * waits for the sender, so the time per operation is the inverse of the throughput of the
+ * queue.
+ *
+ * @Method: linkSubmit()
+ * With the nio transport the queue is not used, and an operation is a call of submitObject()
+ * that counts the object and hands it to the link.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueueBenchmarks {
+
+	private static final int CAPACITY = 100;
+	private static final Object MESSAGE = new Grant("S1", new Request(System.currentTimeMillis(), "C1", 1, "O1.txt"));
+
+	@State(Scope.Benchmark)
+	public static class Handoff {
+
+		@Param({"1", "32"})
+		public int batchSize;
+
+		private final TimedQueue<Object> queue = new TimedQueue<Object>("benchmark", CAPACITY);
+		private Thread sender;
+
+		@Setup
+		public void setUp() {
+			sender = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					List<Object> batch = new ArrayList<Object>(batchSize);
+					try {
+						while(!Thread.currentThread().isInterrupted()) {
+							batch.add(queue.take());
+							if(batchSize > 1) {
+								queue.drainTo(batch, batchSize - 1);
+							}
+							batch.clear();
+						}
+					} catch(InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}, "benchmark-sender");
+			sender.setDaemon(true);
+			sender.start();
+		}
+
+		@TearDown
+		public void tearDown() throws InterruptedException {
+			sender.interrupt();
+			sender.join();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Link {
+
+		private final ObjectSender objSender = new ObjectSender(new MessageLink() {
+			@Override
+			public void send(Object message) throws IOException {
+			}
+		});
+	}
+
+	@Benchmark
+	public void handoff(Handoff state) throws InterruptedException {
+		state.queue.put(MESSAGE);
+	}
+
+	@Benchmark
+	public int linkSubmit(Link state) {
+		return state.objSender.submitObject(MESSAGE);
+	}
+}
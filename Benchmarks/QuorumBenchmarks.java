@@ -0,0 +1,161 @@
+package edu.utdallas.cs6378.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.utdallas.cs6378.client.ObjectSender;
+import edu.utdallas.cs6378.client.QuorumSystem;
+import edu.utdallas.cs6378.client.QuorumSystems;
+import edu.utdallas.cs6378.models.Request;
+import edu.utdallas.cs6378.models.RequestState;
+import edu.utdallas.cs6378.server.RequestProcessor;
+import edu.utdallas.cs6378.transport.MessageLink;
+
+/**
+ * This class is the JMH benchmark of the quorum mutual exclusion.
+ *
+ * @Method: updateState()
+ * A request that collects grants from the servers in a random order until updateState()
+ * reports a quorum, for several quorum systems and numbers of servers. Up to 20 servers the
+ * quorum check is a lookup in the table of the quorum system, above that it is checked
+ * directly.
+ *
+ * @Method: requestProcessor()
+ * A request that joins the queue of an object and a release that grants the lock to the
+ * oldest waiting request, with the given number of requests waiting. The events run on the
+ * calling thread and the grants go to links that drop them, so only the queue and the state
+ * machine of the lock are measured.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QuorumBenchmarks {
+
+	private static final int NUM_OF_CLIENTS = 64;
+
+	/*
+	 * The quorum system is given as its name and number of servers, for instance "tree.7".
+	 */
+	@State(Scope.Thread)
+	public static class UpdateState {
+
+		@Param({"tree.3", "tree.7", "tree.15", "grid.9", "majority.7", "majority.20", "tree.100", "majority.100"})
+		public String quorumSystemName;
+
+		private QuorumSystem quorumSystem;
+		private int[][] grantOrders;
+		private Request request;
+		private int next;
+
+		@Setup
+		public void setUp() {
+			String[] nameAndSize = quorumSystemName.split("\\.");
+			int numOfServers = Integer.parseInt(nameAndSize[1]);
+			quorumSystem = QuorumSystems.forName(nameAndSize[0], numOfServers, "");
+			request = new Request(System.currentTimeMillis(), "C1", 1, "O1.txt");
+			Random randGenerator = new Random(numOfServers);
+			grantOrders = new int[64][];
+			List<Integer> servers = new ArrayList<Integer>();
+			for(int i = 1; i <= numOfServers; i++) {
+				servers.add(i);
+			}
+			for(int i = 0; i < grantOrders.length; i++) {
+				Collections.shuffle(servers, randGenerator);
+				grantOrders[i] = new int[numOfServers];
+				for(int j = 0; j < numOfServers; j++) {
+					grantOrders[i][j] = servers.get(j);
+				}
+			}
+		}
+
+		private int[] nextGrantOrder() {
+			return grantOrders[next++ & (grantOrders.length - 1)];
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Processor {
+
+		@Param({"0", "16", "256"})
+		public int depth;
+
+		@Param({"false", "true"})
+		public boolean inquireYield;
+
+		private RequestProcessor reqProcessor;
+		private Request[] requests;
+		private int next;
+
+		@Setup
+		public void setUp() {
+			ConcurrentHashMap<String, ObjectSender> clientConnections = new ConcurrentHashMap<String, ObjectSender>();
+			for(int i = 1; i <= NUM_OF_CLIENTS; i++) {
+				clientConnections.put("C"+i, new ObjectSender(DROP));
+			}
+			reqProcessor = new RequestProcessor(clientConnections, CALLER_RUNS, "S1", inquireYield);
+			// requests arrive roughly in timestamp order, a few of them overtaking the others
+			Random randGenerator = new Random(depth);
+			requests = new Request[1 << 16];
+			for(int i = 0; i < requests.length; i++) {
+				requests[i] = new Request(i * 4L + randGenerator.nextInt(64), "C"+(i % NUM_OF_CLIENTS + 1), i, "O1.txt");
+			}
+			for(int i = 0; i <= depth; i++) {
+				reqProcessor.submitRequest(nextRequest());
+			}
+		}
+
+		private Request nextRequest() {
+			return requests[next++ & (requests.length - 1)];
+		}
+	}
+
+	/*
+	 * Grants stop at the quorum, so the state never releases a surplus grant and needs no
+	 * ClientSendWrapper.
+	 */
+	@Benchmark
+	public int updateState(UpdateState state) {
+		RequestState rState = new RequestState(state.quorumSystem, state.request, null);
+		int[] grantOrder = state.nextGrantOrder();
+		int j = 0;
+		while(!rState.updateState(grantOrder[j])) {
+			j++;
+		}
+		return j;
+	}
+
+	@Benchmark
+	public int requestProcessor(Processor state) {
+		state.reqProcessor.submitRequest(state.nextRequest());
+		state.reqProcessor.resumeProcessing();
+		return state.next;
+	}
+
+	private static final Executor CALLER_RUNS = new Executor() {
+		@Override
+		public void execute(Runnable task) {
+			task.run();
+		}
+	};
+
+	private static final MessageLink DROP = new MessageLink() {
+		@Override
+		public void send(Object message) throws IOException {
+		}
+	};
+}
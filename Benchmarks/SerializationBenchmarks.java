@@ -0,0 +1,149 @@
+package edu.utdallas.cs6378.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.utdallas.cs6378.models.DataPiece;
+import edu.utdallas.cs6378.models.Failed;
+import edu.utdallas.cs6378.models.Grant;
+import edu.utdallas.cs6378.models.Identity;
+import edu.utdallas.cs6378.models.Inquire;
+import edu.utdallas.cs6378.models.Invalidation;
+import edu.utdallas.cs6378.models.Lease;
+import edu.utdallas.cs6378.models.LeaseRequest;
+import edu.utdallas.cs6378.models.Mutation;
+import edu.utdallas.cs6378.models.MutationAck;
+import edu.utdallas.cs6378.models.PlacementRequest;
+import edu.utdallas.cs6378.models.PlacementResponse;
+import edu.utdallas.cs6378.models.PlacementTable;
+import edu.utdallas.cs6378.models.ReadRequest;
+import edu.utdallas.cs6378.models.ReadResponse;
+import edu.utdallas.cs6378.models.Release;
+import edu.utdallas.cs6378.models.Request;
+import edu.utdallas.cs6378.models.RequestToWrite;
+import edu.utdallas.cs6378.models.TransactionId;
+import edu.utdallas.cs6378.models.WriteCall;
+import edu.utdallas.cs6378.models.WriteResponse;
+import edu.utdallas.cs6378.models.Yield;
+import edu.utdallas.cs6378.transport.BinaryCodec;
+import edu.utdallas.cs6378.transport.JavaSerializationCodec;
+import edu.utdallas.cs6378.transport.MessageCodec;
+import edu.utdallas.cs6378.transport.MessageCodecs;
+
+/**
+ * This class is the JMH benchmark of the serialization of every message of the models package
+ * by every codec. An operation encodes the message into a frame, as the nio transport does,
+ * and decodes it back from the body of the frame. The models that are not sent on their own
+ * (TransactionId, ChunkHandle, PlacementTable) are measured as part of the messages that carry
+ * them, and RequestState never leaves the client.
+ *
+ * @Method: roundTrip()
+ * Encodes the message of the parameters with their codec and decodes it back.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializationBenchmarks {
+
+	@Param({BinaryCodec.NAME, JavaSerializationCodec.NAME})
+	public String codecName;
+
+	@Param({"Request", "Release", "Grant", "Inquire", "Failed", "Yield", "RequestToWrite", "WriteCall", "WriteResponse",
+			"Identity", "ReadRequest", "ReadResponse", "Invalidation", "PlacementRequest", "PlacementResponse", "DataPiece",
+			"LeaseRequest", "Lease", "Mutation", "MutationAck"})
+	public String messageName;
+
+	private MessageCodec codec;
+	private Object message;
+	private byte[] body = new byte[256];
+
+	@Setup
+	public void setUp() {
+		codec = MessageCodecs.forName(codecName);
+		for(Object candidate: newMessages()) {
+			if(candidate.getClass().getSimpleName().equals(messageName)) {
+				message = candidate;
+			}
+		}
+		if(message == null) {
+			throw new IllegalArgumentException("No message is named "+messageName);
+		}
+	}
+
+	@Benchmark
+	public Object roundTrip() throws IOException, ClassNotFoundException {
+		ByteBuffer frame = codec.encodeFrame(message);
+		int length = frame.limit() - 4;
+		if(body.length < length) {
+			body = new byte[length];
+		}
+		System.arraycopy(frame.array(), frame.arrayOffset() + 4, body, 0, length);
+		return codec.decodeFrame(body, length);
+	}
+
+	/*
+	 * One message of every type, with the field sizes of a cluster of 7 servers and messages
+	 * of the default length.
+	 */
+	static List<Object> newMessages() {
+		long now = System.currentTimeMillis();
+		String text = "Message at timestamp: "+now+" by client C1";
+		String[] replicas = {"S1", "S2", "S3"};
+		Request request = new Request(now, "C1", 42, "O1.txt");
+		TransactionId transactionId = new TransactionId(now, "C1", 42);
+		boolean[] releasesToServers = new boolean[8];
+		releasesToServers[1] = true;
+		releasesToServers[2] = true;
+		releasesToServers[4] = true;
+		RequestToWrite requestToWrite = new RequestToWrite("O1.txt", "C1", text);
+		requestToWrite.addServersBeingRequested(replicas);
+		requestToWrite.setRequestId(42);
+		requestToWrite.setTransactionId(transactionId);
+		WriteCall writeCall = new WriteCall("commit", "C1", "O1.txt");
+		writeCall.addServersBeingRequested(replicas);
+		writeCall.setRequestId(42);
+		writeCall.setTransactionId(transactionId);
+		PlacementTable placementTable = new PlacementTable();
+		for(int i = 1; i <= 7; i++) {
+			placementTable.addObject("O"+i+".txt", "S"+i, "S"+(i % 7 + 1), "S"+((i + 1) % 7 + 1));
+		}
+		Mutation mutation = new Mutation(transactionId, "O1.txt", "C1", "S1", text);
+		mutation.setRequestId(42);
+
+		List<Object> messages = new ArrayList<Object>();
+		messages.add(request);
+		messages.add(new Release(42, releasesToServers, "O1.txt"));
+		messages.add(new Grant("S1", request));
+		messages.add(new Inquire("S1", request));
+		messages.add(new Failed("S1", request));
+		messages.add(new Yield("S1", request));
+		messages.add(requestToWrite);
+		messages.add(writeCall);
+		messages.add(new WriteResponse("S1", "yes", 42));
+		messages.add(new Identity("C1", "client"));
+		messages.add(new ReadRequest("C1", "O1.txt", 42, 0, 4096));
+		messages.add(new ReadResponse("S1", "O1.txt", 42, 0, 4096, 7, new byte[4096]));
+		messages.add(new Invalidation("S1", "O1.txt", 7));
+		messages.add(new PlacementRequest("C1"));
+		messages.add(new PlacementResponse("S1", placementTable));
+		messages.add(new DataPiece(transactionId, requestToWrite, replicas, 0, 0, 1, text.getBytes()));
+		messages.add(new LeaseRequest("S1", "O1.txt"));
+		messages.add(new Lease("O1.txt", "S1", new String[] {"S2", "S3"}, now + 60000));
+		messages.add(mutation);
+		messages.add(new MutationAck("S2", "O1.txt", 42));
+		return messages;
+	}
+}
@@ -0,0 +1,233 @@
+package edu.utdallas.cs6378.client;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * This class is the base of the quorum systems. A quorum system gives its quorums once, when
+ * it is created, and a table with one bit for every set of servers is computed from them.
+ * The bit of a set is on if the set contains a quorum, so isQuorum() is a single lookup
+ * whatever the quorum system is, instead of evaluating it on every grant. The minimal
+ * quorums are then picked out of the given quorums with the same table.
+ *
+ * The table has 2^n bits for n servers, which is 128KB for 20 servers. It is only built for
+ * up to 20 servers, as the quorums of larger clusters are far too many to enumerate. Above
+ * that, every quorum system checks a set of servers directly with containsQuorum(), and
+ * random quorums and expansions are found greedily: servers are dropped from a quorum one by
+ * one for as long as what is left is still a quorum, which leaves a minimal quorum.
+ *
+ * @Method: bitOf()
+ * Returns the bit of the given server number in a set of servers given as a long, which the
+ * quorum systems use to list their quorums for the table.
+ *
+ * @Method: containsQuorum()
+ * Checks a set of servers directly against the definition of the quorum system. It is only
+ * called for clusters that are too large for the table.
+ *
+ */
+public abstract class AbstractQuorumSystem implements QuorumSystem {
+
+	public static final int MAX_TABLE_SERVERS = 20;
+	private final String name;
+	private final int numOfServers;
+	private final long[] minimalQuorums;
+	private final long[] quorumTable;
+
+	/*
+	 * The quorums are only listed, and only used, when there are at most MAX_TABLE_SERVERS
+	 * servers.
+	 */
+	protected AbstractQuorumSystem(String name, int numOfServers, List<Long> quorums) {
+		if(numOfServers < 1) {
+			throw new IllegalArgumentException("Quorum system \""+name+"\" needs at least 1 server, not "+numOfServers);
+		}
+		this.name = name;
+		this.numOfServers = numOfServers;
+		if(numOfServers > MAX_TABLE_SERVERS) {
+			this.quorumTable = null;
+			this.minimalQuorums = null;
+			return;
+		}
+		this.quorumTable = new long[Math.max(1, (1 << numOfServers) >>> 6)];
+		for(long quorum: quorums) {
+			setQuorum(quorum);
+		}
+		// a set is a quorum if it is one or if it is a quorum after dropping any one of its servers
+		int numOfSets = 1 << numOfServers;
+		for(int server = 0; server < numOfServers; server++) {
+			int bit = 1 << server;
+			for(int set = 0; set < numOfSets; set++) {
+				if((set & bit) != 0 && isQuorum(set ^ bit)) {
+					setQuorum(set);
+				}
+			}
+		}
+		this.minimalQuorums = minimize(quorums);
+		if(minimalQuorums.length == 0) {
+			throw new IllegalArgumentException("Quorum system \""+name+"\" has no quorum");
+		}
+	}
+
+	public static long bitOf(int serverNumber) {
+		return 1L << (serverNumber - 1);
+	}
+
+	protected abstract boolean containsQuorum(BitSet servers);
+
+	/*
+	 * A quorum is minimal if it is no longer a quorum once any one of its servers is dropped.
+	 * This is checked on the table, which already holds every superset of the given quorums.
+	 */
+	private long[] minimize(List<Long> quorums) {
+		List<Long> minimal = new ArrayList<Long>();
+		for(long quorum: new TreeSet<Long>(quorums)) {
+			boolean isMinimal = true;
+			for(long rest = quorum; rest != 0 && isMinimal; rest = rest & (rest - 1)) {
+				isMinimal = !isQuorum(quorum ^ Long.lowestOneBit(rest));
+			}
+			if(isMinimal) {
+				minimal.add(quorum);
+			}
+		}
+		Collections.sort(minimal, new Comparator<Long>() {
+			@Override
+			public int compare(Long set1, Long set2) {
+				int bySize = Long.bitCount(set1) - Long.bitCount(set2);
+				return bySize != 0 ? bySize : Long.compare(set1, set2);
+			}
+		});
+		long[] result = new long[minimal.size()];
+		for(int i = 0; i < result.length; i++) {
+			result[i] = minimal.get(i);
+		}
+		return result;
+	}
+
+	private void setQuorum(long set) {
+		quorumTable[(int) (set >>> 6)] |= 1L << set;
+	}
+
+	private boolean isQuorum(long servers) {
+		long set = servers & ((1L << numOfServers) - 1);
+		return (quorumTable[(int) (set >>> 6)] & (1L << set)) != 0;
+	}
+
+	/*
+	 * Only the first MAX_TABLE_SERVERS bits are looked at, so this does not allocate.
+	 */
+	private static long toLong(BitSet servers) {
+		long set = 0;
+		for(int i = servers.nextSetBit(0); i >= 0 && i < MAX_TABLE_SERVERS; i = servers.nextSetBit(i + 1)) {
+			set = set | (1L << i);
+		}
+		return set;
+	}
+
+	private static BitSet toBitSet(long set) {
+		return BitSet.valueOf(new long[] {set});
+	}
+
+	@Override
+	public boolean isQuorum(BitSet servers) {
+		if(quorumTable == null) {
+			return containsQuorum(servers);
+		}
+		return isQuorum(toLong(servers));
+	}
+
+	@Override
+	public BitSet getRandomQuorum(Random randGenerator) {
+		if(minimalQuorums != null) {
+			return toBitSet(minimalQuorums[randGenerator.nextInt(minimalQuorums.length)]);
+		}
+		List<Integer> servers = new ArrayList<Integer>();
+		for(int i = 0; i < numOfServers; i++) {
+			servers.add(i);
+		}
+		Collections.shuffle(servers, randGenerator);
+		BitSet quorum = new BitSet(numOfServers);
+		quorum.set(0, numOfServers);
+		for(int server: servers) {
+			dropIfStillQuorum(quorum, server);
+		}
+		return quorum;
+	}
+
+	/*
+	 * With the table, the minimal quorum that avoids the slow servers with the fewest servers
+	 * not requested yet is chosen, or else the one with the fewest such servers. Without it,
+	 * the servers that are neither slow nor requested are dropped, from the last one, for as
+	 * long as what is left stays a quorum.
+	 */
+	@Override
+	public BitSet getExpansion(BitSet requestedServers, BitSet slowServers) {
+		if(minimalQuorums != null) {
+			return toBitSet(getExpansion(toLong(requestedServers), toLong(slowServers)));
+		}
+		BitSet quorum = new BitSet(numOfServers);
+		quorum.set(0, numOfServers);
+		quorum.andNot(slowServers);
+		if(!containsQuorum(quorum)) {
+			quorum.set(0, numOfServers);
+		}
+		for(int server = numOfServers - 1; server >= 0; server--) {
+			if(quorum.get(server) && !requestedServers.get(server)) {
+				dropIfStillQuorum(quorum, server);
+			}
+		}
+		quorum.andNot(requestedServers);
+		return quorum;
+	}
+
+	private long getExpansion(long requestedServers, long slowServers) {
+		long bestQuorum = 0;
+		int fewestNewServers = Integer.MAX_VALUE;
+		boolean bestAvoidsSlowServers = false;
+		for(long quorum: minimalQuorums) {
+			int numOfNewServers = Long.bitCount(quorum & ~requestedServers);
+			boolean avoidsSlowServers = (quorum & slowServers) == 0;
+			if(numOfNewServers == 0 || (bestAvoidsSlowServers && !avoidsSlowServers)) {
+				continue;
+			}
+			if((avoidsSlowServers && !bestAvoidsSlowServers) || numOfNewServers < fewestNewServers) {
+				bestQuorum = quorum;
+				fewestNewServers = numOfNewServers;
+				bestAvoidsSlowServers = avoidsSlowServers;
+			}
+		}
+		return bestQuorum & ~requestedServers;
+	}
+
+	private void dropIfStillQuorum(BitSet quorum, int server) {
+		quorum.clear(server);
+		if(!containsQuorum(quorum)) {
+			quorum.set(server);
+		}
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public int getNumOfServers() {
+		return numOfServers;
+	}
+
+	@Override
+	public String toString() {
+		if(minimalQuorums == null) {
+			return name+" over "+numOfServers+" servers, quorums checked directly";
+		}
+		int smallest = minimalQuorums.length == 0 ? 0 : Long.bitCount(minimalQuorums[0]);
+		int largest = minimalQuorums.length == 0 ? 0 : Long.bitCount(minimalQuorums[minimalQuorums.length - 1]);
+		return name+" over "+numOfServers+" servers, "+minimalQuorums.length+" minimal quorums of "
+				+smallest+(largest == smallest ? "" : " to "+largest)+" servers";
+	}
+}
@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.net.ConnectException;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
@@ -11,8 +13,13 @@ import org.apache.log4j.Logger;
 
 import edu.utdallas.cs6378.models.Identity;
 import edu.utdallas.cs6378.models.Request;
+import edu.utdallas.cs6378.transport.NioTransport;
 import edu.utdallas.cs6378.utilities.Constants;
+import edu.utdallas.cs6378.utilities.GaugeMXBean;
+import edu.utdallas.cs6378.utilities.Histogram;
+import edu.utdallas.cs6378.utilities.Metrics;
 import edu.utdallas.cs6378.utilities.NodeProperties;
+import edu.utdallas.cs6378.utilities.NodeThreads;
 
 /**
  * This class has methods that determine the life cycle of a client node at a high
@@ -23,13 +30,15 @@ import edu.utdallas.cs6378.utilities.NodeProperties;
  * This method connects to all the servers in the system based on properties file.
  * This method also starts all the threads that receive and send objects to those
  * servers. Whenever a node connects to another node, it sends an identity object
- * that has information about the connecting node.
+ * that has information about the connecting node. With the nio transport, the
+ * connections are registered with the event loops of NioTransport instead.
  * 
  * @Method: startRequests()
  * This method makes sure that the client looks for "Begin" notification from 
  * master server that coordinates the distributed process. Once begin is received,
  * request generation is enabled by starting the thread that is responsible for
- * request generation and critical section execution.
+ * request generation and critical section execution. When the property "readbenchmark"
+ * is set, a ReadBenchmark thread is started at the same time.
  * 
  * @Method: lookForShutdownNotification()
  * This method looks for shutdown message from "Master" server. Once the shutdown
@@ -40,6 +49,10 @@ import edu.utdallas.cs6378.utilities.NodeProperties;
  * them to terminate. Once the threads are terminated, statistics are printed by
  * this method.
  * 
+ * @Method: startMetrics()
+ * Registers the message counts of this node as gauges and, when the property "metricsport"
+ * is set, serves them along with the latency histograms of the node over HTTP while it runs.
+ * 
  */
 
 public class ClientNode {
@@ -53,6 +66,10 @@ public class ClientNode {
 	private ConcurrentHashMap<String, GrantHandler> objectReceiversFromServers;
 	private ExecuteCriticalSection executeCS;
 	private ClientSendWrapper clientSendWrapper;
+	private PlacementLookup placementLookup;
+	private LeaseLookup leaseLookup;
+	private ObjectReader objectReader;
+	private ReadBenchmark readBenchmark;
 	
 	public ClientNode(String clientName, int numOfServers) {
 		myId = new Identity(clientName, Constants.CLIENT);
@@ -60,7 +77,40 @@ public class ClientNode {
 		objectSendersToServers = new ConcurrentHashMap<String, ObjectSender>();
 		objectReceiversFromServers = new ConcurrentHashMap<String, GrantHandler>();
 		clientSendWrapper = new ClientSendWrapper(objectSendersToServers);
-		executeCS = new ExecuteCriticalSection(clientSendWrapper);
+		placementLookup = new PlacementLookup(objectSendersToServers);
+		leaseLookup = new LeaseLookup(objectSendersToServers);
+		executeCS = new ExecuteCriticalSection(clientSendWrapper, placementLookup, leaseLookup);
+		objectReader = new ObjectReader(objectSendersToServers, placementLookup);
+		startMetrics();
+	}
+	
+	private void startMetrics() {
+		Metrics.registerGauge("client.messages.sent", new GaugeMXBean() {
+			@Override
+			public long getValue() {
+				return clientSendWrapper.getNumberOfRequests() + clientSendWrapper.getNumberOfReleases()
+						+ clientSendWrapper.getAuxiliaryMessages() + clientSendWrapper.getNumOfRequestsToWrite()
+						+ clientSendWrapper.getNumOfWriteCalls() + clientSendWrapper.getNumOfDataPieces()
+						+ clientSendWrapper.getNumOfMutations() + clientSendWrapper.getNumOfYields();
+			}
+		});
+		Metrics.registerGauge("client.grants.received", new GaugeMXBean() {
+			@Override
+			public long getValue() {
+				long total = 0;
+				for(GrantHandler grantHandler: objectReceiversFromServers.values()) {
+					total = total + grantHandler.getGrantsReceived();
+				}
+				return total;
+			}
+		});
+		Metrics.registerGauge("client.quorum.expansions", new GaugeMXBean() {
+			@Override
+			public long getValue() {
+				return executeCS.getNumOfExpansions();
+			}
+		});
+		Metrics.startHttpServer(Constants.METRICSPORT);
 	}
 	
 	public void connectToServers() {
@@ -71,6 +121,19 @@ public class ClientNode {
 			String[] ipAndPort = ipAddress.split(Pattern.quote(":"));
 			Socket connection = null;
 			try {
+				if(NioTransport.isEnabled()) {
+					NioTransport transport = NioTransport.get();
+					SocketChannel channel = transport.connect(ipAndPort[0], Integer.parseInt(ipAndPort[1]));
+					connection = channel.socket();
+					connectionsToServers[Integer.parseInt(serverNames[i].substring(1))] = connection;
+					GrantHandler grantReceiver = new GrantHandler(connection, executeCS, objectReader, placementLookup, leaseLookup);
+					objectReceiversFromServers.put(serverNames[i], grantReceiver);
+					ObjectSender objSender = new ObjectSender(transport.register(channel, grantReceiver));
+					objSender.submitObject(myId);
+					objectSendersToServers.put(serverNames[i], objSender);
+					logger.debug("Established connection to server "+serverNames[i]);
+					continue;
+				}
 				InetAddress inetAddress = InetAddress.getByName(ipAndPort[0]);
 				connection = new Socket(inetAddress, Integer.parseInt(ipAndPort[1]));
 				
@@ -80,7 +143,7 @@ public class ClientNode {
 				objectSendersToServers.put(serverNames[i], objSender);
 				
 				connectionsToServers[Integer.parseInt(serverNames[i].substring(1))] = connection;
-				GrantHandler grantReceiver = new GrantHandler(connection, executeCS);
+				GrantHandler grantReceiver = new GrantHandler(connection, executeCS, objectReader, placementLookup, leaseLookup);
 				grantReceiver.start();
 				objectReceiversFromServers.put(serverNames[i], grantReceiver);
 				
@@ -107,6 +170,10 @@ public class ClientNode {
 		while(true) {
 			if(grantHandler.getBeginReceived()) {
 				executeCS.start();
+				if(Constants.READBENCHMARK > 0) {
+					readBenchmark = new ReadBenchmark(objectReader, Constants.READBENCHMARK);
+					readBenchmark.start();
+				}
 				break;
 			}
 			try {
@@ -139,20 +206,34 @@ public class ClientNode {
 			//e.printStackTrace();
 		}
 		executeCS.interrupt();
+		if(readBenchmark != null) {
+			readBenchmark.interrupt();
+		}
 		clientSendWrapper.interrupt();
 		int numOfIdentitiesSent = 0;
-		for(ObjectSender objSender:objectSendersToServers.values()) {
+		for(String server: objectSendersToServers.keySet()) {
+			ObjectSender objSender = objectSendersToServers.get(server);
 			objSender.interrupt();
 			numOfIdentitiesSent = numOfIdentitiesSent + objSender.getNumOfIdentities();
+			if(Constants.SENDBATCHSIZE > 1) {
+				logger.debug("Batch sizes to server: '"+server+"', "+objSender.getBatchSizes()
+						+", buckets: "+objSender.getBatchSizes().getBuckets());
+			}
 		}
+		NioTransport.shutdownIfStarted();
 		
 		logger.debug("**************** TIMEUNIT: "+String.format("%4d", Constants.TIMEUNIT)+" ms **********************************");
 		logger.debug("**************** REQUESTS: "+String.format("%4d", Constants.NUMOFREQUESTS)+" from this client ***************");
 		logger.debug("**************** MASTERSERVER: "+Constants.MASTER+" ***************************");
+		if(!Constants.requestStates.isEmpty()) {
+			logger.debug("**************** QUORUM SYSTEM: "+QuorumSystems.get()+" ****");
+		}
 		int grantsForCriticalSection = 0;
-		for(int i = 1; i <= Constants.NUMOFREQUESTS; i++) {
+		Histogram grantLatency = new Histogram();
+		for(int i = 1; i <= Constants.NUMOFREQUESTS && !Constants.requestStates.isEmpty(); i++) {
 			Request request = Constants.requestStates.get(i).getRequest();
 			grantsForCriticalSection = grantsForCriticalSection + request.getNumOfGrantsToEnterCriticalSection();
+			grantLatency.record(request.getLatency());
 			logger.debug("Request: "+String.format("%2d", request.getRequestId())+", Received "+ request.getNumOfGrantsToEnterCriticalSection()
 					+" server grants from: "+String.format("%-30s",request.getServersThatGranted())+"and latency: "+String.format("%5d", request.getLatency())+" ms");
 			if(i%10 == 0) {
@@ -165,13 +246,21 @@ public class ClientNode {
 			}
 		}
 		int totalMessagesReceived = 0;
+		int quorumMessagesReceived = 0;
 		for(String server: Constants.SERVERS) {
 			GrantHandler grantHandler = objectReceiversFromServers.get(server);
+			quorumMessagesReceived = quorumMessagesReceived + grantHandler.getGrantsReceived()
+					+ grantHandler.getNumOfInquiries() + grantHandler.getNumOfFailed();
 			totalMessagesReceived = totalMessagesReceived + grantHandler.getGrantsReceived() + grantHandler.getAuxiliaryMessages()
-					+ grantHandler.getNumOfWriteResponses();
+					+ grantHandler.getNumOfWriteResponses() + grantHandler.getNumOfReadResponses() + grantHandler.getNumOfInvalidations()
+					+ grantHandler.getNumOfInquiries() + grantHandler.getNumOfFailed();
 			logger.debug("from '"+server+"'- Total grants received: "+grantHandler.getGrantsReceived()
+					+" total inquiries received: "+grantHandler.getNumOfInquiries()
+					+" total failed requests received: "+grantHandler.getNumOfFailed()
 					+" total auxiliary messages received: "+grantHandler.getAuxiliaryMessages()
-					+" and total write responses received: "+grantHandler.getNumOfWriteResponses());
+					+" total write responses received: "+grantHandler.getNumOfWriteResponses()
+					+" total read responses received: "+grantHandler.getNumOfReadResponses()
+					+" and total invalidations received: "+grantHandler.getNumOfInvalidations());
 		}
 		
 		try {
@@ -185,6 +274,10 @@ public class ClientNode {
 		logger.debug("Total auxiliary messages sent to all servers:"+String.format("%4d", clientSendWrapper.getAuxiliaryMessages()));
 		logger.debug("Total Requests to write:                     "+String.format("%4d", clientSendWrapper.getNumOfRequestsToWrite()));
 		logger.debug("Total write calls:                           "+String.format("%4d", clientSendWrapper.getNumOfWriteCalls()));
+		logger.debug("Total data pieces:                           "+String.format("%4d", clientSendWrapper.getNumOfDataPieces()));
+		logger.debug("Total mutations:                             "+String.format("%4d", clientSendWrapper.getNumOfMutations()));
+		logger.debug("Total compare-and-set conflicts:             "+String.format("%4d", executeCS.getNumOfConflicts()));
+		logger.debug("Total grants yielded:                        "+String.format("%4d", clientSendWrapper.getNumOfYields()));
 		logger.debug("Total identity messages sent to all servers: "+String.format("%4d", numOfIdentitiesSent));
 		try {
 			Thread.sleep(500);
@@ -197,9 +290,27 @@ public class ClientNode {
 																						+clientSendWrapper.getNumberOfReleases()
 																						+clientSendWrapper.getNumOfRequestsToWrite()
 																						+clientSendWrapper.getNumOfWriteCalls()
+																						+clientSendWrapper.getNumOfDataPieces()
+																						+clientSendWrapper.getNumOfMutations()
+																						+clientSendWrapper.getNumOfYields()
 																						+numOfIdentitiesSent));
 		logger.debug("Total grants that enabled CS access:         "+String.format("%4d", grantsForCriticalSection));
+		if(grantLatency.getCount() > 0) {
+			logger.debug("Grant latency (ms): "+grantLatency);
+			// requests, grants and releases, plus inquiries, failures and yields if any
+			int quorumMessages = clientSendWrapper.getNumberOfRequests() + clientSendWrapper.getNumberOfReleases()
+					+ clientSendWrapper.getNumOfYields() + quorumMessagesReceived;
+			logger.debug("Quorum messages per critical section: "+String.format("%.1f", (double) quorumMessages / grantLatency.getCount())
+					+" ("+Constants.QUORUMREQUESTS+" requests, "+executeCS.getNumOfExpansions()+" expanded)");
+		}
 		logger.debug("Total messages received at this node:        "+String.format("%4d", totalMessagesReceived));
+		for(Map.Entry<String, Histogram> entry: Metrics.getHistograms().entrySet()) {
+			if(entry.getValue().getCount() > 0) {
+				logger.debug("Metric '"+entry.getKey()+"', "+entry.getValue());
+			}
+		}
+		Metrics.stopHttpServer();
+		logger.debug(NodeThreads.getThreadSummary());
 		
 		logger.debug("Client shutdown is complete!");
 		try {
@@ -211,6 +322,10 @@ public class ClientNode {
 		
 	}
 	
+	public ObjectReader getObjectReader() {
+		return objectReader;
+	}
+	
 	public Identity getId() {
 		return myId;
 	}
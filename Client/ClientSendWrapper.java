@@ -1,19 +1,31 @@
 package edu.utdallas.cs6378.client;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import edu.utdallas.cs6378.models.DataPiece;
+import edu.utdallas.cs6378.models.Mutation;
 import edu.utdallas.cs6378.models.Release;
 import edu.utdallas.cs6378.models.Request;
 import edu.utdallas.cs6378.models.RequestToWrite;
+import edu.utdallas.cs6378.models.TransactionId;
 import edu.utdallas.cs6378.models.WriteCall;
+import edu.utdallas.cs6378.models.Yield;
+import edu.utdallas.cs6378.server.DataPipeline;
 import edu.utdallas.cs6378.utilities.Constants;
+import edu.utdallas.cs6378.utilities.NodeThread;
+import edu.utdallas.cs6378.utilities.TimedQueue;
 
 /**
  * This class functions as a Wrapper to send objects to servers through 
  * ObjectSender threads. 
  * This follows a producer-consumer model of processing send requests using
- * an ArrayBlockingQueue. This class also keeps track of all of the 
+ * a TimedQueue. This class also keeps track of all of the 
  * messages being sent to the servers and distinguishes them based on
  * their instance type. 
  * 
@@ -31,29 +43,38 @@ import edu.utdallas.cs6378.utilities.Constants;
  * immediately released. However, the grants from the quorum will 
  * be released only after the execution of critical section. Auxiliary
  * messages are sent only to master server based on the properties
- * file.
+ * file. With the chained data pipeline, a RequestToWrite is sent as
+ * DataPieces to the first server that holds the object only. A Mutation
+ * is sent to the primary of its object only, and a Yield to the server that inquired about
+ * the grant.
+ * 
+ * @Method: submitRequest()
+ * Queues a request that is sent only to the given set of servers instead of all of them.
+ * 
+ * @Method: pushData()
+ * Queues the data of a write as DataPieces ahead of its critical section, either to every
+ * server that holds the object or, with the chained data pipeline, to the first of them.
  * 
  */
 
-public class ClientSendWrapper extends Thread {
+public class ClientSendWrapper extends NodeThread {
 	
 	//private static Logger logger = Logger.getLogger(ClientSendWrapper.class);
-	private ArrayBlockingQueue<Object> objects;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private TimedQueue<Object> objects;
 	private ConcurrentHashMap<String, ObjectSender> serverConnections;
-	private int numberOfReleases;
-	private int numberOfRequests;
-	private int auxiliaryMessages;
-	private int numOfRequestsToWrite;
-	private int numOfWriteCalls;
+	private AtomicInteger numberOfReleases = new AtomicInteger();
+	private AtomicInteger numberOfRequests = new AtomicInteger();
+	private AtomicInteger auxiliaryMessages = new AtomicInteger();
+	private AtomicInteger numOfRequestsToWrite = new AtomicInteger();
+	private AtomicInteger numOfDataPieces = new AtomicInteger();
+	private AtomicInteger numOfWriteCalls = new AtomicInteger();
+	private AtomicInteger numOfMutations = new AtomicInteger();
+	private AtomicInteger numOfYields = new AtomicInteger();
 	
 	public ClientSendWrapper(ConcurrentHashMap<String, ObjectSender> serverConnections) {
-		objects = new ArrayBlockingQueue<Object>(100);
+		objects = new TimedQueue<Object>("clientsend", 100);
 		this.serverConnections = serverConnections;
-		this.numberOfReleases = 0;
-		this.numberOfRequests = 0;
-		this.auxiliaryMessages = 0;
-		this.numOfRequestsToWrite = 0;
-		this.numOfWriteCalls = 0;
 	}
 	
 	/*
@@ -66,37 +87,7 @@ public class ClientSendWrapper extends Thread {
 	public void run() {
 		while(!isInterrupted()) {
 			try {
-				Object object = objects.take();
-				if(object instanceof Release) {
-					Release release = (Release) object;
-					for(int j = 1; j < release.getReleasesToServers().length; j++) {
-						if(release.getReleasesToServers()[j]) {
-							serverConnections.get("S"+j).submitObject(release);
-							numberOfReleases++;
-						}
-					}
-				} else if (object instanceof Request) {
-					for(String key: serverConnections.keySet()) {
-						serverConnections.get(key).submitObject(object);
-						numberOfRequests++;
-					}
-				} else if (object instanceof RequestToWrite) {
-					RequestToWrite reqForCommit = (RequestToWrite) object;
-					for (String server:reqForCommit.getServersBeingRequested()) {
-						serverConnections.get(server).submitObject(object);
-						this.numOfRequestsToWrite++;
-					}
-				} else if (object instanceof WriteCall) {
-					WriteCall writeCall = (WriteCall) object;
-					for (String server:writeCall.getServersBeingRequested()) {
-						serverConnections.get(server).submitObject(object);
-						this.numOfWriteCalls++;
-					}
-				} else if (object instanceof String) {
-					this.auxiliaryMessages++;
-					serverConnections.get(Constants.MASTER).submitObject(object);
-				}
-				
+				send(objects.take());
 			} catch (InterruptedException e) {
 				comment("SendRelease thread has been interrupted and interrupt status is "+isInterrupted());
 				Thread.currentThread().interrupt();
@@ -105,6 +96,129 @@ public class ClientSendWrapper extends Thread {
 		comment("SendRelease has terminated!");
 	}
 	
+	/*
+	 * Sends one object to the servers it is meant for. The simulator sends its objects straight
+	 * through this method instead of the queue.
+	 */
+	protected void send(Object object) {
+		if(object instanceof Release) {
+			Release release = (Release) object;
+			for(int j = 1; j < release.getReleasesToServers().length; j++) {
+				if(release.getReleasesToServers()[j]) {
+					serverConnections.get("S"+j).submitObject(release);
+					numberOfReleases.incrementAndGet();
+				}
+			}
+		} else if (object instanceof Request) {
+			for(String key: serverConnections.keySet()) {
+				serverConnections.get(key).submitObject(object);
+				numberOfRequests.incrementAndGet();
+			}
+		} else if (object instanceof TargetedRequest) {
+			TargetedRequest targetedRequest = (TargetedRequest) object;
+			for(int i = targetedRequest.servers.nextSetBit(0); i >= 0; i = targetedRequest.servers.nextSetBit(i + 1)) {
+				serverConnections.get("S"+(i + 1)).submitObject(targetedRequest.request);
+				numberOfRequests.incrementAndGet();
+			}
+		} else if (object instanceof DataPiece) {
+			DataPiece piece = (DataPiece) object;
+			serverConnections.get(piece.getChain()[piece.getChainIndex()]).submitObject(piece);
+			this.numOfDataPieces.incrementAndGet();
+		} else if (object instanceof RequestToWrite && ((RequestToWrite) object).getDataId() == null
+				&& DataPipeline.CHAIN.equalsIgnoreCase(Constants.DATAPIPELINE)) {
+			sendDataPieces((RequestToWrite) object);
+			this.numOfRequestsToWrite.incrementAndGet();
+		} else if (object instanceof RequestToWrite) {
+			RequestToWrite reqForCommit = (RequestToWrite) object;
+			for (String server:reqForCommit.getServersBeingRequested()) {
+				serverConnections.get(server).submitObject(object);
+				this.numOfRequestsToWrite.incrementAndGet();
+			}
+		} else if (object instanceof WriteCall) {
+			WriteCall writeCall = (WriteCall) object;
+			for (String server:writeCall.getServersBeingRequested()) {
+				serverConnections.get(server).submitObject(object);
+				this.numOfWriteCalls.incrementAndGet();
+			}
+		} else if (object instanceof Mutation) {
+			serverConnections.get(((Mutation) object).getPrimary()).submitObject(object);
+			this.numOfMutations.incrementAndGet();
+		} else if (object instanceof Yield) {
+			serverConnections.get(((Yield) object).getToServer()).submitObject(object);
+			this.numOfYields.incrementAndGet();
+		} else if (object instanceof String) {
+			this.auxiliaryMessages.incrementAndGet();
+			serverConnections.get(Constants.MASTER).submitObject(object);
+		}
+	}
+	
+	/*
+	 * A request along with the servers it is sent to. Only the request itself goes on the wire.
+	 */
+	private static class TargetedRequest {
+		private final Request request;
+		private final BitSet servers;
+
+		private TargetedRequest(Request request, BitSet servers) {
+			this.request = request;
+			this.servers = servers;
+		}
+	}
+
+	public void submitRequest(Request request, BitSet servers) {
+		submitObject(new TargetedRequest(request, servers));
+	}
+
+	/*
+	 * With the chained data pipeline, the message of a RequestToWrite is cut into pieces of
+	 * "piecesize" bytes that are sent only to the first server of the chain (the first replica
+	 * in the placement table). The first piece carries the RequestToWrite without its message.
+	 */
+	private void sendDataPieces(RequestToWrite reqForCommit) {
+		String[] chain = reqForCommit.getServersBeingRequested();
+		RequestToWrite header = reqForCommit.copyWithMessage(null);
+		ObjectSender firstServer = serverConnections.get(chain[0]);
+		for(DataPiece piece: cutIntoPieces(reqForCommit.getTransactionId(), header, chain, reqForCommit.getStringToBeWritten())) {
+			firstServer.submitObject(piece);
+			this.numOfDataPieces.incrementAndGet();
+		}
+	}
+	
+	/*
+	 * The pieces are queued like any other object, so the data is sent after the Request that
+	 * was submitted before and the client goes on waiting for grants meanwhile. The servers
+	 * buffer the data under dataId until the RequestToWrite that names it arrives.
+	 */
+	public void pushData(TransactionId dataId, String[] replicas, String data) {
+		if(DataPipeline.CHAIN.equalsIgnoreCase(Constants.DATAPIPELINE)) {
+			for(DataPiece piece: cutIntoPieces(dataId, null, replicas, data)) {
+				submitObject(piece);
+			}
+			return;
+		}
+		for(String server: replicas) {
+			for(DataPiece piece: cutIntoPieces(dataId, null, new String[] {server}, data)) {
+				submitObject(piece);
+			}
+		}
+	}
+	
+	/*
+	 * Cuts the data into pieces of "piecesize" bytes addressed to the first server of the chain.
+	 * Only the first piece carries the header.
+	 */
+	private static List<DataPiece> cutIntoPieces(TransactionId id, RequestToWrite header, String[] chain, String data) {
+		byte[] bytes = data.getBytes(UTF8);
+		int pieceSize = Math.max(1, Constants.PIECESIZE);
+		int numOfPieces = Math.max(1, (bytes.length + pieceSize - 1) / pieceSize);
+		List<DataPiece> pieces = new ArrayList<DataPiece>(numOfPieces);
+		for(int i = 0; i < numOfPieces; i++) {
+			byte[] piece = Arrays.copyOfRange(bytes, i * pieceSize, Math.min(bytes.length, (i + 1) * pieceSize));
+			pieces.add(new DataPiece(id, i == 0 ? header : null, chain, 0, i, numOfPieces, piece));
+		}
+		return pieces;
+	}
+	
 	public void submitObject(Object object) {
 		try {
 			objects.put(object);
@@ -114,43 +228,55 @@ public class ClientSendWrapper extends Thread {
 	}
 	
 	public int getNumberOfReleases() {
-		return numberOfReleases;
+		return numberOfReleases.get();
 	}
 
 	public void setNumberOfReleases(int numberOfReleases) {
-		this.numberOfReleases = numberOfReleases;
+		this.numberOfReleases.set(numberOfReleases);
 	}
 
 	public int getNumberOfRequests() {
-		return numberOfRequests;
+		return numberOfRequests.get();
 	}
 
 	public void setNumberOfRequests(int numberOfRequests) {
-		this.numberOfRequests = numberOfRequests;
+		this.numberOfRequests.set(numberOfRequests);
 	}
 
 	public int getAuxiliaryMessages() {
-		return auxiliaryMessages;
+		return auxiliaryMessages.get();
 	}
 
 	public void setAuxiliaryMessages(int auxiliaryMessages) {
-		this.auxiliaryMessages = auxiliaryMessages;
+		this.auxiliaryMessages.set(auxiliaryMessages);
 	}
 
 	public int getNumOfRequestsToWrite() {
-		return numOfRequestsToWrite;
+		return numOfRequestsToWrite.get();
 	}
 
 	public void setNumOfRequestsToWrite(int numOfRequestsToWrite) {
-		this.numOfRequestsToWrite = numOfRequestsToWrite;
+		this.numOfRequestsToWrite.set(numOfRequestsToWrite);
 	}
 
 	public int getNumOfWriteCalls() {
-		return numOfWriteCalls;
+		return numOfWriteCalls.get();
 	}
 
 	public void setNumOfWriteCalls(int numOfWriteCalls) {
-		this.numOfWriteCalls = numOfWriteCalls;
+		this.numOfWriteCalls.set(numOfWriteCalls);
+	}
+
+	public int getNumOfMutations() {
+		return numOfMutations.get();
+	}
+
+	public int getNumOfYields() {
+		return numOfYields.get();
+	}
+
+	public int getNumOfDataPieces() {
+		return numOfDataPieces.get();
 	}
 
 	private void comment(String message) {
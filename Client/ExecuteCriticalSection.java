@@ -1,26 +1,47 @@
 package edu.utdallas.cs6378.client;
 
-import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 
+import edu.utdallas.cs6378.models.Lease;
+import edu.utdallas.cs6378.models.Mutation;
 import edu.utdallas.cs6378.models.Release;
 import edu.utdallas.cs6378.models.Request;
 import edu.utdallas.cs6378.models.RequestToWrite;
 import edu.utdallas.cs6378.models.RequestState;
+import edu.utdallas.cs6378.models.TransactionId;
 import edu.utdallas.cs6378.models.WriteCall;
 import edu.utdallas.cs6378.models.WriteResponse;
+import edu.utdallas.cs6378.server.LeaseManager;
+import edu.utdallas.cs6378.server.WriteRequestProcessor;
 import edu.utdallas.cs6378.utilities.Constants;
+import edu.utdallas.cs6378.utilities.Histogram;
+import edu.utdallas.cs6378.utilities.Metrics;
+import edu.utdallas.cs6378.utilities.NodeThread;
+import edu.utdallas.cs6378.utilities.NodeThreads;
+import edu.utdallas.cs6378.utilities.TimedQueue;
 
 
 /**
  * This class is a thread sub-class that has methods to handle the quorum-granted
  * requests and execute the critical section for the corresponding request. It employs
- * producer consumer model by using ArrayBlockingQueue to accept grantedRequests and
+ * producer consumer model by using a TimedQueue to accept grantedRequests and
  * process them.
  * 
+ * The phases of every write are recorded in microseconds: "client.grant.us" from the request
+ * to its quorum, "client.prepare.us" for the votes on a RequestToWrite, "client.commit.us" for
+ * the dones of a WriteCall and "client.write.us" from the request to the end of the write.
+ * 
  * @Method: run()
  * This method is executed when the thread is started and it terminates only when it is
  * interrupted by another thread. It reads the parameter about the number of requests
@@ -36,26 +57,84 @@ import edu.utdallas.cs6378.utilities.Constants;
  * This method can be used to submit the quorum-granted requests for which critical section
  * can be executed.
  * 
+ * @Method: runPipelined()
+ * When the property "pipelinewindow" is more than 1, run() issues up to that many requests
+ * without waiting for the previous ones to be granted. Each granted request executes its
+ * critical section on a pool of "pipelinewindow" threads, so the 2-phase commits of requests
+ * for different objects proceed concurrently. Server responses are tracked per request.
+ * 
+ * @Method: issueRequest()
+ * Sends a request for the critical section to all the servers or, when the property
+ * "quorumrequests" is "targeted", only to the servers of one minimal quorum. A targeted
+ * request that has not been granted by a quorum within "quorumtimeoutms" is expanded to
+ * other servers, avoiding the ones that have not answered.
+ * 
+ * @Method: pushData()
+ * When the property "datapush" is true, pushes the data of a write to the servers as soon as
+ * its request has been issued. The RequestToWrite of the critical section then only carries
+ * the id of the pushed data.
+ * 
+ * @Method: runLockFree()
+ * When the property "ordering" is "lease" or "optimistic", writes are not preceded by a
+ * critical section. With "lease" each write is a record append sent as a Mutation to the
+ * primary of its object, which orders it, and is done once the primary reports that every
+ * replica has applied it. With "optimistic" each write is a compare-and-set.
+ * 
+ * @Method: recordAppend()
+ * Appends a record to an object at an offset chosen by the primary of the object and returns
+ * that offset. Concurrent appenders do not exclude each other, so many clients can append to
+ * the same object at once.
+ * 
+ * @Method: conditionalWrite()
+ * Writes to an object only if its version is the one this client last saw. The write is
+ * prepared at all the replicas and committed if a majority of them has the expected version.
+ * Otherwise it is aborted and retried after a random back off with the highest version that
+ * the replicas have reported.
+ * 
  */
 
-public class ExecuteCriticalSection extends Thread {
+public class ExecuteCriticalSection extends NodeThread {
 	
 	private static Logger logger = Logger.getLogger(ExecuteCriticalSection.class);
-	private ArrayBlockingQueue<Request> grantedRequests;
+	public static final String TARGETED = "targeted";
+	private TimedQueue<Request> grantedRequests;
 	private ClientSendWrapper clientSendWrapper;
-	private int numOfRequestsGranted;
+	private PlacementLookup placementLookup;
+	private LeaseLookup leaseLookup;
+	private AtomicInteger numOfRequestsGranted;
 	private int numOfRequestsToBeIssued;
-	private ArrayList<WriteResponse> serverResponses = new ArrayList<WriteResponse>();
+	private ConcurrentHashMap<Integer, PendingResponses> serverResponses = new ConcurrentHashMap<Integer, PendingResponses>();
+	private volatile ExecutorService criticalSectionExecutor;
+	private Semaphore requestWindow;
+	private ConcurrentHashMap<String, Long> knownVersions = new ConcurrentHashMap<String, Long>();
+	private AtomicInteger numOfConflicts = new AtomicInteger(0);
+	private ScheduledExecutorService quorumTimer;
+	private AtomicInteger numOfExpansions = new AtomicInteger(0);
+	private Histogram grantMicros = Metrics.histogram("client.grant.us");
+	private Histogram prepareMicros = Metrics.histogram("client.prepare.us");
+	private Histogram commitMicros = Metrics.histogram("client.commit.us");
+	private Histogram writeMicros = Metrics.histogram("client.write.us");
 	
-	public ExecuteCriticalSection(ClientSendWrapper clientSendWrapper) {
-		grantedRequests = new ArrayBlockingQueue<Request>(10);
+	public ExecuteCriticalSection(ClientSendWrapper clientSendWrapper, PlacementLookup placementLookup, LeaseLookup leaseLookup) {
+		grantedRequests = new TimedQueue<Request>("granted", 10);
 		this.clientSendWrapper = clientSendWrapper;
-		this.numOfRequestsGranted = 0;
+		this.placementLookup = placementLookup;
+		this.leaseLookup = leaseLookup;
+		this.numOfRequestsGranted = new AtomicInteger(0);
 		this.numOfRequestsToBeIssued = Constants.NUMOFREQUESTS;
 	}
 	
 	@Override
 	public void run() {
+		if(LeaseManager.LEASE.equalsIgnoreCase(Constants.ORDERING)
+				|| WriteRequestProcessor.OPTIMISTIC.equalsIgnoreCase(Constants.ORDERING)) {
+			runLockFree();
+			return;
+		}
+		if(Constants.PIPELINEWINDOW > 1) {
+			runPipelined();
+			return;
+		}
 		Random randGenerator = new Random();
 		
 		
@@ -71,19 +150,13 @@ public class ExecuteCriticalSection extends Thread {
 					numOfRequestsToBeIssued--;
 					
 					Request newRequest = new Request(System.currentTimeMillis(), Constants.MYNAME, 
-							Constants.NUMOFREQUESTS - numOfRequestsToBeIssued, Constants.OBJECTS[Math.abs(randGenerator.nextInt()%7)]);
-					Constants.requestStates.put(newRequest.getRequestId(), 
-							new RequestState(Constants.SERVERS.length, newRequest, clientSendWrapper));
-					clientSendWrapper.submitObject(newRequest);
+							Constants.NUMOFREQUESTS - numOfRequestsToBeIssued, Constants.OBJECTS[randGenerator.nextInt(Constants.OBJECTS.length)]);
+					issueRequest(newRequest, randGenerator);
+					pushData(newRequest);
 				}
 				Request request = grantedRequests.take();
 				criticalSection(request);
-				this.numOfRequestsGranted++;
-				clientSendWrapper.submitObject(new Release(request.getRequestId(), 
-						Constants.requestStates.get(request.getRequestId()).releasesToServers(), request.getForObject()));
-				if(this.numOfRequestsGranted == Constants.NUMOFREQUESTS) {
-					clientSendWrapper.submitObject(Constants.COMPLETION);
-				}
+				completeRequest(request);
 				int randomNumber = Math.abs((randGenerator.nextInt() % randomIndex));
 				Thread.sleep((Constants.LOWERBOUND + values[randomNumber])*Constants.TIMEUNIT);
 				
@@ -99,81 +172,388 @@ public class ExecuteCriticalSection extends Thread {
 			}
 			
 		}
+		stopQuorumTimer();
 		comment("ExecuteCriticalSection is closed!");
 	}
 	
+	private synchronized void stopQuorumTimer() {
+		if(quorumTimer != null) {
+			quorumTimer.shutdownNow();
+		}
+	}
+	
 	/*
 	 * This method has been modified to communicate with the servers in critical section. In this communication,
 	 * it sends a RequestToWrite object to the corresponding servers that hold an object that has been randomly
-	 * chosen and waits for the response from those servers. Once all the servers that hold the object respond
+	 * chosen (as found in the placement table of the master) and waits for the response from those servers. Once all the servers that hold the object respond
 	 * with an yes, client sends commit message to all the servers which will execute the write action with the
 	 * data received earlier. If all of the servers do respond with an "YES", client sends an abort message to all
 	 * the servers and servers will drop the message that was not committed. Client exits the critical section once
 	 * all servers sends a confirmation of commit or abort encoded as "done" message.
+	 * The messages and the decision are those of a TwoPhaseCommit, which the simulator shares,
+	 * while this method waits for the responses of each phase.
 	 */
-	private synchronized void criticalSection(Request request) {
+	private void criticalSection(Request request) {
 		
 		try {
-			int objectNum = Integer.parseInt(request.getForObject().substring(1,2)) - 1;
-			String message = "Message at timestamp: " + System.currentTimeMillis()
-					+ " by client " + Constants.MYNAME;
-			logger.debug("Sending request to write \""+message+"\" in " +request.getForObject());
-			RequestToWrite reqForWrite = new RequestToWrite(request.getForObject(), Constants.MYNAME, message);
-			reqForWrite.addServersBeingRequested("S"+(((objectNum)%7)+1), "S"+(((objectNum+1)%7)+1), "S"+(((objectNum+2)%7)+1));
+			TwoPhaseCommit twoPhaseCommit = new TwoPhaseCommit(Constants.MYNAME, request,
+					placementLookup.getReplicas(request.getForObject()));
+			int numOfReplicas = twoPhaseCommit.getReplicas().length;
+			RequestToWrite reqForWrite = null;
+			if(Constants.DATAPUSH) {
+				logger.debug("Sending request to write the data pushed for "+twoPhaseCommit.getTransactionId()+" in " +request.getForObject());
+				reqForWrite = twoPhaseCommit.preparePushedData();
+			} else {
+				String message = newMessage();
+				logger.debug("Sending request to write \""+message+"\" in " +request.getForObject());
+				reqForWrite = twoPhaseCommit.prepare(message);
+			}
+			PendingResponses votes = new PendingResponses(numOfReplicas);
+			serverResponses.put(request.getRequestId(), votes);
+			long prepareNanos = System.nanoTime();
 			clientSendWrapper.submitObject(reqForWrite);
-			this.wait();
 			
-			int numOfYESes = 0;
-			StringBuffer serversRejected = new StringBuffer();
-			for (WriteResponse aResponse: serverResponses) {
-				if(Constants.YES.equals(aResponse.getResponse())) {
-					numOfYESes++;
-				} else {
-					serversRejected.append("'").append(aResponse.getServer()).append("' ");
-				}
+			List<WriteResponse> responses = votes.awaitResponses();
+			prepareMicros.record((System.nanoTime() - prepareNanos) / 1000);
+			for (WriteResponse aResponse: responses) {
+				twoPhaseCommit.submitResponse(aResponse);
 			}
 			
-			WriteCall writeCall = null;
-			if (numOfYESes == 3) {
+			WriteCall writeCall = twoPhaseCommit.decide();
+			if (twoPhaseCommit.isCommitted()) {
 				logger.debug("Received YES from all the servers! Sending commit message");
-				writeCall = new WriteCall(Constants.COMMIT,
-						Constants.MYNAME, request.getForObject());
 			} else {
-				logger.debug("Received NO to write from servers "+serversRejected+" Aborting write!");
-				writeCall = new WriteCall(Constants.ABORT,
-						Constants.MYNAME, request.getForObject());
+				logger.debug("Received NO to write from servers "+twoPhaseCommit.getServersRejected()+" Aborting write!");
 			}
-			writeCall.addServersBeingRequested("S"+(((objectNum)%7)+1), "S"+(((objectNum+1)%7)+1), "S"+(((objectNum+2)%7)+1));
-			serverResponses.clear();
+			PendingResponses dones = new PendingResponses(numOfReplicas);
+			serverResponses.put(request.getRequestId(), dones);
+			long commitNanos = System.nanoTime();
 			clientSendWrapper.submitObject(writeCall);
-			this.wait();
-			serverResponses.clear();
+			dones.awaitResponses();
+			commitMicros.record((System.nanoTime() - commitNanos) / 1000);
 			
-		} catch (NumberFormatException e) {
+		} catch (IllegalArgumentException e) {
 			e.printStackTrace();
 		} catch (InterruptedException e) {
-			e.printStackTrace();
+			Thread.currentThread().interrupt();
+		} finally {
+			serverResponses.remove(request.getRequestId());
 		}
 		
 	}
 	
-	private synchronized void resumeCriticalSection() {
-		this.notify();
+	private void issueRequest(Request newRequest, Random randGenerator) {
+		RequestState rState = new RequestState(QuorumSystems.get(), newRequest, clientSendWrapper);
+		Constants.requestStates.put(newRequest.getRequestId(), rState);
+		if(!TARGETED.equalsIgnoreCase(Constants.QUORUMREQUESTS)) {
+			clientSendWrapper.submitObject(newRequest);
+			return;
+		}
+		synchronized(this) {
+			if(quorumTimer == null) {
+				quorumTimer = Executors.newSingleThreadScheduledExecutor(NodeThreads.newThreadFactory());
+			}
+		}
+		rState.requestQuorum(randGenerator);
+		scheduleExpansion(rState);
+	}
+	
+	private void scheduleExpansion(final RequestState rState) {
+		try {
+			quorumTimer.schedule(new Runnable() {
+				@Override
+				public void run() {
+					if(rState.expandQuorum()) {
+						numOfExpansions.incrementAndGet();
+						logger.debug("Request "+rState.getRequest().getRequestId()+" has no quorum after "
+								+Constants.QUORUMTIMEOUTMS+" ms, asking more servers");
+						scheduleExpansion(rState);
+					}
+				}
+			}, Constants.QUORUMTIMEOUTMS, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// the client is shutting down
+		}
+	}
+	
+	private static String newMessage() {
+		String message = "Message at timestamp: " + System.currentTimeMillis()
+				+ " by client " + Constants.MYNAME;
+		if(Constants.WRITESIZE > message.length()) {
+			message = padMessage(message, Constants.WRITESIZE);
+		}
+		return message;
+	}
+	
+	/*
+	 * With the property "datapush", the data of a write is pushed to the servers that hold the
+	 * object right after the request is issued, keyed by the transaction id of the write. The
+	 * data is transferred while the quorum is being acquired, so the critical section only
+	 * exchanges messages that name the data and its length does not depend on the size of the data.
+	 */
+	private void pushData(Request request) throws InterruptedException {
+		if(!Constants.DATAPUSH) {
+			return;
+		}
+		try {
+			String[] replicas = placementLookup.getReplicas(request.getForObject());
+			clientSendWrapper.pushData(new TransactionId(request.getTimeStamp(), Constants.MYNAME, request.getRequestId()),
+					replicas, newMessage());
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/*
+	 * Pads the message with dots up to the given length, to measure writes larger than the
+	 * default message.
+	 */
+	private static String padMessage(String message, int length) {
+		StringBuffer sbuffer = new StringBuffer(length).append(message).append(' ');
+		while(sbuffer.length() < length) {
+			sbuffer.append('.');
+		}
+		return sbuffer.toString();
+	}
+	
+	/*
+	 * Releases the quorum that granted the request and notifies the master once all the
+	 * requests of this client have finished their critical sections.
+	 */
+	private void completeRequest(Request request) {
+		RequestState rState = Constants.requestStates.get(request.getRequestId());
+		grantMicros.record(rState.getGrantMicros());
+		writeMicros.record((System.nanoTime() - rState.getIssuedNanos()) / 1000);
+		clientSendWrapper.submitObject(new Release(request.getRequestId(), 
+				rState.releasesToServers(), request.getForObject()));
+		if(this.numOfRequestsGranted.incrementAndGet() == Constants.NUMOFREQUESTS) {
+			clientSendWrapper.submitObject(Constants.COMPLETION);
+		}
+	}
+	
+	/*
+	 * The window of requests in flight is bounded by a semaphore. A permit is taken before a
+	 * request is issued and given back once its critical section has been executed and its
+	 * release has been sent. The wait time between requests is the same as in run().
+	 */
+	private void runPipelined() {
+		Random randGenerator = new Random();
+		requestWindow = new Semaphore(Constants.PIPELINEWINDOW);
+		criticalSectionExecutor = NodeThreads.newFixedThreadPool(Constants.PIPELINEWINDOW);
+		logger.debug("Started requesting critical section with a window of "+Constants.PIPELINEWINDOW+" requests!");
+		try {
+			while(!isInterrupted() && numOfRequestsToBeIssued > 0) {
+				requestWindow.acquire();
+				numOfRequestsToBeIssued--;
+				Request newRequest = new Request(System.currentTimeMillis(), Constants.MYNAME, 
+						Constants.NUMOFREQUESTS - numOfRequestsToBeIssued, Constants.OBJECTS[randGenerator.nextInt(Constants.OBJECTS.length)]);
+				issueRequest(newRequest, randGenerator);
+				pushData(newRequest);
+				int waitTimeFactor = Constants.LOWERBOUND + randGenerator.nextInt(Constants.UPPERBOUND - Constants.LOWERBOUND);
+				Thread.sleep(waitTimeFactor*Constants.TIMEUNIT);
+			}
+			requestWindow.acquire(Constants.PIPELINEWINDOW);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		criticalSectionExecutor.shutdownNow();
+		stopQuorumTimer();
+		comment("ExecuteCriticalSection is closed!");
+	}
+	
+	/*
+	 * Writes are issued with the same wait time as in run(), up to "pipelinewindow" of them in
+	 * flight at once. There are no grants to wait for, so a write is sent as soon as it is issued.
+	 */
+	private void runLockFree() {
+		Random randGenerator = new Random();
+		int window = Math.max(1, Constants.PIPELINEWINDOW);
+		requestWindow = new Semaphore(window);
+		criticalSectionExecutor = NodeThreads.newFixedThreadPool(window);
+		logger.debug("Started writing without locks ("+Constants.ORDERING+") with a window of "+window+" writes!");
+		try {
+			while(!isInterrupted() && numOfRequestsToBeIssued > 0) {
+				requestWindow.acquire();
+				numOfRequestsToBeIssued--;
+				final Request newRequest = new Request(System.currentTimeMillis(), Constants.MYNAME, 
+						Constants.NUMOFREQUESTS - numOfRequestsToBeIssued, Constants.OBJECTS[randGenerator.nextInt(Constants.OBJECTS.length)]);
+				criticalSectionExecutor.execute(new Runnable() {
+					@Override
+					public void run() {
+						long writeNanos = System.nanoTime();
+						try {
+							if(LeaseManager.LEASE.equalsIgnoreCase(Constants.ORDERING)) {
+								recordAppend(newRequest);
+							} else {
+								conditionalWrite(newRequest);
+							}
+							writeMicros.record((System.nanoTime() - writeNanos) / 1000);
+						} finally {
+							// a write that failed still counts, or the master would never hear of the completion
+							if(numOfRequestsGranted.incrementAndGet() == Constants.NUMOFREQUESTS) {
+								clientSendWrapper.submitObject(Constants.COMPLETION);
+							}
+							requestWindow.release();
+						}
+					}
+				});
+				int waitTimeFactor = Constants.LOWERBOUND + randGenerator.nextInt(Constants.UPPERBOUND - Constants.LOWERBOUND);
+				Thread.sleep(waitTimeFactor*Constants.TIMEUNIT);
+			}
+			requestWindow.acquire(window);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		criticalSectionExecutor.shutdownNow();
+		comment("ExecuteCriticalSection is closed!");
+	}
+	
+	/*
+	 * Appends the message as a record to the object through the primary named by the lease on
+	 * the object and returns the offset that the primary has chosen for it, or -1 if the record
+	 * was refused. A server that does not hold the lease (any more) refuses the record, in which
+	 * case the lease is looked up again. A record that did not fit in the current chunk of the
+	 * object is retried and goes into the next chunk.
+	 */
+	private long recordAppend(Request request) {
+		TransactionId mutationId = new TransactionId(request.getTimeStamp(), Constants.MYNAME, request.getRequestId());
+		String message = newMessage();
+		try {
+			while(true) {
+				Lease lease = leaseLookup.getLease(request.getForObject());
+				Mutation mutation = new Mutation(mutationId, request.getForObject(), Constants.MYNAME, lease.getPrimary(), message);
+				mutation.setRequestId(request.getRequestId());
+				PendingResponses done = new PendingResponses(1);
+				serverResponses.put(request.getRequestId(), done);
+				clientSendWrapper.submitObject(mutation);
+				WriteResponse response = done.awaitResponses().get(0);
+				if(Constants.DONE.equals(response.getResponse())) {
+					logger.debug("Appended \""+message+"\" to "+request.getForObject()+" at offset "+response.getOffset());
+					return response.getOffset();
+				} else if(Constants.RETRY.equals(response.getResponse())) {
+					logger.debug("Chunk of "+request.getForObject()+" is full, retrying the append in the next chunk");
+				} else if(Constants.NOTPRIMARY.equals(response.getResponse())) {
+					logger.debug(lease.getPrimary()+" is not the primary of "+request.getForObject()+", looking up the lease again");
+					leaseLookup.invalidate(request.getForObject());
+					Thread.sleep(Constants.TIMEUNIT);
+				} else {
+					logger.debug("Append of \""+message+"\" to "+request.getForObject()+" was refused by "+lease.getPrimary());
+					return -1;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			serverResponses.remove(request.getRequestId());
+		}
+		return -1;
+	}
+	
+	/*
+	 * A prepare that is refused for a version mismatch tells the version of the replica, so the
+	 * retry expects the newest version that any replica has reported. A commit moves the known
+	 * version of the object one past the expected one.
+	 */
+	private boolean conditionalWrite(Request request) {
+		Random randGenerator = new Random();
+		String message = newMessage();
+		try {
+			String[] replicas = placementLookup.getReplicas(request.getForObject());
+			int quorum = replicas.length / 2 + 1;
+			for(int attempt = 1; ; attempt++) {
+				Long knownVersion = knownVersions.get(request.getForObject());
+				long expectedVersion = knownVersion == null ? 0 : knownVersion;
+				TransactionId transactionId = new TransactionId(System.currentTimeMillis(), Constants.MYNAME, request.getRequestId());
+				RequestToWrite reqForWrite = new RequestToWrite(request.getForObject(), Constants.MYNAME, message);
+				reqForWrite.addServersBeingRequested(replicas);
+				reqForWrite.setRequestId(request.getRequestId());
+				reqForWrite.setTransactionId(transactionId);
+				reqForWrite.setExpectedVersion(expectedVersion);
+				PendingResponses votes = new PendingResponses(replicas.length);
+				serverResponses.put(request.getRequestId(), votes);
+				long prepareNanos = System.nanoTime();
+				clientSendWrapper.submitObject(reqForWrite);
+				
+				int numOfYESes = 0;
+				long currentVersion = expectedVersion;
+				List<WriteResponse> responses = votes.awaitResponses();
+				prepareMicros.record((System.nanoTime() - prepareNanos) / 1000);
+				for (WriteResponse aResponse: responses) {
+					if(Constants.YES.equals(aResponse.getResponse())) {
+						numOfYESes++;
+					}
+					currentVersion = Math.max(currentVersion, aResponse.getVersion());
+				}
+				boolean commit = numOfYESes >= quorum;
+				WriteCall writeCall = new WriteCall(commit ? Constants.COMMIT : Constants.ABORT,
+						Constants.MYNAME, request.getForObject());
+				writeCall.addServersBeingRequested(replicas);
+				writeCall.setRequestId(request.getRequestId());
+				writeCall.setTransactionId(transactionId);
+				PendingResponses dones = new PendingResponses(replicas.length);
+				serverResponses.put(request.getRequestId(), dones);
+				long commitNanos = System.nanoTime();
+				clientSendWrapper.submitObject(writeCall);
+				dones.awaitResponses();
+				commitMicros.record((System.nanoTime() - commitNanos) / 1000);
+				
+				if(commit) {
+					logger.debug("Wrote \""+message+"\" to "+request.getForObject()+" at version "+expectedVersion);
+					knownVersions.put(request.getForObject(), expectedVersion + 1);
+					return true;
+				}
+				logger.debug("Compare-and-set on "+request.getForObject()+" expecting version "+expectedVersion
+						+" got "+numOfYESes+" of "+quorum+" votes, current version is "+currentVersion);
+				knownVersions.put(request.getForObject(), currentVersion);
+				numOfConflicts.incrementAndGet();
+				Thread.sleep((1 + randGenerator.nextInt(Math.min(attempt, 10))) * Constants.TIMEUNIT);
+			}
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			serverResponses.remove(request.getRequestId());
+		}
+		return false;
+	}
+	
+	public int getNumOfConflicts() {
+		return numOfConflicts.get();
+	}
+	
+	public int getNumOfExpansions() {
+		return numOfExpansions.get();
 	}
 	
 	/*
-	 * This method accepts the server responses after requesttowrite has been issued in the 
-	 * critical section. Client waits until the response from all three servers is received and notifies
-	 * the critical section thread that 3 server responses have arrived.
+	 * This method accepts the server responses after requesttowrite or writecall has been issued
+	 * in the critical section of a request. The responses are handed to the PendingResponses of
+	 * the request they belong to, which wakes up the critical section once the responses from
+	 * all three servers have been received.
 	 */
-	public synchronized void submitServerResponse(WriteResponse response) {
-		serverResponses.add(response);
-		if(serverResponses.size() == 3) {
-			resumeCriticalSection();
+	public void submitServerResponse(WriteResponse response) {
+		PendingResponses pendingResponses = serverResponses.get(response.getRequestId());
+		if(pendingResponses != null) {
+			pendingResponses.submitResponse(response);
 		}
 	}
 	
-	public void submitGrantedRequests(Request request) {
+	public void submitGrantedRequests(final Request request) {
+		if(criticalSectionExecutor != null) {
+			criticalSectionExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						criticalSection(request);
+						completeRequest(request);
+					} finally {
+						requestWindow.release();
+					}
+				}
+			});
+			return;
+		}
 		try {
 			grantedRequests.put(request);
 		} catch (InterruptedException e) {
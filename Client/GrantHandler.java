@@ -1,15 +1,25 @@
 package edu.utdallas.cs6378.client;
 
 import java.io.InputStream;
-import java.io.ObjectInputStream;
 import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 
+import edu.utdallas.cs6378.models.Failed;
 import edu.utdallas.cs6378.models.Grant;
+import edu.utdallas.cs6378.models.Inquire;
+import edu.utdallas.cs6378.models.Invalidation;
+import edu.utdallas.cs6378.models.Lease;
+import edu.utdallas.cs6378.models.PlacementResponse;
+import edu.utdallas.cs6378.models.ReadResponse;
 import edu.utdallas.cs6378.models.RequestState;
 import edu.utdallas.cs6378.models.WriteResponse;
+import edu.utdallas.cs6378.transport.MessageCodecs;
+import edu.utdallas.cs6378.transport.MessageHandler;
+import edu.utdallas.cs6378.transport.MessageReader;
 import edu.utdallas.cs6378.utilities.Constants;
+import edu.utdallas.cs6378.utilities.NodeThread;
 /**
  * This class functions as a object receiver for client nodes and as the
  * client receives primarily grants, it is named as grantHandler. There is
@@ -17,7 +27,9 @@ import edu.utdallas.cs6378.utilities.Constants;
  * from that server. 
  * 
  * @Method: run()
- * Client receives only either grants or string messages. String messages are
+ * Client receives grants, inquiries about grants, failed requests, write responses, read
+ * responses, invalidations of cached objects,
+ * the placement table, leases or string messages. String messages are
  * either begin or shutdown only. Based on these messages the boolean parameters 
  * are set and these can be used by other threads to check the current status.
  * When a grant a received, process grant method is used.
@@ -30,6 +42,9 @@ import edu.utdallas.cs6378.utilities.Constants;
  * false. When it returns true, the corresponding request is submitted to ExecuteCS 
  * thread for executing critical section.
  * 
+ * Inquiries and failures are handed to the request state of their request, which decides
+ * whether grants are yielded.
+ * 
  * @Method: getBeginReceived()
  * returns true for thread that is receiving messages from master and master has sent
  * begin message.
@@ -39,24 +54,33 @@ import edu.utdallas.cs6378.utilities.Constants;
  * shutdown message.
  * 
  */
-public class GrantHandler extends Thread {
+public class GrantHandler extends NodeThread implements MessageHandler {
 
 	@SuppressWarnings("unused")
 	private static Logger logger = Logger.getLogger(GrantHandler.class);
 	private Socket connection;
 	private ExecuteCriticalSection executeCS;
+	private ObjectReader objectReader;
+	private PlacementLookup placementLookup;
+	private LeaseLookup leaseLookup;
 	private boolean beginReceived;
 	private boolean shutdownReceived;
-	private int grantsReceived;
-	private int auxiliaryMessages;
-	private int numOfWriteResponses;
+	private AtomicInteger grantsReceived = new AtomicInteger();
+	private AtomicInteger auxiliaryMessages = new AtomicInteger();
+	private AtomicInteger numOfWriteResponses = new AtomicInteger();
+	private AtomicInteger numOfReadResponses = new AtomicInteger();
+	private AtomicInteger numOfInvalidations = new AtomicInteger();
+	private AtomicInteger numOfInquiries = new AtomicInteger();
+	private AtomicInteger numOfFailed = new AtomicInteger();
 	
-	public GrantHandler(Socket connection, ExecuteCriticalSection executeCS) {
+	public GrantHandler(Socket connection, ExecuteCriticalSection executeCS, ObjectReader objectReader,
+			PlacementLookup placementLookup, LeaseLookup leaseLookup) {
 		this.connection = connection;
 		this.executeCS = executeCS;
+		this.objectReader = objectReader;
+		this.placementLookup = placementLookup;
+		this.leaseLookup = leaseLookup;
 		this.beginReceived = false;
-		this.grantsReceived = 0;
-		this.numOfWriteResponses = 0;
 	}
 	/*
 	 * (non-Javadoc)
@@ -69,26 +93,9 @@ public class GrantHandler extends Thread {
 		try {
 			comment("grant Handler has been started!");
 			InputStream inStream = connection.getInputStream();
-			ObjectInputStream objInStream = new ObjectInputStream(inStream);
+			MessageReader reader = MessageCodecs.get().newReader(inStream);
 			while(!isInterrupted()) {
-				Object obj = objInStream.readObject();
-				if(obj instanceof Grant) {
-					this.grantsReceived++;
-					Grant grantObj = (Grant) obj;
-					comment("Received a grant from "+grantObj.getFromServer()+ " for request "+grantObj.getRequest().getRequestId());
-					processGrant(grantObj);
-				} else if (obj instanceof WriteResponse) {
-					WriteResponse response = (WriteResponse) obj;
-					executeCS.submitServerResponse(response);
-					this.numOfWriteResponses++;
-				} else if(obj instanceof String) {
-					this.auxiliaryMessages++;
-					if(Constants.BEGIN.equals(obj.toString())) {
-						this.beginReceived = true;
-					} else if(Constants.SHUTDOWN.equals(obj.toString())) {
-						this.shutdownReceived = true;
-					}
-				}
+				handleMessage(reader.readMessage());
 			}
 		} catch(Exception e) {
 			//e.printStackTrace();
@@ -96,6 +103,57 @@ public class GrantHandler extends Thread {
 		comment("GrantHandler is closed!");
 	}
 	
+	/*
+	 * Dispatches a single message received from the server. This is called by run() for the
+	 * blocking transport and by the event loop of the connection for the nio transport.
+	 */
+	@Override
+	public void handleMessage(Object obj) {
+		if(obj instanceof Grant) {
+			this.grantsReceived.incrementAndGet();
+			Grant grantObj = (Grant) obj;
+			comment("Received a grant from "+grantObj.getFromServer()+ " for request "+grantObj.getRequest().getRequestId());
+			processGrant(grantObj);
+		} else if (obj instanceof Inquire) {
+			this.numOfInquiries.incrementAndGet();
+			Inquire inquire = (Inquire) obj;
+			RequestState rState = Constants.requestStates.get(inquire.getRequest().getRequestId());
+			if(rState != null) {
+				rState.processInquire(Integer.parseInt(inquire.getFromServer().substring(1)));
+			}
+		} else if (obj instanceof Failed) {
+			this.numOfFailed.incrementAndGet();
+			Failed failed = (Failed) obj;
+			RequestState rState = Constants.requestStates.get(failed.getRequest().getRequestId());
+			if(rState != null) {
+				rState.processFailed(Integer.parseInt(failed.getFromServer().substring(1)));
+			}
+		} else if (obj instanceof WriteResponse) {
+			WriteResponse response = (WriteResponse) obj;
+			executeCS.submitServerResponse(response);
+			this.numOfWriteResponses.incrementAndGet();
+		} else if (obj instanceof ReadResponse) {
+			objectReader.submitReadResponse((ReadResponse) obj);
+			this.numOfReadResponses.incrementAndGet();
+		} else if (obj instanceof Invalidation) {
+			objectReader.submitInvalidation((Invalidation) obj);
+			this.numOfInvalidations.incrementAndGet();
+		} else if (obj instanceof PlacementResponse) {
+			this.auxiliaryMessages.incrementAndGet();
+			placementLookup.submitPlacementResponse((PlacementResponse) obj);
+		} else if (obj instanceof Lease) {
+			this.auxiliaryMessages.incrementAndGet();
+			leaseLookup.submitLease((Lease) obj);
+		} else if(obj instanceof String) {
+			this.auxiliaryMessages.incrementAndGet();
+			if(Constants.BEGIN.equals(obj.toString())) {
+				this.beginReceived = true;
+			} else if(Constants.SHUTDOWN.equals(obj.toString())) {
+				this.shutdownReceived = true;
+			}
+		}
+	}
+	
 	private void processGrant(Grant grant) {
 		RequestState rState = Constants.requestStates.get(grant.getRequest().getRequestId());
 		if(rState != null && rState.updateState(Integer.parseInt(grant.getFromServer().substring(1)))) {
@@ -113,27 +171,43 @@ public class GrantHandler extends Thread {
 	}
 	
 	public int getGrantsReceived() {
-		return grantsReceived;
+		return grantsReceived.get();
 	}
 
 	public void setGrantsReceived(int grantsReceived) {
-		this.grantsReceived = grantsReceived;
+		this.grantsReceived.set(grantsReceived);
 	}
 
 	public int getAuxiliaryMessages() {
-		return auxiliaryMessages;
+		return auxiliaryMessages.get();
 	}
 
 	public void setAuxiliaryMessages(int auxiliaryMessages) {
-		this.auxiliaryMessages = auxiliaryMessages;
+		this.auxiliaryMessages.set(auxiliaryMessages);
 	}
 
 	public int getNumOfWriteResponses() {
-		return numOfWriteResponses;
+		return numOfWriteResponses.get();
 	}
 
 	public void setNumOfWriteResponses(int numOfWriteResponses) {
-		this.numOfWriteResponses = numOfWriteResponses;
+		this.numOfWriteResponses.set(numOfWriteResponses);
+	}
+
+	public int getNumOfReadResponses() {
+		return numOfReadResponses.get();
+	}
+
+	public int getNumOfInvalidations() {
+		return numOfInvalidations.get();
+	}
+
+	public int getNumOfInquiries() {
+		return numOfInquiries.get();
+	}
+
+	public int getNumOfFailed() {
+		return numOfFailed.get();
 	}
 
 	private void comment(String message) {
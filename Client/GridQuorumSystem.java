@@ -0,0 +1,90 @@
+package edu.utdallas.cs6378.client;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * This class is a grid quorum system. The servers are laid out row by row in a grid of
+ * ceil(sqrt(n)) columns, so that S1 to S3 are the first row of a grid of 7 servers. A quorum
+ * is a whole column along with one server of every other column. Any two quorums intersect,
+ * as each of them has a server in the whole column of the other. A quorum has about 2*sqrt(n)
+ * servers, which is fewer than a majority once there are more than a few servers.
+ *
+ */
+public class GridQuorumSystem extends AbstractQuorumSystem {
+
+	public static final String NAME = "grid";
+	private final int numOfColumns;
+
+	public GridQuorumSystem(int numOfServers) {
+		super(NAME, numOfServers, quorums(numOfServers));
+		this.numOfColumns = numOfColumnsOf(numOfServers);
+	}
+
+	private static int numOfColumnsOf(int numOfServers) {
+		return (int) Math.ceil(Math.sqrt(numOfServers));
+	}
+
+	private static List<Long> quorums(int numOfServers) {
+		if(numOfServers > MAX_TABLE_SERVERS) {
+			return new ArrayList<Long>();
+		}
+		int numOfColumns = numOfColumnsOf(numOfServers);
+		List<List<Integer>> columns = new ArrayList<List<Integer>>();
+		for(int column = 0; column < numOfColumns; column++) {
+			columns.add(new ArrayList<Integer>());
+		}
+		for(int server = 1; server <= numOfServers; server++) {
+			columns.get((server - 1) % numOfColumns).add(server);
+		}
+		List<Long> quorums = new ArrayList<Long>();
+		for(int fullColumn = 0; fullColumn < numOfColumns; fullColumn++) {
+			long column = 0;
+			for(int server: columns.get(fullColumn)) {
+				column = column | bitOf(server);
+			}
+			List<Long> sets = new ArrayList<Long>();
+			sets.add(column);
+			for(int other = 0; other < numOfColumns; other++) {
+				if(other == fullColumn) {
+					continue;
+				}
+				List<Long> extended = new ArrayList<Long>();
+				for(long set: sets) {
+					for(int server: columns.get(other)) {
+						extended.add(set | bitOf(server));
+					}
+				}
+				sets = extended;
+			}
+			quorums.addAll(sets);
+		}
+		return quorums;
+	}
+
+	/*
+	 * Server Si is in the column (i-1) modulo the number of columns, so the server with the
+	 * bit b is in the column b modulo the number of columns.
+	 */
+	@Override
+	protected boolean containsQuorum(BitSet servers) {
+		int numOfServers = getNumOfServers();
+		boolean hasFullColumn = false;
+		for(int column = 0; column < numOfColumns; column++) {
+			int numOfGranted = 0;
+			int numOfRows = 0;
+			for(int server = column; server < numOfServers; server = server + numOfColumns) {
+				numOfRows++;
+				if(servers.get(server)) {
+					numOfGranted++;
+				}
+			}
+			if(numOfGranted == 0) {
+				return false;
+			}
+			hasFullColumn = hasFullColumn || numOfGranted == numOfRows;
+		}
+		return hasFullColumn;
+	}
+}
@@ -0,0 +1,80 @@
+package edu.utdallas.cs6378.client;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.utdallas.cs6378.models.Lease;
+import edu.utdallas.cs6378.models.LeaseRequest;
+import edu.utdallas.cs6378.utilities.Constants;
+
+/**
+ * This class answers the question "which server is the primary of object O" at a client when
+ * the property "ordering" is "lease". A lease is looked up at the master server the first time
+ * it is needed and cached until it runs out or the primary refuses a mutation.
+ *
+ * @Method: getLease()
+ * Returns a lease on the given object that has not run out, waiting for the master if needed.
+ *
+ * @Method: submitLease()
+ * Hands the lease received by the GrantHandler of the master to the waiting lookups.
+ *
+ * @Method: invalidate()
+ * Drops the cached lease on an object.
+ *
+ */
+public class LeaseLookup {
+
+	private ConcurrentHashMap<String, ObjectSender> objectSendersToServers;
+	private Map<String, Lease> leases;
+	private Set<String> leasesRequested;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition leaseReceived = lock.newCondition();
+
+	public LeaseLookup(ConcurrentHashMap<String, ObjectSender> objectSendersToServers) {
+		this.objectSendersToServers = objectSendersToServers;
+		this.leases = new HashMap<String, Lease>();
+		this.leasesRequested = new HashSet<String>();
+	}
+
+	public Lease getLease(String objectName) throws InterruptedException {
+		lock.lock();
+		try {
+			Lease lease = leases.get(objectName);
+			while(lease == null || !lease.isValid()) {
+				if(leasesRequested.add(objectName)) {
+					objectSendersToServers.get(Constants.MASTER).submitObject(new LeaseRequest(Constants.MYNAME, objectName));
+				}
+				leaseReceived.await();
+				lease = leases.get(objectName);
+			}
+			return lease;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void submitLease(Lease lease) {
+		lock.lock();
+		try {
+			leases.put(lease.getForObject(), lease);
+			leasesRequested.remove(lease.getForObject());
+			leaseReceived.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void invalidate(String objectName) {
+		lock.lock();
+		try {
+			leases.remove(objectName);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package edu.utdallas.cs6378.client;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * This class is the majority quorum system: any n/2+1 of the n servers are a quorum. The
+ * quorums are larger than those of the tree and grid, but a majority is available as long as
+ * less than half of the servers are down, whichever servers they are.
+ *
+ */
+public class MajorityQuorumSystem extends AbstractQuorumSystem {
+
+	public static final String NAME = "majority";
+
+	public MajorityQuorumSystem(int numOfServers) {
+		super(NAME, numOfServers, majorities(numOfServers));
+	}
+
+	private static List<Long> majorities(int numOfServers) {
+		List<Long> quorums = new ArrayList<Long>();
+		if(numOfServers > MAX_TABLE_SERVERS) {
+			return quorums;
+		}
+		int quorumSize = numOfServers / 2 + 1;
+		for(long set = 0; set < (1L << numOfServers); set++) {
+			if(Long.bitCount(set) == quorumSize) {
+				quorums.add(set);
+			}
+		}
+		return quorums;
+	}
+
+	@Override
+	protected boolean containsQuorum(BitSet servers) {
+		return servers.cardinality() >= getNumOfServers() / 2 + 1;
+	}
+}
@@ -0,0 +1,116 @@
+package edu.utdallas.cs6378.client;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class is the cache of object contents in a client node. It is bounded by the number of
+ * bytes held (property "cachebytes") and the least recently used objects are evicted first.
+ * Every cached copy is tagged with the version of the object that it was read at.
+ *
+ * Servers push an Invalidation with the new version of an object whenever a write to it commits.
+ * The highest version announced for each object is remembered, so a read that was answered by a
+ * replica which had not yet applied that commit is never cached. Hence a cached copy is stale at
+ * most until the invalidation of the next commit reaches this client.
+ *
+ * @Method: get()
+ * Returns the cached contents of an object or null when the object is not cached.
+ *
+ * @Method: put()
+ * Caches the contents of an object read at the given version unless a newer version is known.
+ *
+ * @Method: invalidate()
+ * Drops the cached copy of an object if it is older than the given version.
+ *
+ */
+public class ObjectCache {
+
+	private final long capacityInBytes;
+	private final LinkedHashMap<String, CachedObject> cachedObjects;
+	private final HashMap<String, Long> latestVersions;
+	private long bytesCached;
+	private int hits;
+	private int misses;
+	private int invalidations;
+	private int evictions;
+
+	public ObjectCache(long capacityInBytes) {
+		this.capacityInBytes = capacityInBytes;
+		this.cachedObjects = new LinkedHashMap<String, CachedObject>(16, 0.75f, true);
+		this.latestVersions = new HashMap<String, Long>();
+	}
+
+	/*
+	 * Contents of an object at one version.
+	 */
+	private static class CachedObject {
+		private final long version;
+		private final byte[] data;
+
+		private CachedObject(long version, byte[] data) {
+			this.version = version;
+			this.data = data;
+		}
+	}
+
+	public boolean isEnabled() {
+		return capacityInBytes > 0;
+	}
+
+	public synchronized byte[] get(String objectName) {
+		CachedObject cachedObject = cachedObjects.get(objectName);
+		if(cachedObject == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return cachedObject.data;
+	}
+
+	public synchronized void put(String objectName, long version, byte[] data) {
+		if(!isEnabled() || data == null || data.length > capacityInBytes) {
+			return;
+		}
+		Long latestVersion = latestVersions.get(objectName);
+		if(latestVersion != null && version < latestVersion) {
+			return;
+		}
+		remove(objectName);
+		cachedObjects.put(objectName, new CachedObject(version, data));
+		bytesCached = bytesCached + data.length;
+		Iterator<Map.Entry<String, CachedObject>> iterator = cachedObjects.entrySet().iterator();
+		while(bytesCached > capacityInBytes && iterator.hasNext()) {
+			Map.Entry<String, CachedObject> eldest = iterator.next();
+			bytesCached = bytesCached - eldest.getValue().data.length;
+			iterator.remove();
+			evictions++;
+		}
+	}
+
+	public synchronized void invalidate(String objectName, long version) {
+		Long latestVersion = latestVersions.get(objectName);
+		if(latestVersion == null || version > latestVersion) {
+			latestVersions.put(objectName, version);
+		}
+		CachedObject cachedObject = cachedObjects.get(objectName);
+		if(cachedObject != null && cachedObject.version < version) {
+			remove(objectName);
+			invalidations++;
+		}
+	}
+
+	private void remove(String objectName) {
+		CachedObject removed = cachedObjects.remove(objectName);
+		if(removed != null) {
+			bytesCached = bytesCached - removed.data.length;
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "hits:"+hits+", misses:"+misses+", invalidations:"+invalidations+", evictions:"+evictions
+				+", objects:"+cachedObjects.size()+", bytes:"+bytesCached+"/"+capacityInBytes;
+	}
+}
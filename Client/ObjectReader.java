@@ -0,0 +1,152 @@
+package edu.utdallas.cs6378.client;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.utdallas.cs6378.models.Invalidation;
+import edu.utdallas.cs6378.models.ReadRequest;
+import edu.utdallas.cs6378.models.ReadResponse;
+import edu.utdallas.cs6378.utilities.Constants;
+
+/**
+ * This class provides the read operation of a client. A read is sent to one of the servers
+ * that hold the object, as found in the placement table of the master, chosen at random. Reads do not
+ * need a grant from a quorum, so they can be issued from any thread at any time, also while
+ * the critical sections of this client are in progress.
+ *
+ * When the property "cachebytes" is set, the contents of whole objects that have been read are
+ * kept in an ObjectCache and reads of cached objects are answered without any network I/O.
+ *
+ * @Method: read()
+ * Reads a byte range of an object (or the whole object) from the cache or else from a random
+ * replica and blocks until the replica has answered.
+ *
+ * @Method: submitReadResponse()
+ * Hands a ReadResponse received by a GrantHandler to the read that is waiting for it.
+ *
+ * @Method: submitInvalidation()
+ * Hands an Invalidation received by a GrantHandler to the cache.
+ *
+ */
+public class ObjectReader {
+
+	private ConcurrentHashMap<String, ObjectSender> objectSendersToServers;
+	private ConcurrentHashMap<Integer, PendingRead> pendingReads;
+	private ConcurrentHashMap<String, AtomicInteger> readsPerServer;
+	private AtomicInteger nextReadId;
+	private Random randGenerator;
+	private ObjectCache objectCache;
+	private PlacementLookup placementLookup;
+
+	public ObjectReader(ConcurrentHashMap<String, ObjectSender> objectSendersToServers, PlacementLookup placementLookup) {
+		this(objectSendersToServers, placementLookup, new ObjectCache(Constants.CACHEBYTES));
+	}
+
+	public ObjectReader(ConcurrentHashMap<String, ObjectSender> objectSendersToServers, PlacementLookup placementLookup,
+			ObjectCache objectCache) {
+		this.objectSendersToServers = objectSendersToServers;
+		this.placementLookup = placementLookup;
+		this.pendingReads = new ConcurrentHashMap<Integer, PendingRead>();
+		this.readsPerServer = new ConcurrentHashMap<String, AtomicInteger>();
+		this.nextReadId = new AtomicInteger();
+		this.randGenerator = new Random();
+		this.objectCache = objectCache;
+	}
+
+	/*
+	 * Holds the response of a single read until the reading thread picks it up. A latch is
+	 * used instead of a monitor so that a reading virtual thread does not pin its carrier.
+	 */
+	private static class PendingRead {
+		private volatile ReadResponse response;
+		private final CountDownLatch received = new CountDownLatch(1);
+
+		private void submit(ReadResponse response) {
+			this.response = response;
+			received.countDown();
+		}
+
+		private ReadResponse await() throws InterruptedException {
+			received.await();
+			return response;
+		}
+	}
+
+	public ReadResponse read(String objectName) throws InterruptedException {
+		return read(objectName, 0, ReadRequest.TO_END);
+	}
+
+	public ReadResponse read(String objectName, long offset, int length) throws InterruptedException {
+		if(objectCache.isEnabled()) {
+			byte[] cachedData = objectCache.get(objectName);
+			if(cachedData != null && offset <= cachedData.length) {
+				int end = length == ReadRequest.TO_END ? cachedData.length : (int) Math.min(cachedData.length, offset + length);
+				return new ReadResponse(Constants.MYNAME, objectName, 0, offset, cachedData.length, 0,
+						Arrays.copyOfRange(cachedData, (int) offset, end));
+			}
+		}
+		String[] replicas = placementLookup.getReplicas(objectName);
+		String server = replicas[randGenerator.nextInt(replicas.length)];
+		int readId = nextReadId.incrementAndGet();
+		PendingRead pendingRead = new PendingRead();
+		pendingReads.put(readId, pendingRead);
+		ReadResponse response;
+		try {
+			if(objectCache.isEnabled()) {
+				// the whole object is fetched so that it can be cached
+				ReadRequest readRequest = new ReadRequest(Constants.MYNAME, objectName, readId, 0, ReadRequest.TO_END);
+				readRequest.setCached(true);
+				objectSendersToServers.get(server).submitObject(readRequest);
+			} else {
+				objectSendersToServers.get(server).submitObject(new ReadRequest(Constants.MYNAME, objectName, readId, offset, length));
+			}
+			countRead(server);
+			response = pendingRead.await();
+		} finally {
+			pendingReads.remove(readId);
+		}
+		if(!objectCache.isEnabled() || response.getData() == null) {
+			return response;
+		}
+		byte[] data = response.getData();
+		objectCache.put(objectName, response.getVersion(), data);
+		if(offset == 0 && length == ReadRequest.TO_END) {
+			return response;
+		}
+		int start = (int) Math.min(offset, data.length);
+		int end = length == ReadRequest.TO_END ? data.length : (int) Math.min(data.length, offset + length);
+		return new ReadResponse(response.getServer(), objectName, readId, offset, response.getObjectSize(),
+				response.getVersion(), Arrays.copyOfRange(data, start, Math.max(start, end)));
+	}
+
+	public void submitReadResponse(ReadResponse response) {
+		PendingRead pendingRead = pendingReads.get(response.getReadId());
+		if(pendingRead != null) {
+			pendingRead.submit(response);
+		}
+	}
+
+	public void submitInvalidation(Invalidation invalidation) {
+		objectCache.invalidate(invalidation.getForObject(), invalidation.getVersion());
+	}
+
+	private void countRead(String server) {
+		AtomicInteger numOfReads = readsPerServer.get(server);
+		if(numOfReads == null) {
+			readsPerServer.putIfAbsent(server, new AtomicInteger());
+			numOfReads = readsPerServer.get(server);
+		}
+		numOfReads.incrementAndGet();
+	}
+
+	public ObjectCache getObjectCache() {
+		return objectCache;
+	}
+
+	public ConcurrentHashMap<String, AtomicInteger> getReadsPerServer() {
+		return readsPerServer;
+	}
+}
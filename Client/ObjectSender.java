@@ -1,10 +1,12 @@
 package edu.utdallas.cs6378.client;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.net.Socket;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import edu.utdallas.cs6378.models.Grant;
 import edu.utdallas.cs6378.models.Identity;
@@ -12,6 +14,14 @@ import edu.utdallas.cs6378.models.Release;
 import edu.utdallas.cs6378.models.Request;
 import edu.utdallas.cs6378.models.RequestToWrite;
 import edu.utdallas.cs6378.models.WriteResponse;
+import edu.utdallas.cs6378.transport.MessageCodecs;
+import edu.utdallas.cs6378.transport.MessageLink;
+import edu.utdallas.cs6378.transport.MessageWriter;
+import edu.utdallas.cs6378.utilities.Constants;
+import edu.utdallas.cs6378.utilities.Histogram;
+import edu.utdallas.cs6378.utilities.Metrics;
+import edu.utdallas.cs6378.utilities.NodeThread;
+import edu.utdallas.cs6378.utilities.TimedQueue;
 
 /**
  * This class functions as a object sender for client and server nodes and
@@ -24,37 +34,53 @@ import edu.utdallas.cs6378.models.WriteResponse;
  * 2) Grants, Identities and auxiliary "begin" and "shutdown" messages by Server nodes
  * This class follows the producer-consumer pattern to accept the sending
  * jobs and subsequently send them in the order they are received.
+ * Objects are written through the codec configured for the cluster.
  * 
  * @Method: submitObject()
  * This method is used to submit objects to this thread so that they will
  * be sent to the node on the other end.
  * 
+ * When the property "sendbatchsize" is more than 1, run() drains all the objects
+ * that are queued (up to that many), waits at most "sendlingerms" for more to
+ * arrive and writes them as one batch with a single flush. The distribution
+ * of batch sizes is recorded for every link.
+ * 
+ * When the nio transport is used, an ObjectSender is created on a MessageLink
+ * and it is not started as a thread. submitObject() then counts the object and
+ * hands it to the link directly.
+ * 
+ * The time objects wait in the queue and the time it takes to write them to the
+ * socket (or hand them to the link) are recorded in microseconds in the histograms
+ * "queue.send.wait.us" and "transport.send.us" that all the senders of a node share.
+ * The counters can be read from any thread while the node runs.
+ * 
  */
 
-public class ObjectSender extends Thread {
+public class ObjectSender extends NodeThread {
 
 	//private static Logger logger = Logger.getLogger(ObjectSender.class);
 	
-	private ArrayBlockingQueue<Object> objectsToBeSent;
+	private TimedQueue<Object> objectsToBeSent;
 	private Socket connection;
-	private int numOfRequests;
-	private int numOfReleases;
-	private int numOfAuxiliaryMessages;
-	private int numOfGrants;
-	private int numOfIdentities;
-	private int numOfReqForWrites;
-	private int numOfWriteResponses;
+	private MessageLink link;
+	private AtomicInteger numOfRequests = new AtomicInteger();
+	private AtomicInteger numOfReleases = new AtomicInteger();
+	private AtomicInteger numOfAuxiliaryMessages = new AtomicInteger();
+	private AtomicInteger numOfGrants = new AtomicInteger();
+	private AtomicInteger numOfIdentities = new AtomicInteger();
+	private AtomicInteger numOfReqForWrites = new AtomicInteger();
+	private AtomicInteger numOfWriteResponses = new AtomicInteger();
+	private Histogram batchSizes = new Histogram();
+	private Histogram sendMicros = Metrics.histogram("transport.send.us");
 	
 	public ObjectSender(Socket connection, int maxObjects) {
-		objectsToBeSent = new ArrayBlockingQueue<Object>(maxObjects);
+		objectsToBeSent = new TimedQueue<Object>("send", maxObjects);
 		this.connection = connection;
-		this.numOfAuxiliaryMessages = 0;
-		this.numOfGrants = 0;
-		this.numOfReleases = 0;
-		this.numOfRequests = 0;
-		this.numOfIdentities = 0;
-		this.numOfReqForWrites = 0;
-		this.numOfWriteResponses = 0;
+	}
+	
+	public ObjectSender(MessageLink link) {
+		this(null, 1);
+		this.link = link;
 	}
 	
 	/*
@@ -67,31 +93,19 @@ public class ObjectSender extends Thread {
 	public void run() {
 		try {
 			OutputStream outStream = connection.getOutputStream();
-			ObjectOutputStream objOutStream = new ObjectOutputStream(outStream);
+			MessageWriter writer = MessageCodecs.get().newWriter(outStream);
+			if(Constants.SENDBATCHSIZE > 1) {
+				sendBatches(writer);
+			}
 			while(!isInterrupted()) {
 				Object object;
 				try {
 					object = objectsToBeSent.take();
-					if(object instanceof Request) {
-						this.numOfRequests++;
-						comment("Sent a request");
-					} else if (object instanceof Release) {
-						this.numOfReleases++;
-						comment("Sent a release");
-					} else if (object instanceof Grant) {
-						this.numOfGrants++;
-						comment("Sent a grant");
-					} else if (object instanceof String) {
-						this.numOfAuxiliaryMessages++;
-					} else if (object instanceof Identity) {
-						this.numOfIdentities++;
-					} else if (object instanceof RequestToWrite) {
-						this.numOfReqForWrites++;
-					} else if (object instanceof WriteResponse) {
-						this.numOfWriteResponses++;
-					}
+					countObject(object);
 					
-					objOutStream.writeObject(object);
+					long sendNanos = System.nanoTime();
+					writer.writeMessage(object);
+					sendMicros.record((System.nanoTime() - sendNanos) / 1000);
 				} catch (InterruptedException e) {
 					comment("ObjectSender got interrupted and interrupt status is "+isInterrupted());
 					Thread.currentThread().interrupt();
@@ -104,8 +118,67 @@ public class ObjectSender extends Thread {
 		comment("ObjectSender has terminated!");
 	}
 	
+	/*
+	 * Each batch starts with a blocking take() so that an idle link does not spin. The objects
+	 * that are already queued are drained without blocking and if the batch is not full, this
+	 * thread lingers for more objects until the linger time has elapsed. If the thread is
+	 * interrupted meanwhile, the objects it has taken are written before it exits.
+	 */
+	private void sendBatches(MessageWriter writer) throws IOException {
+		ArrayList<Object> batch = new ArrayList<Object>(Constants.SENDBATCHSIZE);
+		while(!isInterrupted()) {
+			try {
+				batch.clear();
+				batch.add(objectsToBeSent.take());
+				objectsToBeSent.drainTo(batch, Constants.SENDBATCHSIZE - batch.size());
+				long lingerUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Constants.SENDLINGERMS);
+				while(batch.size() < Constants.SENDBATCHSIZE && Constants.SENDLINGERMS > 0) {
+					long remaining = lingerUntil - System.nanoTime();
+					if(remaining <= 0) {
+						break;
+					}
+					Object object = objectsToBeSent.poll(remaining, TimeUnit.NANOSECONDS);
+					if(object == null) {
+						break;
+					}
+					batch.add(object);
+					objectsToBeSent.drainTo(batch, Constants.SENDBATCHSIZE - batch.size());
+				}
+				writeBatch(writer, batch);
+			} catch (InterruptedException e) {
+				comment("ObjectSender got interrupted and interrupt status is "+isInterrupted());
+				Thread.currentThread().interrupt();
+				// the objects already taken from the queue, such as a last Release or the completion, are still sent
+				objectsToBeSent.drainTo(batch, Constants.SENDBATCHSIZE - batch.size());
+				if(!batch.isEmpty()) {
+					writeBatch(writer, batch);
+				}
+			}
+		}
+	}
+	
+	private void writeBatch(MessageWriter writer, List<Object> batch) throws IOException {
+		for(Object object: batch) {
+			countObject(object);
+		}
+		long sendNanos = System.nanoTime();
+		writer.writeBatch(batch);
+		sendMicros.record((System.nanoTime() - sendNanos) / 1000);
+		batchSizes.record(batch.size());
+	}
+	
 	public int submitObject(Object object) {
-		if(object != null) {
+		if(object != null && link != null) {
+			countObject(object);
+			try {
+				long sendNanos = System.nanoTime();
+				link.send(object);
+				sendMicros.record((System.nanoTime() - sendNanos) / 1000);
+			} catch (IOException e) {
+				return 0;
+			}
+			return 1;
+		} else if(object != null) {
 			try {
 				objectsToBeSent.put(object);
 			} catch (InterruptedException e) {
@@ -116,60 +189,85 @@ public class ObjectSender extends Thread {
 		return 0;
 	}
 	
+	private void countObject(Object object) {
+		if(object instanceof Request) {
+			this.numOfRequests.incrementAndGet();
+			comment("Sent a request");
+		} else if (object instanceof Release) {
+			this.numOfReleases.incrementAndGet();
+			comment("Sent a release");
+		} else if (object instanceof Grant) {
+			this.numOfGrants.incrementAndGet();
+			comment("Sent a grant");
+		} else if (object instanceof String) {
+			this.numOfAuxiliaryMessages.incrementAndGet();
+		} else if (object instanceof Identity) {
+			this.numOfIdentities.incrementAndGet();
+		} else if (object instanceof RequestToWrite) {
+			this.numOfReqForWrites.incrementAndGet();
+		} else if (object instanceof WriteResponse) {
+			this.numOfWriteResponses.incrementAndGet();
+		}
+	}
+	
+	public Histogram getBatchSizes() {
+		return batchSizes;
+	}
+	
 	public int getNumOfRequests() {
-		return numOfRequests;
+		return numOfRequests.get();
 	}
 
 	public void setNumOfRequests(int numOfRequests) {
-		this.numOfRequests = numOfRequests;
+		this.numOfRequests.set(numOfRequests);
 	}
 
 	public int getNumOfReleases() {
-		return numOfReleases;
+		return numOfReleases.get();
 	}
 
 	public void setNumOfReleases(int numOfReleases) {
-		this.numOfReleases = numOfReleases;
+		this.numOfReleases.set(numOfReleases);
 	}
 
 	public int getNumOfAuxiliaryMessages() {
-		return numOfAuxiliaryMessages;
+		return numOfAuxiliaryMessages.get();
 	}
 
 	public void setNumOfAuxiliaryMessages(int numOfAuxiliaryMessages) {
-		this.numOfAuxiliaryMessages = numOfAuxiliaryMessages;
+		this.numOfAuxiliaryMessages.set(numOfAuxiliaryMessages);
 	}
 
 	public int getNumOfGrants() {
-		return numOfGrants;
+		return numOfGrants.get();
 	}
 
 	public void setNumOfGrants(int numOfGrants) {
-		this.numOfGrants = numOfGrants;
+		this.numOfGrants.set(numOfGrants);
 	}
 
 	public int getNumOfIdentities() {
-		return numOfIdentities;
+		return numOfIdentities.get();
 	}
 
 	public void setNumOfIdentities(int numOfIdentities) {
-		this.numOfIdentities = numOfIdentities;
+		this.numOfIdentities.set(numOfIdentities);
 	}
 
 	public int getNumOfReqForWrites() {
-		return numOfReqForWrites;
+		return numOfReqForWrites.get();
 	}
 
 	public void setNumOfReqForWrites(int numOfReqForWrites) {
-		this.numOfReqForWrites = numOfReqForWrites;
+		this.numOfReqForWrites.set(numOfReqForWrites);
 	}
 
 	public int getNumOfWriteResponses() {
-		return numOfWriteResponses;
+		return numOfWriteResponses.get();
 	}
 
 	public void setNumOfWriteResponses(int numOfWriteResponses) {
-		this.numOfWriteResponses = numOfWriteResponses;
+		this.numOfWriteResponses.set(numOfWriteResponses);
 	}
 
 	private void comment(String message) {
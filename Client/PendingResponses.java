@@ -0,0 +1,60 @@
+package edu.utdallas.cs6378.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.utdallas.cs6378.models.WriteResponse;
+
+/**
+ * This class collects the server responses for one phase (prepare or commit) of the
+ * 2-phase commit of a single request. Each request in flight has its own instance so
+ * that responses for different requests are never mixed up.
+ *
+ * @Method: submitResponse()
+ * Adds a response and wakes up the waiting critical section once all the expected
+ * responses have arrived.
+ *
+ * @Method: awaitResponses()
+ * Blocks until all the expected responses have arrived and returns them. A lock and a
+ * condition are used instead of the monitor of the instance, as a critical section running
+ * on a virtual thread would pin its carrier thread while waiting on a monitor.
+ *
+ */
+public class PendingResponses {
+
+	private final int numOfExpectedResponses;
+	private final List<WriteResponse> responses;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition allResponsesReceived = lock.newCondition();
+
+	public PendingResponses(int numOfExpectedResponses) {
+		this.numOfExpectedResponses = numOfExpectedResponses;
+		this.responses = new ArrayList<WriteResponse>(numOfExpectedResponses);
+	}
+
+	public void submitResponse(WriteResponse response) {
+		lock.lock();
+		try {
+			responses.add(response);
+			if(responses.size() >= numOfExpectedResponses) {
+				allResponsesReceived.signalAll();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public List<WriteResponse> awaitResponses() throws InterruptedException {
+		lock.lock();
+		try {
+			while(responses.size() < numOfExpectedResponses) {
+				allResponsesReceived.await();
+			}
+			return new ArrayList<WriteResponse>(responses);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
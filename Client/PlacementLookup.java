@@ -0,0 +1,66 @@
+package edu.utdallas.cs6378.client;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.utdallas.cs6378.models.PlacementRequest;
+import edu.utdallas.cs6378.models.PlacementResponse;
+import edu.utdallas.cs6378.models.PlacementTable;
+import edu.utdallas.cs6378.utilities.Constants;
+
+/**
+ * This class answers the question "which servers hold object O" at a client. The first
+ * lookup sends a PlacementRequest to the master server and waits for the placement table,
+ * which is cached and used for all the later lookups.
+ *
+ * @Method: getReplicas()
+ * Returns the servers that hold a replica of the given object.
+ *
+ * @Method: submitPlacementResponse()
+ * Hands the table received by the GrantHandler of the master to the waiting lookups.
+ *
+ */
+public class PlacementLookup {
+
+	private ConcurrentHashMap<String, ObjectSender> objectSendersToServers;
+	private PlacementTable placementTable;
+	private boolean requestSent;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition tableReceived = lock.newCondition();
+
+	public PlacementLookup(ConcurrentHashMap<String, ObjectSender> objectSendersToServers) {
+		this.objectSendersToServers = objectSendersToServers;
+	}
+
+	public String[] getReplicas(String objectName) throws InterruptedException {
+		String[] replicas = null;
+		lock.lock();
+		try {
+			if(placementTable == null && !requestSent) {
+				objectSendersToServers.get(Constants.MASTER).submitObject(new PlacementRequest(Constants.MYNAME));
+				requestSent = true;
+			}
+			while(placementTable == null) {
+				tableReceived.await();
+			}
+			replicas = placementTable.getReplicas(objectName);
+		} finally {
+			lock.unlock();
+		}
+		if(replicas == null) {
+			throw new IllegalArgumentException("Object "+objectName+" is not in the placement table");
+		}
+		return replicas;
+	}
+
+	public void submitPlacementResponse(PlacementResponse response) {
+		lock.lock();
+		try {
+			this.placementTable = response.getPlacementTable();
+			tableReceived.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+}
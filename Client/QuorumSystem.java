@@ -0,0 +1,36 @@
+package edu.utdallas.cs6378.client;
+
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * This interface is a quorum system over the servers S1 to Sn. A set of servers is a BitSet
+ * in which server Si is the bit i-1. Any two quorums of a quorum system intersect, so a
+ * client that holds the grants of a quorum excludes every other client. Every client of a
+ * cluster must use the same quorum system which is selected through the property
+ * "quorumsystem" in server.properties.
+ *
+ * @Method: isQuorum()
+ * Returns true if the given set of servers contains a quorum.
+ *
+ * @Method: getRandomQuorum()
+ * Returns a minimal quorum, one that contains no other quorum, chosen at random.
+ *
+ * @Method: getExpansion()
+ * Returns the servers to add to the requested ones so that they contain a quorum, avoiding
+ * the given slow servers if possible and asking as few new servers as possible. Returns an
+ * empty set when no server is left to add.
+ *
+ */
+public interface QuorumSystem {
+
+	String getName();
+
+	int getNumOfServers();
+
+	boolean isQuorum(BitSet servers);
+
+	BitSet getRandomQuorum(Random randGenerator);
+
+	BitSet getExpansion(BitSet requestedServers, BitSet slowServers);
+}
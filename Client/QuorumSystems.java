@@ -0,0 +1,51 @@
+package edu.utdallas.cs6378.client;
+
+import edu.utdallas.cs6378.utilities.Constants;
+
+/**
+ * This class returns the quorum system to be used by this client.
+ *
+ * @Method: get()
+ * Returns the quorum system configured through the property "quorumsystem" in
+ * server.properties, over all the servers of the cluster.
+ *
+ * @Method: forName()
+ * Returns the quorum system for the given name. Supported names are "tree", "grid",
+ * "majority" and "weighted".
+ *
+ */
+public class QuorumSystems {
+
+	private static QuorumSystem configuredQuorumSystem;
+
+	public static synchronized QuorumSystem get() {
+		if(configuredQuorumSystem == null) {
+			configuredQuorumSystem = forName(Constants.QUORUMSYSTEM, Constants.SERVERS.length, Constants.QUORUMWEIGHTS);
+		}
+		return configuredQuorumSystem;
+	}
+
+	/*
+	 * The weights are only used by the weighted quorum system. A missing weight counts as
+	 * one vote.
+	 */
+	public static QuorumSystem forName(String name, int numOfServers, String weights) {
+		if(TreeQuorumSystem.NAME.equalsIgnoreCase(name)) {
+			return new TreeQuorumSystem(numOfServers);
+		} else if(GridQuorumSystem.NAME.equalsIgnoreCase(name)) {
+			return new GridQuorumSystem(numOfServers);
+		} else if(MajorityQuorumSystem.NAME.equalsIgnoreCase(name)) {
+			return new MajorityQuorumSystem(numOfServers);
+		} else if(WeightedQuorumSystem.NAME.equalsIgnoreCase(name)) {
+			int[] serverWeights = new int[numOfServers];
+			String[] values = weights == null || weights.trim().isEmpty() ? new String[0] : weights.split(",");
+			for(int i = 0; i < numOfServers; i++) {
+				serverWeights[i] = i < values.length ? Integer.parseInt(values[i].trim()) : 1;
+			}
+			return new WeightedQuorumSystem(serverWeights);
+		}
+		throw new IllegalArgumentException("Unknown quorum system \""+name+"\"! Supported quorum systems are \""
+				+TreeQuorumSystem.NAME+"\", \""+GridQuorumSystem.NAME+"\", \""+MajorityQuorumSystem.NAME
+				+"\" and \""+WeightedQuorumSystem.NAME+"\"");
+	}
+}
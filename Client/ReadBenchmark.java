@@ -0,0 +1,68 @@
+package edu.utdallas.cs6378.client;
+
+import java.util.Random;
+
+import org.apache.log4j.Logger;
+
+import edu.utdallas.cs6378.models.ReadResponse;
+import edu.utdallas.cs6378.utilities.Constants;
+import edu.utdallas.cs6378.utilities.Histogram;
+import edu.utdallas.cs6378.utilities.NodeThread;
+
+/**
+ * This thread measures the read path. It is started along with the critical sections when
+ * the property "readbenchmark" is set to the number of reads to be issued by this client.
+ * Every read is for a whole object chosen at random and is sent to a random replica of that
+ * object, so the load is spread across all the servers. Reads of cached objects are answered
+ * by the ObjectCache of this client and are not sent to any server.
+ *
+ * @Method: run()
+ * Issues the reads one after the other and prints the throughput, the latency distribution
+ * and the number of reads served by each of the servers once all the reads are done.
+ *
+ */
+public class ReadBenchmark extends NodeThread {
+
+	private static Logger logger = Logger.getLogger(ReadBenchmark.class);
+	private ObjectReader objectReader;
+	private int numOfReads;
+	private Histogram readMicros;
+	private long bytesRead;
+
+	public ReadBenchmark(ObjectReader objectReader, int numOfReads) {
+		this.objectReader = objectReader;
+		this.numOfReads = numOfReads;
+		this.readMicros = new Histogram();
+	}
+
+	@Override
+	public void run() {
+		Random randGenerator = new Random();
+		long start = System.nanoTime();
+		try {
+			for(int i = 0; i < numOfReads && !isInterrupted(); i++) {
+				String objectName = Constants.OBJECTS[randGenerator.nextInt(Constants.OBJECTS.length)];
+				long readStart = System.nanoTime();
+				ReadResponse response = objectReader.read(objectName);
+				readMicros.record((System.nanoTime() - readStart) / 1000);
+				if(response.getData() != null) {
+					bytesRead = bytesRead + response.getData().length;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1000000);
+		logger.debug("Read benchmark: "+readMicros.getCount()+" reads, "+bytesRead+" bytes in "+elapsedMillis+" ms, "
+				+String.format("%.1f", readMicros.getCount() * 1000.0 / elapsedMillis)+" reads/s");
+		logger.debug("Read latency (us): "+readMicros);
+		logger.debug("Reads per server: "+objectReader.getReadsPerServer());
+		if(objectReader.getObjectCache().isEnabled()) {
+			logger.debug("Object cache: "+objectReader.getObjectCache());
+		}
+	}
+
+	public Histogram getReadMicros() {
+		return readMicros;
+	}
+}
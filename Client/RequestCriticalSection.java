@@ -39,7 +39,7 @@ public class RequestCriticalSection implements Runnable {
 			int randomIndex = 5;
 			logger.debug("Started requesting critical section!");
 			for(int i = 0; i < numOfRequests; i++) {
-				Request newRequest = new Request(System.currentTimeMillis(), Constants.MYNAME, i+1, Constants.OBJECTS[Math.abs(randGenerator.nextInt()%7)]);
+				Request newRequest = new Request(System.currentTimeMillis(), Constants.MYNAME, i+1, Constants.OBJECTS[randGenerator.nextInt(Constants.OBJECTS.length)]);
 				Constants.requestStates.put(newRequest.getRequestId(), new RequestState(serverConnections.size(), newRequest, sendRelease));
 				for(String key: serverConnections.keySet()) {
 					serverConnections.get(key).submitObject(newRequest);
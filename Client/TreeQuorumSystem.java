@@ -0,0 +1,71 @@
+package edu.utdallas.cs6378.client;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * This class is the tree quorum system of Agrawal and El Abbadi. The servers are the nodes of
+ * a binary tree numbered like a heap: S1 is the root and the children of Si are S2i and
+ * S2i+1. A quorum of a subtree is its root along with a quorum of one of its subtrees, or a
+ * quorum of both of its subtrees when the root is not granted. With 7 servers, the root and
+ * a path to a leaf ({S1, S2, S4}) is a quorum and so is a set of leaves ({S4, S5, S6, S7}).
+ *
+ * This is the quorum system the clients have always used and it is the default.
+ *
+ * @Method: containsQuorum()
+ * Walks the tree from the root, as RequestState did before there were other quorum systems.
+ *
+ */
+public class TreeQuorumSystem extends AbstractQuorumSystem {
+
+	public static final String NAME = "tree";
+
+	public TreeQuorumSystem(int numOfServers) {
+		super(NAME, numOfServers, quorumsOf(1, numOfServers));
+	}
+
+	/*
+	 * A server is a leaf when it has no children among the servers, the same rule that
+	 * RequestState used to walk the tree.
+	 */
+	private static List<Long> quorumsOf(int root, int numOfServers) {
+		List<Long> quorums = new ArrayList<Long>();
+		if(numOfServers > MAX_TABLE_SERVERS) {
+			return quorums;
+		}
+		if(2 * root >= numOfServers) {
+			quorums.add(bitOf(root));
+			return quorums;
+		}
+		List<Long> leftQuorums = quorumsOf(2 * root, numOfServers);
+		List<Long> rightQuorums = quorumsOf(2 * root + 1, numOfServers);
+		for(long left: leftQuorums) {
+			quorums.add(bitOf(root) | left);
+		}
+		for(long right: rightQuorums) {
+			quorums.add(bitOf(root) | right);
+		}
+		for(long left: leftQuorums) {
+			for(long right: rightQuorums) {
+				quorums.add(left | right);
+			}
+		}
+		return quorums;
+	}
+
+	@Override
+	protected boolean containsQuorum(BitSet servers) {
+		return containsQuorum(1, servers);
+	}
+
+	private boolean containsQuorum(int root, BitSet servers) {
+		if(2 * root >= getNumOfServers()) {
+			return servers.get(root - 1);
+		}
+		if(servers.get(root - 1)) {
+			return containsQuorum(2 * root, servers) || containsQuorum(2 * root + 1, servers);
+		}
+		return containsQuorum(2 * root, servers) && containsQuorum(2 * root + 1, servers);
+	}
+}
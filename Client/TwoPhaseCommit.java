@@ -0,0 +1,112 @@
+package edu.utdallas.cs6378.client;
+
+import edu.utdallas.cs6378.models.Request;
+import edu.utdallas.cs6378.models.RequestToWrite;
+import edu.utdallas.cs6378.models.TransactionId;
+import edu.utdallas.cs6378.models.WriteCall;
+import edu.utdallas.cs6378.models.WriteResponse;
+import edu.utdallas.cs6378.utilities.Constants;
+
+/**
+ * This class is the 2-phase commit of the write of one granted request, as the client runs it
+ * in its critical section. It builds the messages of the two phases and counts the responses
+ * of the servers that hold the object, but neither sends nor waits: ExecuteCriticalSection
+ * waits for the responses of a phase on a PendingResponses and hands them over, while the
+ * simulator hands each response over as it is delivered.
+ *
+ * @Method: prepare()
+ * Returns the RequestToWrite of the first phase, with the message to write or, when the data
+ * has been pushed ahead, with the id of the pushed data.
+ *
+ * @Method: submitResponse()
+ * Counts a response of the servers to the current phase and returns true once every replica
+ * has responded to it.
+ *
+ * @Method: decide()
+ * Once every replica has voted, returns the WriteCall of the second phase, which commits the
+ * write if every replica has voted yes and aborts it otherwise.
+ *
+ * @Method: isDecided()
+ * Returns true once the WriteCall has been built, that is when the responses are the dones
+ * of the second phase.
+ *
+ */
+public class TwoPhaseCommit {
+
+	private final String client;
+	private final Request request;
+	private final String[] replicas;
+	private final TransactionId transactionId;
+	private boolean decided;
+	private boolean commit;
+	private int numOfResponses;
+	private int numOfYESes;
+	private StringBuffer serversRejected = new StringBuffer();
+
+	public TwoPhaseCommit(String client, Request request, String[] replicas) {
+		this.client = client;
+		this.request = request;
+		this.replicas = replicas;
+		this.transactionId = new TransactionId(request.getTimeStamp(), client, request.getRequestId());
+	}
+
+	public RequestToWrite prepare(String message) {
+		RequestToWrite reqForWrite = new RequestToWrite(request.getForObject(), client, message);
+		reqForWrite.addServersBeingRequested(replicas);
+		reqForWrite.setRequestId(request.getRequestId());
+		reqForWrite.setTransactionId(transactionId);
+		return reqForWrite;
+	}
+
+	public RequestToWrite preparePushedData() {
+		RequestToWrite reqForWrite = prepare(null);
+		reqForWrite.setDataId(transactionId);
+		return reqForWrite;
+	}
+
+	public boolean submitResponse(WriteResponse response) {
+		numOfResponses++;
+		if(!decided) {
+			if(Constants.YES.equals(response.getResponse())) {
+				numOfYESes++;
+			} else {
+				serversRejected.append("'").append(response.getServer()).append("' ");
+			}
+		}
+		return numOfResponses == replicas.length;
+	}
+
+	public WriteCall decide() {
+		if(decided || numOfResponses < replicas.length) {
+			throw new IllegalStateException("The votes on "+transactionId+" are not all in");
+		}
+		decided = true;
+		commit = numOfYESes == replicas.length;
+		numOfResponses = 0;
+		WriteCall writeCall = new WriteCall(commit ? Constants.COMMIT : Constants.ABORT, client, request.getForObject());
+		writeCall.addServersBeingRequested(replicas);
+		writeCall.setRequestId(request.getRequestId());
+		writeCall.setTransactionId(transactionId);
+		return writeCall;
+	}
+
+	public boolean isDecided() {
+		return decided;
+	}
+
+	public boolean isCommitted() {
+		return commit;
+	}
+
+	public String[] getReplicas() {
+		return replicas;
+	}
+
+	public TransactionId getTransactionId() {
+		return transactionId;
+	}
+
+	public String getServersRejected() {
+		return serversRejected.toString();
+	}
+}
@@ -0,0 +1,74 @@
+package edu.utdallas.cs6378.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * This class is the weighted majority (weighted voting) quorum system of Gifford. Every
+ * server has a number of votes given by the property "quorumweights" and a set of servers
+ * is a quorum if it has more than half of all the votes. Giving more votes to the servers
+ * that are more reliable makes the quorums smaller without making them less available. With
+ * one vote for every server, this is the majority quorum system.
+ *
+ */
+public class WeightedQuorumSystem extends AbstractQuorumSystem {
+
+	public static final String NAME = "weighted";
+	private final int[] weights;
+	private final long totalWeight;
+
+	public WeightedQuorumSystem(int[] weights) {
+		super(NAME, weights.length, quorums(weights));
+		this.weights = Arrays.copyOf(weights, weights.length);
+		this.totalWeight = totalWeightOf(weights);
+		if(totalWeight == 0) {
+			throw new IllegalArgumentException("Quorum system \""+NAME+"\" has no quorum");
+		}
+	}
+
+	private static long totalWeightOf(int[] weights) {
+		long totalWeight = 0;
+		for(int weight: weights) {
+			if(weight < 0) {
+				throw new IllegalArgumentException("Quorum weights can not be negative");
+			}
+			totalWeight = totalWeight + weight;
+		}
+		return totalWeight;
+	}
+
+	/*
+	 * The sets with more than half of the votes. Sets that contain a smaller quorum are
+	 * dropped afterwards.
+	 */
+	private static List<Long> quorums(int[] weights) {
+		List<Long> quorums = new ArrayList<Long>();
+		long totalWeight = totalWeightOf(weights);
+		if(weights.length > MAX_TABLE_SERVERS) {
+			return quorums;
+		}
+		for(long set = 1; set < (1L << weights.length); set++) {
+			long weight = 0;
+			for(int server = 0; server < weights.length; server++) {
+				if((set & (1L << server)) != 0) {
+					weight = weight + weights[server];
+				}
+			}
+			if(2 * weight > totalWeight) {
+				quorums.add(set);
+			}
+		}
+		return quorums;
+	}
+
+	@Override
+	protected boolean containsQuorum(BitSet servers) {
+		long weight = 0;
+		for(int server = servers.nextSetBit(0); server >= 0 && server < weights.length; server = servers.nextSetBit(server + 1)) {
+			weight = weight + weights[server];
+		}
+		return 2 * weight > totalWeight;
+	}
+}
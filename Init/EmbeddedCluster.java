@@ -0,0 +1,384 @@
+package edu.utdallas.cs6378.init;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+
+import edu.utdallas.cs6378.utilities.GaugeMXBean;
+import edu.utdallas.cs6378.utilities.Histogram;
+
+/**
+ * This class is an independent class that has a main method which runs a whole cluster, all
+ * its servers and clients, in one JVM to load test the project on a single machine. This is
+ * not part of the project specification.
+ *
+ * The nodes take their properties from static fields (Constants, NodeProperties), so every
+ * node is loaded by a NodeClassLoader of its own, which gives it its own copy of those classes
+ * and its own properties. The nodes are the same InitServer, ServerNode and ClientNode that
+ * run on separate machines and they talk to each other over TCP on the loopback interface, on
+ * ports that are free when the cluster starts. The servers are started one after the other and
+ * the clients all together once every server listens. The objects of every server are kept in
+ * a folder of the directory of the cluster, a new temporary directory unless one is given.
+ *
+ * The workload is given by the usual properties of server.properties (numofrequests, timeunit,
+ * pipelinewindow, ordering, writesize and so on) which apply to all the nodes, either from a
+ * file or as key=value arguments. A property prefixed by the name of a node, such as
+ * S3.probabilityofyes=0.5, applies to that node only. The names, addresses and ports of the
+ * nodes are chosen by the cluster. Once the cluster has shut down, the write throughput of the
+ * clients and the latency distributions of all the nodes, merged by name, are printed as one
+ * report. The replicas of every object are then compared and the process exits with status 1
+ * if they differ or if the cluster did not finish in time.
+ *
+ * Usage: java edu.utdallas.cs6378.init.EmbeddedCluster [-servers 7] [-clients 5] [-objects 7]
+ *        [-properties file] [-dir directory] [-timeout seconds] [key=value ...]
+ *
+ * @Method: start()
+ * Starts the servers one after the other and then the clients. Returns false if a server
+ * did not come up.
+ *
+ * @Method: awaitShutdown()
+ * Waits until all the nodes have shut down, which happens once every client has made all its
+ * requests. Returns false if some nodes are still running after the timeout.
+ *
+ * @Method: report()
+ * Returns the throughput and the latency distributions of the run.
+ *
+ * @Method: checkReplicas()
+ * Compares the files of the objects, or of their chunks, that several servers hold and returns
+ * the names of those whose copies differ.
+ *
+ */
+public class EmbeddedCluster {
+
+	private static Logger logger = Logger.getLogger(EmbeddedCluster.class);
+	private static final String INIT_SERVER = "edu.utdallas.cs6378.init.InitServer";
+	private static final String SERVER_NODE = "edu.utdallas.cs6378.server.ServerNode";
+	private static final String METRICS = "edu.utdallas.cs6378.utilities.Metrics";
+	private static final String WRITE_METRIC = "client.write.us";
+	private static final long SERVER_STARTUP_MILLIS = 10000;
+
+	public static void main(String[] args) throws Exception {
+		int numOfServers = 7;
+		int numOfClients = 5;
+		int numOfObjects = 7;
+		long timeoutSeconds = 300;
+		File directory = null;
+		Properties workload = defaultWorkload();
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].startsWith("-") && i + 1 < args.length) {
+				String value = args[++i];
+				if("-servers".equals(args[i - 1])) {
+					numOfServers = Integer.parseInt(value);
+				} else if("-clients".equals(args[i - 1])) {
+					numOfClients = Integer.parseInt(value);
+				} else if("-objects".equals(args[i - 1])) {
+					numOfObjects = Integer.parseInt(value);
+				} else if("-properties".equals(args[i - 1])) {
+					FileReader reader = new FileReader(value);
+					try {
+						workload.load(reader);
+					} finally {
+						reader.close();
+					}
+				} else if("-dir".equals(args[i - 1])) {
+					directory = new File(value);
+				} else if("-timeout".equals(args[i - 1])) {
+					timeoutSeconds = Long.parseLong(value);
+				} else {
+					throw new IllegalArgumentException("Unknown option "+args[i - 1]);
+				}
+			} else if(args[i].contains("=")) {
+				int equals = args[i].indexOf('=');
+				workload.setProperty(args[i].substring(0, equals).trim(), args[i].substring(equals + 1).trim());
+			} else {
+				throw new IllegalArgumentException("Expected an option or key=value, not "+args[i]);
+			}
+		}
+		if(directory == null) {
+			directory = Files.createTempDirectory("cluster").toFile();
+		}
+		EmbeddedCluster cluster = new EmbeddedCluster(numOfServers, numOfClients, numOfObjects, workload, directory);
+		boolean finished = cluster.start() && cluster.awaitShutdown(timeoutSeconds * 1000);
+		System.out.println(cluster.report());
+		List<String> inconsistentObjects = cluster.checkReplicas();
+		System.out.println(inconsistentObjects.isEmpty() ? "Replicas: consistent"
+				: "Replicas: differ for "+inconsistentObjects);
+		System.exit(finished && inconsistentObjects.isEmpty() ? 0 : 1);
+	}
+
+	/*
+	 * A short time unit so that a run takes seconds, and servers that always vote yes so that
+	 * every critical section writes. The clients start together and their requests reach the
+	 * servers in different orders, which with such a short time unit deadlocks the plain
+	 * protocol, so the servers inquire the clients they have granted (inquire=true).
+	 */
+	private static Properties defaultWorkload() {
+		Properties workload = new Properties();
+		workload.setProperty("timeunit", "1");
+		workload.setProperty("numofrequests", "50");
+		workload.setProperty("criticalsectiontimefactor", "1");
+		workload.setProperty("waittimefactorupperbound", "2");
+		workload.setProperty("waittimefactorlowerbound", "1");
+		workload.setProperty("probabilityofyes", "1.0");
+		workload.setProperty("inquire", "true");
+		return workload;
+	}
+
+	private final List<String> servers = new ArrayList<String>();
+	private final List<String> clients = new ArrayList<String>();
+	private final List<String> objects = new ArrayList<String>();
+	private final Properties workload;
+	private final File directory;
+	private final Map<String, Integer> serverPorts = new LinkedHashMap<String, Integer>();
+	private final Map<String, NodeClassLoader> nodeLoaders = new LinkedHashMap<String, NodeClassLoader>();
+	private final Map<String, Thread> nodeThreads = new LinkedHashMap<String, Thread>();
+	private final ConcurrentHashMap<String, Long> shutdownNanos = new ConcurrentHashMap<String, Long>();
+	private final URL[] classPath;
+	private long startNanos;
+
+	public EmbeddedCluster(int numOfServers, int numOfClients, int numOfObjects, Properties workload, File directory) throws IOException {
+		for(int i = 1; i <= numOfServers; i++) {
+			servers.add("S"+i);
+		}
+		for(int i = 1; i <= numOfClients; i++) {
+			clients.add("C"+i);
+		}
+		for(int i = 1; i <= numOfObjects; i++) {
+			objects.add("O"+i+".txt");
+		}
+		this.workload = workload;
+		this.directory = directory;
+		String[] entries = System.getProperty("java.class.path").split(File.pathSeparator);
+		this.classPath = new URL[entries.length];
+		for(int i = 0; i < entries.length; i++) {
+			classPath[i] = new File(entries[i]).toURI().toURL();
+		}
+		for(String server: servers) {
+			serverPorts.put(server, freePort());
+		}
+	}
+
+	private static int freePort() throws IOException {
+		ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		try {
+			return socket.getLocalPort();
+		} finally {
+			socket.close();
+		}
+	}
+
+	/*
+	 * The properties of the workload come first, then the ones given for this node and last the
+	 * layout of the cluster, which can not be overridden.
+	 */
+	private Properties getNodeProperties(String node, String function) {
+		Properties nodeProperties = new Properties();
+		for(String key: workload.stringPropertyNames()) {
+			int dot = key.indexOf('.');
+			if(dot < 0 || !isNode(key.substring(0, dot))) {
+				nodeProperties.setProperty(key, workload.getProperty(key));
+			}
+		}
+		for(String key: workload.stringPropertyNames()) {
+			if(key.startsWith(node+".")) {
+				nodeProperties.setProperty(key.substring(node.length() + 1), workload.getProperty(key));
+			}
+		}
+		nodeProperties.setProperty("nodename", node);
+		nodeProperties.setProperty("function", function);
+		nodeProperties.setProperty("servers", join(servers));
+		nodeProperties.setProperty("clients", join(clients));
+		nodeProperties.setProperty("objects", join(objects));
+		nodeProperties.setProperty("master", servers.get(0));
+		nodeProperties.setProperty("listeningport", String.valueOf(serverPorts.containsKey(node) ? serverPorts.get(node) : 0));
+		for(Map.Entry<String, Integer> entry: serverPorts.entrySet()) {
+			nodeProperties.setProperty(entry.getKey(), "127.0.0.1:"+entry.getValue());
+		}
+		nodeProperties.setProperty("datadir", directory.getPath());
+		return nodeProperties;
+	}
+
+	private boolean isNode(String name) {
+		return servers.contains(name) || clients.contains(name);
+	}
+
+	private static String join(List<String> names) {
+		StringBuffer sbuffer = new StringBuffer();
+		for(String name: names) {
+			sbuffer.append(sbuffer.length() == 0 ? "" : ",").append(name);
+		}
+		return sbuffer.toString();
+	}
+
+	public boolean start() throws Exception {
+		for(String server: servers) {
+			File serverDirectory = new File(directory, server);
+			if(!serverDirectory.isDirectory() && !serverDirectory.mkdirs()) {
+				throw new IOException("Could not create the directory "+serverDirectory);
+			}
+			Thread thread = startNode(server, "server");
+			Method awaitListening = nodeLoaders.get(server).loadClass(SERVER_NODE).getMethod("awaitListening", long.class);
+			long deadline = System.currentTimeMillis() + SERVER_STARTUP_MILLIS;
+			while(!(Boolean) awaitListening.invoke(null, 100L)) {
+				if(!thread.isAlive() || System.currentTimeMillis() > deadline) {
+					logger.error("Server '"+server+"' did not start listening on port "+serverPorts.get(server));
+					return false;
+				}
+			}
+		}
+		startNanos = System.nanoTime();
+		for(String client: clients) {
+			startNode(client, "client");
+		}
+		return true;
+	}
+
+	private Thread startNode(final String node, String function) throws Exception {
+		NodeClassLoader loader = new NodeClassLoader(node, classPath, getClass().getClassLoader(), getNodeProperties(node, function));
+		final Method main = loader.loadClass(INIT_SERVER).getMethod("main", String[].class);
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					main.invoke(null, (Object) new String[0]);
+				} catch(InvocationTargetException e) {
+					logger.error("Node '"+node+"' failed", e.getCause());
+				} catch(IllegalAccessException e) {
+					logger.error("Node '"+node+"' could not be started", e);
+				} finally {
+					shutdownNanos.put(node, System.nanoTime());
+				}
+			}
+		}, node);
+		thread.setContextClassLoader(loader);
+		nodeLoaders.put(node, loader);
+		nodeThreads.put(node, thread);
+		thread.start();
+		return thread;
+	}
+
+	public boolean awaitShutdown(long timeoutMillis) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		for(Thread thread: nodeThreads.values()) {
+			long remainingMillis = deadline - System.currentTimeMillis();
+			if(remainingMillis > 0) {
+				thread.join(remainingMillis);
+			}
+		}
+		return getRunningNodes().isEmpty();
+	}
+
+	private List<String> getRunningNodes() {
+		List<String> runningNodes = new ArrayList<String>();
+		for(Map.Entry<String, Thread> entry: nodeThreads.entrySet()) {
+			if(entry.getValue().isAlive()) {
+				runningNodes.add(entry.getKey());
+			}
+		}
+		return runningNodes;
+	}
+
+	/*
+	 * Reads the static registry of metrics of a node through its own class loader.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Map<String, T> getMetrics(NodeClassLoader loader, String getter) {
+		try {
+			return (Map<String, T>) loader.loadClass(METRICS).getMethod(getter).invoke(null);
+		} catch(Exception e) {
+			logger.error("Could not read the metrics of node '"+loader.getNodeName()+"'", e);
+			return new TreeMap<String, T>();
+		}
+	}
+
+	public List<String> checkReplicas() throws IOException {
+		Map<String, byte[]> firstCopies = new TreeMap<String, byte[]>();
+		List<String> inconsistentObjects = new ArrayList<String>();
+		for(String server: servers) {
+			File[] files = new File(directory, server).listFiles();
+			if(files == null) {
+				continue;
+			}
+			for(File file: files) {
+				byte[] contents = Files.readAllBytes(file.toPath());
+				byte[] first = firstCopies.get(file.getName());
+				if(first == null) {
+					firstCopies.put(file.getName(), contents);
+				} else if(!Arrays.equals(first, contents) && !inconsistentObjects.contains(file.getName())) {
+					inconsistentObjects.add(file.getName());
+				}
+			}
+		}
+		return inconsistentObjects;
+	}
+
+	public String report() {
+		Map<String, Histogram> merged = new TreeMap<String, Histogram>();
+		StringBuffer nodeLines = new StringBuffer();
+		long lastShutdownNanos = startNanos;
+		for(NodeClassLoader loader: nodeLoaders.values()) {
+			String node = loader.getNodeName();
+			Map<String, Histogram> histograms = getMetrics(loader, "getHistograms");
+			Map<String, GaugeMXBean> gauges = getMetrics(loader, "getGauges");
+			for(Map.Entry<String, Histogram> entry: histograms.entrySet()) {
+				if(!merged.containsKey(entry.getKey())) {
+					merged.put(entry.getKey(), new Histogram());
+				}
+				merged.get(entry.getKey()).add(entry.getValue());
+			}
+			Histogram writeMicros = histograms.get(WRITE_METRIC);
+			StringBuffer gaugeValues = new StringBuffer();
+			for(Map.Entry<String, GaugeMXBean> entry: gauges.entrySet()) {
+				gaugeValues.append(" ").append(entry.getKey()).append("=").append(entry.getValue().getValue());
+			}
+			nodeLines.append(String.format("%-6s %8s %12s %12s  %s%n", node,
+					writeMicros == null ? "-" : String.valueOf(writeMicros.getCount()),
+					writeMicros == null ? "-" : String.valueOf(writeMicros.getP50()),
+					writeMicros == null ? "-" : String.valueOf(writeMicros.getP99()), gaugeValues.toString().trim()));
+			Long nodeShutdownNanos = shutdownNanos.get(node);
+			if(clients.contains(node) && nodeShutdownNanos != null) {
+				lastShutdownNanos = Math.max(lastShutdownNanos, nodeShutdownNanos);
+			}
+		}
+
+		StringBuffer sbuffer = new StringBuffer();
+		sbuffer.append(String.format("Cluster of %d servers and %d clients on %d objects, data in %s%n",
+				servers.size(), clients.size(), objects.size(), directory.getPath()));
+		List<String> runningNodes = getRunningNodes();
+		if(!runningNodes.isEmpty()) {
+			sbuffer.append("Did not finish, still running: ").append(runningNodes).append(String.format("%n"));
+		}
+		long numOfWrites = merged.containsKey(WRITE_METRIC) ? merged.get(WRITE_METRIC).getCount() : 0;
+		double elapsedSeconds = (lastShutdownNanos - startNanos) / 1e9;
+		sbuffer.append(String.format("Writes: %d in %.2f s, %.1f writes/s%n%n", numOfWrites, elapsedSeconds,
+				elapsedSeconds > 0 ? numOfWrites / elapsedSeconds : 0.0));
+		sbuffer.append(String.format("%-6s %8s %12s %12s  %s%n", "node", "writes", "p50 (us)", "p99 (us)", "gauges"));
+		sbuffer.append(nodeLines).append(String.format("%n"));
+		sbuffer.append(String.format("%-36s %9s %10s %10s %10s %10s %10s %10s%n",
+				"metric (all nodes)", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+		for(Map.Entry<String, Histogram> entry: merged.entrySet()) {
+			Histogram histogram = entry.getValue();
+			if(histogram.getCount() > 0) {
+				sbuffer.append(String.format("%-36s %9d %10.1f %10d %10d %10d %10d %10d%n", entry.getKey(), histogram.getCount(),
+						histogram.getMean(), histogram.getP50(), histogram.getP90(), histogram.getP99(), histogram.getP999(), histogram.getMax()));
+			}
+		}
+		return sbuffer.toString();
+	}
+}
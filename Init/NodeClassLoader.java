@@ -0,0 +1,82 @@
+package edu.utdallas.cs6378.init;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Properties;
+
+import edu.utdallas.cs6378.utilities.GaugeMXBean;
+import edu.utdallas.cs6378.utilities.Histogram;
+import edu.utdallas.cs6378.utilities.HistogramMXBean;
+import edu.utdallas.cs6378.utilities.NodeProperties;
+
+/**
+ * This class loader runs one node of an EmbeddedCluster. The classes of the project are not
+ * taken from the parent class loader but loaded again by every NodeClassLoader, so every node
+ * has its own static state (Constants, NodeProperties, Metrics, NioTransport and so on) as if
+ * it ran in a JVM of its own. The properties of the node are served as the resource that
+ * NodeProperties looks for.
+ *
+ * The histogram and gauge classes have no static state and are taken from the parent, so the
+ * launcher can read and merge the metrics of the nodes once they are done.
+ *
+ */
+class NodeClassLoader extends URLClassLoader {
+
+	private static final String PROJECT_PACKAGE = "edu.utdallas.cs6378.";
+	private static final String PROPERTIES_RESOURCE = NodeProperties.class.getPackage().getName().replace('.', '/')
+			+"/"+NodeProperties.RESOURCE;
+	private static final String[] SHARED_CLASSES = {Histogram.class.getName(), HistogramMXBean.class.getName(),
+			GaugeMXBean.class.getName(), EmbeddedCluster.class.getName(), NodeClassLoader.class.getName()};
+	private final String nodeName;
+	private final byte[] properties;
+
+	NodeClassLoader(String nodeName, URL[] classPath, ClassLoader parent, Properties nodeProperties) throws IOException {
+		super(classPath, parent);
+		this.nodeName = nodeName;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		nodeProperties.store(out, "Properties of node "+nodeName);
+		this.properties = out.toByteArray();
+	}
+
+	String getNodeName() {
+		return nodeName;
+	}
+
+	private static boolean isShared(String className) {
+		for(String sharedClass: SHARED_CLASSES) {
+			if(className.equals(sharedClass) || className.startsWith(sharedClass+"$")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+		if(!className.startsWith(PROJECT_PACKAGE) || isShared(className)) {
+			return super.loadClass(className, resolve);
+		}
+		synchronized(getClassLoadingLock(className)) {
+			Class<?> loadedClass = findLoadedClass(className);
+			if(loadedClass == null) {
+				loadedClass = findClass(className);
+			}
+			if(resolve) {
+				resolveClass(loadedClass);
+			}
+			return loadedClass;
+		}
+	}
+
+	@Override
+	public InputStream getResourceAsStream(String name) {
+		if(PROPERTIES_RESOURCE.equals(name)) {
+			return new ByteArrayInputStream(properties);
+		}
+		return super.getResourceAsStream(name);
+	}
+}
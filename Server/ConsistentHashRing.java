@@ -0,0 +1,96 @@
+package edu.utdallas.cs6378.server;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class places objects on servers with a consistent-hash ring. Every server is put on
+ * the ring at a number of points (virtual nodes) given by the hash of "<server>#<i>", and an
+ * object is held by the first distinct servers found walking clockwise from the hash of its
+ * name. The points are kept in a TreeMap, so a lookup costs O(log N) for N points.
+ *
+ * As a server only owns the arcs that end at its own points, adding or removing a server
+ * moves only the objects on those arcs, which is about 1/N of all the objects. The virtual
+ * nodes spread the arcs of a server around the ring so that objects are balanced even on
+ * small clusters.
+ *
+ * @Method: addServer()
+ * Puts the virtual nodes of a server on the ring.
+ *
+ * @Method: removeServer()
+ * Takes the virtual nodes of a server off the ring.
+ *
+ * @Method: getReplicas()
+ * Returns the servers that hold the given object, in the order they are found on the ring.
+ *
+ */
+public class ConsistentHashRing {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private final int virtualNodesPerServer;
+	private final TreeMap<Long, String> ring;
+	private int numOfServers;
+
+	public ConsistentHashRing(String[] servers, int virtualNodesPerServer) {
+		this.virtualNodesPerServer = Math.max(1, virtualNodesPerServer);
+		this.ring = new TreeMap<Long, String>();
+		for(String server: servers) {
+			addServer(server);
+		}
+	}
+
+	public synchronized void addServer(String server) {
+		for(int i = 0; i < virtualNodesPerServer; i++) {
+			ring.put(hash(server+"#"+i), server);
+		}
+		numOfServers++;
+	}
+
+	public synchronized void removeServer(String server) {
+		for(int i = 0; i < virtualNodesPerServer; i++) {
+			ring.remove(hash(server+"#"+i));
+		}
+		numOfServers--;
+	}
+
+	public synchronized String[] getReplicas(String objectName, int replicationFactor) {
+		List<String> replicas = new ArrayList<String>(replicationFactor);
+		int numOfReplicas = Math.min(replicationFactor, numOfServers);
+		if(ring.isEmpty()) {
+			return new String[0];
+		}
+		Map.Entry<Long, String> point = ring.ceilingEntry(hash(objectName));
+		while(replicas.size() < numOfReplicas) {
+			if(point == null) {
+				point = ring.firstEntry();
+			}
+			if(!replicas.contains(point.getValue())) {
+				replicas.add(point.getValue());
+			}
+			point = ring.higherEntry(point.getKey());
+		}
+		return replicas.toArray(new String[replicas.size()]);
+	}
+
+	/*
+	 * The first 8 bytes of the MD5 digest, so that every node computes the same ring
+	 * whatever its JVM is.
+	 */
+	static long hash(String key) {
+		try {
+			byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(UTF8));
+			long value = 0;
+			for(int i = 0; i < 8; i++) {
+				value = (value << 8) | (digest[i] & 0xff);
+			}
+			return value;
+		} catch(NoSuchAlgorithmException nsae) {
+			throw new IllegalStateException(nsae);
+		}
+	}
+}
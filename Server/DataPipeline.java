@@ -0,0 +1,149 @@
+package edu.utdallas.cs6378.server;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import edu.utdallas.cs6378.client.ObjectSender;
+import edu.utdallas.cs6378.models.DataPiece;
+import edu.utdallas.cs6378.models.RequestToWrite;
+import edu.utdallas.cs6378.models.TransactionId;
+
+/**
+ * This class is the server side of the chained data pipeline that is enabled by setting the
+ * property "datapipeline" to "chain". The data of a write reaches a server as a sequence of
+ * DataPieces, either from the client (first server of the chain) or from the previous server
+ * of the chain. The same pieces carry the data that clients push ahead of their critical
+ * sections when the property "datapush" is true, with either data pipeline.
+ *
+ * @Method: processDataPiece()
+ * Forwards the piece to the next server of the chain before anything else, so the pieces
+ * stream down the chain while they are still arriving. The piece is then added to the
+ * DataBuffer of its write and once all the pieces are in, the RequestToWrite is handed to the
+ * WriteRequestProcessor of the object, which votes on it as if the client had sent it directly.
+ * Pushed data has no RequestToWrite and is kept under its data id instead.
+ *
+ * @Method: processRequestToWrite()
+ * Resolves a RequestToWrite that names pushed data. If the data is in, it becomes the message
+ * of the RequestToWrite which is handed to the WriteRequestProcessor. Otherwise the
+ * RequestToWrite waits for the data without blocking the thread that received it, as the
+ * rest of the data may be arriving on the same thread.
+ *
+ */
+public class DataPipeline {
+
+	private static Logger logger = Logger.getLogger(DataPipeline.class);
+	public static final String CHAIN = "chain";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private ConcurrentHashMap<String, ObjectSender> objectSendersToServers;
+	private ConcurrentHashMap<String, WriteRequestProcessor> writeReqProcessors;
+	private ConcurrentHashMap<TransactionId, DataBuffer> dataBuffers;
+	private HashMap<TransactionId, byte[]> pushedData;
+	private HashMap<TransactionId, RequestToWrite> requestsWaitingForData;
+	private AtomicLong numOfWritesPushed = new AtomicLong();
+	private AtomicLong numOfWritesWaitedForData = new AtomicLong();
+	private AtomicLong numOfPiecesForwarded = new AtomicLong();
+	private AtomicLong numOfBytesForwarded = new AtomicLong();
+
+	public DataPipeline(ConcurrentHashMap<String, ObjectSender> objectSendersToServers,
+			ConcurrentHashMap<String, WriteRequestProcessor> writeReqProcessors) {
+		this.objectSendersToServers = objectSendersToServers;
+		this.writeReqProcessors = writeReqProcessors;
+		this.dataBuffers = new ConcurrentHashMap<TransactionId, DataBuffer>();
+		this.pushedData = new HashMap<TransactionId, byte[]>();
+		this.requestsWaitingForData = new HashMap<TransactionId, RequestToWrite>();
+	}
+
+	/*
+	 * The pieces of a write received so far. Pieces of a write come over a single connection
+	 * and hence in order.
+	 */
+	private static class DataBuffer {
+		private RequestToWrite requestToWrite;
+		private ByteArrayOutputStream data = new ByteArrayOutputStream();
+		private int numOfPieces;
+
+		private boolean add(DataPiece piece) {
+			if(piece.getRequestToWrite() != null) {
+				requestToWrite = piece.getRequestToWrite();
+			}
+			data.write(piece.getData(), 0, piece.getData().length);
+			numOfPieces++;
+			return numOfPieces == piece.getNumOfPieces();
+		}
+	}
+
+	public void processDataPiece(DataPiece piece) {
+		if(piece.hasNextServer()) {
+			objectSendersToServers.get(piece.getNextServer()).submitObject(piece.forNextServer());
+			numOfPiecesForwarded.incrementAndGet();
+			numOfBytesForwarded.addAndGet(piece.getData().length);
+		}
+		DataBuffer dataBuffer = dataBuffers.get(piece.getTransactionId());
+		if(dataBuffer == null) {
+			dataBuffer = new DataBuffer();
+			dataBuffers.put(piece.getTransactionId(), dataBuffer);
+		}
+		if(!dataBuffer.add(piece)) {
+			return;
+		}
+		dataBuffers.remove(piece.getTransactionId());
+		RequestToWrite header = dataBuffer.requestToWrite;
+		if(header == null) {
+			dataPushed(piece.getTransactionId(), dataBuffer.data.toByteArray());
+			return;
+		}
+		// the header is still referenced by the pieces being forwarded, so a copy gets the message
+		RequestToWrite requestToWrite = header.copyWithMessage(new String(dataBuffer.data.toByteArray(), UTF8));
+		writeReqProcessors.get(requestToWrite.getForObject()).processRequestToWrite(requestToWrite);
+	}
+
+	private void dataPushed(TransactionId dataId, byte[] data) {
+		RequestToWrite requestToWrite = null;
+		synchronized(this) {
+			requestToWrite = requestsWaitingForData.remove(dataId);
+			if(requestToWrite == null) {
+				pushedData.put(dataId, data);
+				return;
+			}
+		}
+		logger.debug("Data of "+dataId+" arrived after its request to write");
+		requestToWrite.setStringToBeWritten(new String(data, UTF8));
+		writeReqProcessors.get(requestToWrite.getForObject()).processRequestToWrite(requestToWrite);
+	}
+
+	public void processRequestToWrite(RequestToWrite requestToWrite) {
+		byte[] data = null;
+		numOfWritesPushed.incrementAndGet();
+		synchronized(this) {
+			data = pushedData.remove(requestToWrite.getDataId());
+			if(data == null) {
+				requestsWaitingForData.put(requestToWrite.getDataId(), requestToWrite);
+				numOfWritesWaitedForData.incrementAndGet();
+				return;
+			}
+		}
+		requestToWrite.setStringToBeWritten(new String(data, UTF8));
+		writeReqProcessors.get(requestToWrite.getForObject()).processRequestToWrite(requestToWrite);
+	}
+
+	public long getNumOfWritesPushed() {
+		return numOfWritesPushed.get();
+	}
+
+	public long getNumOfWritesWaitedForData() {
+		return numOfWritesWaitedForData.get();
+	}
+
+	public long getNumOfPiecesForwarded() {
+		return numOfPiecesForwarded.get();
+	}
+
+	public long getNumOfBytesForwarded() {
+		return numOfBytesForwarded.get();
+	}
+}
@@ -0,0 +1,238 @@
+package edu.utdallas.cs6378.server;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.utdallas.cs6378.client.ClientSendWrapper;
+import edu.utdallas.cs6378.client.ObjectSender;
+import edu.utdallas.cs6378.models.Failed;
+import edu.utdallas.cs6378.models.Grant;
+import edu.utdallas.cs6378.models.Inquire;
+import edu.utdallas.cs6378.models.Release;
+import edu.utdallas.cs6378.models.Request;
+import edu.utdallas.cs6378.models.RequestState;
+import edu.utdallas.cs6378.models.Yield;
+import edu.utdallas.cs6378.transport.MessageLink;
+import edu.utdallas.cs6378.utilities.Histogram;
+
+/**
+ * This class is an independent class that has a main method which measures the grant
+ * latency of the quorum mutual exclusion under contention, with and without the
+ * inquire/yield/failed extension. This is not part of the project specification.
+ *
+ * All the servers and clients run in this process and contend for a single object. The
+ * RequestProcessors of the servers and the RequestStates and ClientSendWrappers of the
+ * clients are the ones used by the nodes. Messages are delivered after a random delay of up
+ * to the given jitter, but in order on every link as TCP would, so that requests reach the
+ * servers in different orders. The latency from a request to its quorum is printed for each
+ * mode, along with the requests that never got a quorum because their clients deadlocked.
+ *
+ * Usage: java edu.utdallas.cs6378.server.GrantBenchmark [numOfClients] [numOfRequests] [jitterMicros]
+ *
+ */
+public class GrantBenchmark {
+
+	private static final int NUM_OF_SERVERS = 7;
+	private static final String OBJECT = "O1.txt";
+	private static final long CRITICAL_SECTION_MICROS = 1000;
+	private static final long DEADLINE_SECONDS = 60;
+
+	public static void main(String[] args) throws Exception {
+		int numOfClients = 10;
+		int numOfRequests = 50;
+		long jitterMicros = 2000;
+		if(args.length > 0) {
+			numOfClients = Integer.parseInt(args[0]);
+		}
+		if(args.length > 1) {
+			numOfRequests = Integer.parseInt(args[1]);
+		}
+		if(args.length > 2) {
+			jitterMicros = Long.parseLong(args[2]);
+		}
+		boolean[] modes = {false, true};
+		for(boolean inquireYield: modes) {
+			new GrantBenchmark(numOfClients, numOfRequests, jitterMicros, inquireYield).run();
+		}
+	}
+
+	private final int numOfClients;
+	private final int numOfRequests;
+	private final long jitterMicros;
+	private final boolean inquireYield;
+	private final Histogram grantMicros = new Histogram();
+	private final AtomicLong numOfYields = new AtomicLong();
+	private final ScheduledExecutorService network;
+	private final ExecutorService[] serverExecutors = new ExecutorService[NUM_OF_SERVERS + 1];
+	private final RequestProcessor[] reqProcessors = new RequestProcessor[NUM_OF_SERVERS + 1];
+	private final ConcurrentHashMap<String, ObjectSender> objectSendersToClients = new ConcurrentHashMap<String, ObjectSender>();
+
+	private GrantBenchmark(int numOfClients, int numOfRequests, long jitterMicros, boolean inquireYield) {
+		this.numOfClients = numOfClients;
+		this.numOfRequests = numOfRequests;
+		this.jitterMicros = jitterMicros;
+		this.inquireYield = inquireYield;
+		this.network = Executors.newSingleThreadScheduledExecutor(DAEMONS);
+	}
+
+	/*
+	 * The threads of a run are daemons, so a run that deadlocked does not keep the benchmark
+	 * from going on to the next one.
+	 */
+	private static final ThreadFactory DAEMONS = new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task);
+			thread.setDaemon(true);
+			return thread;
+		}
+	};
+
+	private void run() throws InterruptedException {
+		for(int i = 1; i <= NUM_OF_SERVERS; i++) {
+			serverExecutors[i] = Executors.newSingleThreadExecutor(DAEMONS);
+			reqProcessors[i] = new RequestProcessor(objectSendersToClients, serverExecutors[i], "S"+i, inquireYield);
+		}
+		CountDownLatch clientsDone = new CountDownLatch(numOfClients);
+		SimulatedClient[] clients = new SimulatedClient[numOfClients];
+		for(int i = 0; i < numOfClients; i++) {
+			clients[i] = new SimulatedClient("C"+(i + 1), clientsDone);
+			objectSendersToClients.put(clients[i].name, new ObjectSender(new DelayedLink(clients[i])));
+		}
+		long start = System.nanoTime();
+		for(SimulatedClient client: clients) {
+			DAEMONS.newThread(client).start();
+		}
+		boolean finished = clientsDone.await(DEADLINE_SECONDS, TimeUnit.SECONDS);
+		long elapsedMillis = (System.nanoTime() - start) / 1000000;
+		long numOfStalled = (long) numOfClients * numOfRequests - grantMicros.getCount();
+		System.out.println(String.format("inquire: %-5s clients: %3d  requests: %5d  time: %6d ms  yields: %5d  stalled: %4d%s",
+				inquireYield, numOfClients, grantMicros.getCount(), elapsedMillis, numOfYields.get(), numOfStalled,
+				finished ? "" : " (deadlocked)"));
+		System.out.println("    grant latency (us): "+grantMicros);
+		network.shutdownNow();
+		for(int i = 1; i <= NUM_OF_SERVERS; i++) {
+			serverExecutors[i].shutdownNow();
+		}
+	}
+
+	/*
+	 * Delivers the messages sent on one link after a random delay. A message is never
+	 * delivered before the messages sent before it on the same link.
+	 */
+	private class DelayedLink implements MessageLink {
+		private final Random randGenerator = new Random();
+		private final Object destination;
+		private long lastDeliveryNanos;
+
+		private DelayedLink(Object destination) {
+			this.destination = destination;
+		}
+
+		@Override
+		public synchronized void send(final Object message) throws IOException {
+			long now = System.nanoTime();
+			long deliveryNanos = Math.max(lastDeliveryNanos, now + (long) (randGenerator.nextDouble() * jitterMicros * 1000));
+			lastDeliveryNanos = deliveryNanos;
+			network.schedule(new Runnable() {
+				@Override
+				public void run() {
+					deliver(destination, message);
+				}
+			}, deliveryNanos - now, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private void deliver(Object destination, Object message) {
+		if(destination instanceof RequestProcessor) {
+			RequestProcessor reqProcessor = (RequestProcessor) destination;
+			if(message instanceof Request) {
+				reqProcessor.submitRequest((Request) message);
+			} else if(message instanceof Release) {
+				reqProcessor.resumeProcessing();
+			} else if(message instanceof Yield) {
+				numOfYields.incrementAndGet();
+				reqProcessor.submitYield(((Yield) message).getRequest());
+			}
+		} else {
+			((SimulatedClient) destination).handleMessage(message);
+		}
+	}
+
+	/*
+	 * Issues requests for the object one after the other, holds each quorum for the length of
+	 * a critical section and releases it, like the critical sections of a client node.
+	 */
+	private class SimulatedClient implements Runnable {
+		private final String name;
+		private final CountDownLatch clientsDone;
+		private final ClientSendWrapper clientSendWrapper;
+		private final ConcurrentHashMap<Integer, RequestState> requestStates = new ConcurrentHashMap<Integer, RequestState>();
+		private final BlockingQueue<Request> grantedRequests = new ArrayBlockingQueue<Request>(1);
+
+		private SimulatedClient(String name, CountDownLatch clientsDone) {
+			this.name = name;
+			this.clientsDone = clientsDone;
+			ConcurrentHashMap<String, ObjectSender> serverConnections = new ConcurrentHashMap<String, ObjectSender>();
+			for(int i = 1; i <= NUM_OF_SERVERS; i++) {
+				serverConnections.put("S"+i, new ObjectSender(new DelayedLink(reqProcessors[i])));
+			}
+			this.clientSendWrapper = new ClientSendWrapper(serverConnections);
+			// run as a plain runnable, starting it as a node thread would load the node properties
+			DAEMONS.newThread(new Runnable() {
+				@Override
+				public void run() {
+					clientSendWrapper.run();
+				}
+			}).start();
+		}
+
+		private void handleMessage(Object message) {
+			if(message instanceof Grant) {
+				Grant grant = (Grant) message;
+				RequestState rState = requestStates.get(grant.getRequest().getRequestId());
+				if(rState.updateState(Integer.parseInt(grant.getFromServer().substring(1)))) {
+					grantedRequests.add(grant.getRequest());
+				}
+			} else if(message instanceof Inquire) {
+				Inquire inquire = (Inquire) message;
+				requestStates.get(inquire.getRequest().getRequestId()).processInquire(Integer.parseInt(inquire.getFromServer().substring(1)));
+			} else if(message instanceof Failed) {
+				Failed failed = (Failed) message;
+				requestStates.get(failed.getRequest().getRequestId()).processFailed(Integer.parseInt(failed.getFromServer().substring(1)));
+			}
+		}
+
+		@Override
+		public void run() {
+			Random randGenerator = new Random();
+			try {
+				for(int requestId = 1; requestId <= numOfRequests; requestId++) {
+					Request request = new Request(System.currentTimeMillis(), name, requestId, OBJECT);
+					RequestState rState = new RequestState(NUM_OF_SERVERS, request, clientSendWrapper);
+					requestStates.put(requestId, rState);
+					long requestNanos = System.nanoTime();
+					clientSendWrapper.submitObject(request);
+					grantedRequests.take();
+					grantMicros.record((System.nanoTime() - requestNanos) / 1000);
+					TimeUnit.MICROSECONDS.sleep(CRITICAL_SECTION_MICROS);
+					clientSendWrapper.submitObject(new Release(requestId, rState.releasesToServers(), OBJECT));
+					TimeUnit.MICROSECONDS.sleep(randGenerator.nextInt(5 * (int) CRITICAL_SECTION_MICROS));
+				}
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			clientsDone.countDown();
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package edu.utdallas.cs6378.server;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import edu.utdallas.cs6378.client.ObjectSender;
+import edu.utdallas.cs6378.models.Lease;
+import edu.utdallas.cs6378.models.LeaseRequest;
+import edu.utdallas.cs6378.models.Mutation;
+import edu.utdallas.cs6378.models.MutationAck;
+import edu.utdallas.cs6378.models.WriteResponse;
+import edu.utdallas.cs6378.utilities.Constants;
+
+/**
+ * This class orders the writes on objects with leases when the property "ordering" is "lease".
+ * The master grants a lease of "leasems" milliseconds on an object to one of the servers that
+ * hold it, the primary. The primary gives every mutation of the object the next serial number
+ * and every replica applies the mutations in that order, so a write only involves the servers
+ * that hold the object instead of a quorum of all the servers.
+ *
+ * @Method: processLeaseRequest()
+ * Answers a lookup of a lease at the master. If the object has no lease or its lease has run
+ * out, a new lease is granted to the first server that holds the object and sent to it as
+ * well. A lookup from the primary itself extends its lease.
+ *
+ * @Method: submitLease()
+ * Stores a lease granted to this server.
+ *
+ * @Method: holdsLease()
+ * Returns true if this server is the primary of the object. Once less than half of the lease
+ * is left, the master is asked to extend it, so a primary that keeps receiving mutations
+ * never loses its lease.
+ *
+ * @Method: processMutation()
+ * A mutation from a client is ordered by the WriteRequestProcessor of the object if this
+ * server holds the lease and refused otherwise, the client then looks up the lease again.
+ * A mutation from the primary already has its serial number and is applied in that order.
+ *
+ */
+public class LeaseManager {
+
+	private static Logger logger = Logger.getLogger(LeaseManager.class);
+	public static final String QUORUM = "quorum";
+	public static final String LEASE = "lease";
+	private PlacementService placementService;
+	private ConcurrentHashMap<String, WriteRequestProcessor> writeReqProcessors;
+	private ConcurrentHashMap<String, ObjectSender> objectSendersToClients;
+	private ConcurrentHashMap<String, ObjectSender> objectSendersToServers;
+	private ConcurrentHashMap<String, Lease> grantedLeases;
+	private ConcurrentHashMap<String, Lease> heldLeases;
+	private ConcurrentHashMap<String, Boolean> renewalsRequested;
+	private AtomicLong numOfLeasesGranted = new AtomicLong();
+	private AtomicLong numOfLeasesExtended = new AtomicLong();
+	private AtomicLong numOfMutationsRefused = new AtomicLong();
+
+	public LeaseManager(PlacementService placementService,
+			ConcurrentHashMap<String, WriteRequestProcessor> writeReqProcessors,
+			ConcurrentHashMap<String, ObjectSender> objectSendersToClients,
+			ConcurrentHashMap<String, ObjectSender> objectSendersToServers) {
+		this.placementService = placementService;
+		this.writeReqProcessors = writeReqProcessors;
+		this.objectSendersToClients = objectSendersToClients;
+		this.objectSendersToServers = objectSendersToServers;
+		this.grantedLeases = new ConcurrentHashMap<String, Lease>();
+		this.heldLeases = new ConcurrentHashMap<String, Lease>();
+		this.renewalsRequested = new ConcurrentHashMap<String, Boolean>();
+	}
+
+	/*
+	 * The nodes of this system have no failure detection, hence the lease always goes to the
+	 * first server that holds the object and a lease that has run out is granted to it again.
+	 */
+	public synchronized void processLeaseRequest(LeaseRequest request) {
+		String[] replicas = placementService.getPlacementTable().getReplicas(request.getForObject());
+		if(replicas == null || replicas.length == 0) {
+			logger.debug("Lease on "+request.getForObject()+" requested by "+request.getFromNode()+" can not be granted");
+			return;
+		}
+		Lease lease = grantedLeases.get(request.getForObject());
+		long expiresAt = System.currentTimeMillis() + Constants.LEASEMS;
+		if(lease == null || !lease.isValid()) {
+			lease = new Lease(request.getForObject(), replicas[0], Arrays.copyOfRange(replicas, 1, replicas.length), expiresAt);
+			grantedLeases.put(request.getForObject(), lease);
+			numOfLeasesGranted.incrementAndGet();
+			logger.debug("Granted the lease on "+lease.getForObject()+" to "+lease.getPrimary());
+			if(!lease.getPrimary().equals(request.getFromNode())) {
+				sendLease(lease, lease.getPrimary());
+			}
+		} else if(lease.getPrimary().equals(request.getFromNode())) {
+			lease = new Lease(lease.getForObject(), lease.getPrimary(), lease.getSecondaries(), expiresAt);
+			grantedLeases.put(request.getForObject(), lease);
+			numOfLeasesExtended.incrementAndGet();
+		}
+		sendLease(lease, request.getFromNode());
+	}
+
+	private void sendLease(Lease lease, String toNode) {
+		if(Constants.MYNAME.equals(toNode)) {
+			submitLease(lease);
+			return;
+		}
+		ObjectSender objSender = objectSendersToClients.get(toNode);
+		if(objSender == null) {
+			objSender = objectSendersToServers.get(toNode);
+		}
+		if(objSender != null) {
+			objSender.submitObject(lease);
+		}
+	}
+
+	public void submitLease(Lease lease) {
+		if(Constants.MYNAME.equals(lease.getPrimary())) {
+			heldLeases.put(lease.getForObject(), lease);
+		}
+		renewalsRequested.remove(lease.getForObject());
+	}
+
+	public boolean holdsLease(String objectName) {
+		Lease lease = heldLeases.get(objectName);
+		long timeLeft = lease == null ? 0 : lease.getExpiresAt() - System.currentTimeMillis();
+		if(timeLeft < Constants.LEASEMS / 2 && renewalsRequested.putIfAbsent(objectName, Boolean.TRUE) == null) {
+			LeaseRequest request = new LeaseRequest(Constants.MYNAME, objectName);
+			if(Constants.MYNAME.equals(Constants.MASTER)) {
+				processLeaseRequest(request);
+			} else {
+				objectSendersToServers.get(Constants.MASTER).submitObject(request);
+			}
+		}
+		return timeLeft > 0;
+	}
+
+	public void processMutation(Mutation mutation) {
+		WriteRequestProcessor writeReqProcessor = writeReqProcessors.get(mutation.getForObject());
+		if(writeReqProcessor == null) {
+			logger.debug("Received a mutation for "+mutation.getForObject()+" which is not held at this server");
+			return;
+		}
+		if(mutation.getSerialNumber() >= 0) {
+			writeReqProcessor.submitMutation(mutation);
+		} else if(holdsLease(mutation.getForObject())) {
+			writeReqProcessor.processMutation(mutation, heldLeases.get(mutation.getForObject()).getSecondaries());
+		} else {
+			numOfMutationsRefused.incrementAndGet();
+			objectSendersToClients.get(mutation.getFromClient()).submitObject(
+					new WriteResponse(Constants.MYNAME, Constants.NOTPRIMARY, mutation.getRequestId()));
+		}
+	}
+
+	public void processMutationAck(MutationAck ack) {
+		writeReqProcessors.get(ack.getForObject()).mutationApplied(ack.getSerialNumber());
+	}
+
+	public long getNumOfLeasesGranted() {
+		return numOfLeasesGranted.get();
+	}
+
+	public long getNumOfLeasesExtended() {
+		return numOfLeasesExtended.get();
+	}
+
+	public long getNumOfMutationsRefused() {
+		return numOfMutationsRefused.get();
+	}
+}
@@ -1,19 +1,33 @@
 package edu.utdallas.cs6378.server;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
 import java.net.Socket;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 
+import edu.utdallas.cs6378.models.DataPiece;
+import edu.utdallas.cs6378.models.Lease;
+import edu.utdallas.cs6378.models.LeaseRequest;
+import edu.utdallas.cs6378.models.Mutation;
+import edu.utdallas.cs6378.models.MutationAck;
 import edu.utdallas.cs6378.models.Identity;
+import edu.utdallas.cs6378.models.PlacementRequest;
+import edu.utdallas.cs6378.models.PlacementResponse;
+import edu.utdallas.cs6378.models.ReadRequest;
 import edu.utdallas.cs6378.models.Release;
 import edu.utdallas.cs6378.models.Request;
 import edu.utdallas.cs6378.models.RequestToWrite;
 import edu.utdallas.cs6378.models.WriteCall;
+import edu.utdallas.cs6378.models.Yield;
+import edu.utdallas.cs6378.transport.MessageCodecs;
+import edu.utdallas.cs6378.transport.MessageHandler;
+import edu.utdallas.cs6378.transport.MessageReader;
 import edu.utdallas.cs6378.utilities.Constants;
+import edu.utdallas.cs6378.utilities.NodeThread;
+import edu.utdallas.cs6378.utilities.TimedQueue;
 
 /**
  * This thread functions as a receiver thread for server nodes and each connection
@@ -24,18 +38,31 @@ import edu.utdallas.cs6378.utilities.Constants;
  * When a request is received, it is submitted to RequestProcessor for the requests
  * to be processed. If it is a release message, the blocked reqProcessor thread is 
  * resumed to process the subsequent requests in the request Processor queue. 
+ * A Yield gives a grant back to the RequestProcessor of its object, which grants it again.
  * The string messages that are received are either completion notification or shutdown messages.
+ * DataPieces of the chained data pipeline are handed to the DataPipeline of this server, and so
+ * are the RequestToWrites whose data has been pushed ahead of the critical section.
+ * Placement lookups and the placement table sent by the master are handed to the PlacementService.
+ * Leases, lease lookups, Mutations and their acknowledgements are handed to the LeaseManager.
+ * A ReadRequest is answered by the WriteRequestProcessor of the object without entering the
+ * RequestProcessor queue.
+ * The messages for an object held at this server are parked by the PlacementService until the
+ * placement table has been loaded, so that the receiver never blocks on it.
  * 
  * @Method: getReceivedObj()
  * Whenever a connection is established, an identity object is expected as the first object and
  * it is ensured from using the blocking method getReceivedObj() which looks for identity
- * objects in the ArrayBlockingQueue receivedObjs.
+ * objects in the TimedQueue receivedObjs.
+ * 
+ * @Method: readIdentity()
+ * With the blocking transport the identity is read by the accepting thread before this receiver
+ * is started, so no message of a node is handled before the server can answer it.
  * 
  * This class also keeps track of all the messages received over this connection
  * and distinguishes them based on type of message.
  * 
  */
-public class ObjectReceiver extends Thread {
+public class ObjectReceiver extends NodeThread implements MessageHandler {
 
 	/*
 	 * Since each server can simultaneously provide grants for different objects at the same
@@ -44,36 +71,40 @@ public class ObjectReceiver extends Thread {
 	 * holds and Hence we maintain three WriteRequestProcessors corresponding to each of the
 	 * objects held physically at this server (in our case it is 3). 
 	 */
-	@SuppressWarnings("unused")
 	private static Logger logger = Logger.getLogger(ObjectReceiver.class);
 	private Socket connection;
+	private MessageReader reader;
 	private String fromNode;
 	//Modification for project 3
 	private ConcurrentHashMap<String, RequestProcessor> reqProcessors;
 	private ConcurrentHashMap<String, WriteRequestProcessor> writeReqProcessors;
+	private PlacementService placementService;
+	private DataPipeline dataPipeline;
+	private LeaseManager leaseManager;
 	private boolean beginReceived;
 	private boolean shutdownReceived;
-	private ArrayBlockingQueue<Object> receivedObjs = new ArrayBlockingQueue<Object>(10);
-	private int numberOfRequests;
-	private int numberOfReleases;
-	private int numberOfAuxiliaryMessages;
-	private int numberOfIdentities;
-	private int numberOfReqToWrites;
-	private int numberOfWriteCalls;
+	private TimedQueue<Object> receivedObjs = new TimedQueue<Object>("identity", 10);
+	private AtomicInteger numberOfRequests = new AtomicInteger();
+	private AtomicInteger numberOfReleases = new AtomicInteger();
+	private AtomicInteger numberOfAuxiliaryMessages = new AtomicInteger();
+	private AtomicInteger numberOfIdentities = new AtomicInteger();
+	private AtomicInteger numberOfReqToWrites = new AtomicInteger();
+	private AtomicInteger numberOfWriteCalls = new AtomicInteger();
+	private AtomicInteger numberOfReadRequests = new AtomicInteger();
+	private AtomicInteger numberOfDataPieces = new AtomicInteger();
+	private AtomicInteger numberOfMutations = new AtomicInteger();
 	
 	public ObjectReceiver(Socket connection,
 			ConcurrentHashMap<String, RequestProcessor> reqProcessors,
-			ConcurrentHashMap<String, WriteRequestProcessor> writeReqProcessors) {
+			ConcurrentHashMap<String, WriteRequestProcessor> writeReqProcessors,
+			PlacementService placementService, DataPipeline dataPipeline, LeaseManager leaseManager) {
 		this.connection = connection;
+		this.placementService = placementService;
+		this.dataPipeline = dataPipeline;
+		this.leaseManager = leaseManager;
 		this.reqProcessors = reqProcessors;
 		this.writeReqProcessors = writeReqProcessors;
 		this.beginReceived = false;
-		this.numberOfAuxiliaryMessages = 0;
-		this.numberOfReleases = 0;
-		this.numberOfRequests = 0;
-		this.numberOfIdentities = 0;
-		this.numberOfReqToWrites = 0;
-		this.numberOfWriteCalls = 0;
 	}
 	
 	/*
@@ -91,41 +122,12 @@ public class ObjectReceiver extends Thread {
 	@Override
 	public void run() {
 		try {
-			InputStream inStream = connection.getInputStream();
-			ObjectInputStream objInStream = new ObjectInputStream(inStream);
+			if(reader == null) {
+				InputStream inStream = connection.getInputStream();
+				reader = MessageCodecs.get().newReader(inStream);
+			}
 			while(!isInterrupted()) {
-				Object obj = objInStream.readObject();
-				if(obj instanceof Request) {
-					this.numberOfRequests++;
-					comment("Received a request from "+((Request)obj).getClient());
-					//Modification for project 3
-					reqProcessors.get(((Request)obj).getForObject()).submitRequest((Request) obj);
-				} else if (obj instanceof Release) {
-					this.numberOfReleases++;
-					comment("Received a release for "+((Release)obj).getRequestId());
-					//Modification for project 3
-					reqProcessors.get(((Release)obj).getRequestedObject()).resumeProcessing();
-				} else if (obj instanceof RequestToWrite) {
-					RequestToWrite reqToWrite = (RequestToWrite) obj;
-					writeReqProcessors.get(reqToWrite.getForObject()).processRequestToWrite(reqToWrite);
-					this.numberOfReqToWrites++;
-				} else if (obj instanceof WriteCall) {
-					WriteCall writeCall = (WriteCall) obj;
-					writeReqProcessors.get(writeCall.getForObject()).submitWriteCall(writeCall);
-					this.numberOfWriteCalls++;
-				} else if (obj instanceof String) {
-					this.numberOfAuxiliaryMessages++;
-					if(Constants.COMPLETION.equals(obj.toString())) {
-						Constants.COMPLETION_NOTIFICATIONS[Integer.parseInt(fromNode.substring(1))-1] = true;
-					} else if (Constants.SHUTDOWN.equals(obj.toString())) {
-						this.shutdownReceived = true;
-					} else if (Constants.BEGIN.equals(obj.toString())) {
-						this.beginReceived = true;
-					}
-				} else if (obj instanceof Identity) {
-					this.numberOfIdentities++;
-					receivedObjs.put(obj);
-				}
+				handleMessage(reader.readMessage());
 			}
 		} catch(Exception e) {
 			//e.printStackTrace();
@@ -133,6 +135,120 @@ public class ObjectReceiver extends Thread {
 		comment("ObjectReceiver has terminated!");
 	}
 	
+	/*
+	 * Dispatches a single message received over this connection. This is called by run() for
+	 * the blocking transport and by the event loop of the connection for the nio transport.
+	 */
+	@Override
+	public void handleMessage(final Object obj) {
+		try {
+			if(obj instanceof Request) {
+				this.numberOfRequests.incrementAndGet();
+				comment("Received a request from "+((Request)obj).getClient());
+				//Modification for project 3
+				reqProcessors.get(((Request)obj).getForObject()).submitRequest((Request) obj);
+			} else if (obj instanceof Release) {
+				this.numberOfReleases.incrementAndGet();
+				comment("Received a release for "+((Release)obj).getRequestId());
+				//Modification for project 3
+				reqProcessors.get(((Release)obj).getRequestedObject()).resumeProcessing();
+			} else if (obj instanceof Yield) {
+				// a yielded grant is given back like a release, only the lock is granted again
+				this.numberOfReleases.incrementAndGet();
+				Request request = ((Yield) obj).getRequest();
+				reqProcessors.get(request.getForObject()).submitYield(request);
+			} else if (obj instanceof RequestToWrite || obj instanceof DataPiece || obj instanceof WriteCall
+					|| obj instanceof ReadRequest || obj instanceof Mutation) {
+				placementService.runWhenLoaded(new Runnable() {
+					@Override
+					public void run() {
+						handleHeldObjectMessage(obj);
+					}
+				});
+			} else if (obj instanceof MutationAck) {
+				this.numberOfMutations.incrementAndGet();
+				leaseManager.processMutationAck((MutationAck) obj);
+			} else if (obj instanceof LeaseRequest) {
+				this.numberOfAuxiliaryMessages.incrementAndGet();
+				leaseManager.processLeaseRequest((LeaseRequest) obj);
+			} else if (obj instanceof Lease) {
+				this.numberOfAuxiliaryMessages.incrementAndGet();
+				leaseManager.submitLease((Lease) obj);
+			} else if (obj instanceof PlacementRequest) {
+				this.numberOfAuxiliaryMessages.incrementAndGet();
+				placementService.processPlacementRequest((PlacementRequest) obj);
+			} else if (obj instanceof PlacementResponse) {
+				this.numberOfAuxiliaryMessages.incrementAndGet();
+				placementService.loadPlacementTable(((PlacementResponse) obj).getPlacementTable());
+			} else if (obj instanceof String) {
+				this.numberOfAuxiliaryMessages.incrementAndGet();
+				if(Constants.COMPLETION.equals(obj.toString())) {
+					Constants.COMPLETION_NOTIFICATIONS[Integer.parseInt(fromNode.substring(1))-1] = true;
+				} else if (Constants.SHUTDOWN.equals(obj.toString())) {
+					this.shutdownReceived = true;
+				} else if (Constants.BEGIN.equals(obj.toString())) {
+					this.beginReceived = true;
+				}
+			} else if (obj instanceof Identity) {
+				this.numberOfIdentities.incrementAndGet();
+				receivedObjs.put(obj);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/*
+	 * Dispatches a message for an object held at this server. It is run by the PlacementService
+	 * once the placement table has been loaded, and never blocks.
+	 */
+	private void handleHeldObjectMessage(Object obj) {
+		if (obj instanceof RequestToWrite) {
+			RequestToWrite reqToWrite = (RequestToWrite) obj;
+			if(reqToWrite.getDataId() != null) {
+				dataPipeline.processRequestToWrite(reqToWrite);
+			} else {
+				writeReqProcessors.get(reqToWrite.getForObject()).processRequestToWrite(reqToWrite);
+			}
+			this.numberOfReqToWrites.incrementAndGet();
+		} else if (obj instanceof DataPiece) {
+			DataPiece piece = (DataPiece) obj;
+			dataPipeline.processDataPiece(piece);
+			this.numberOfDataPieces.incrementAndGet();
+		} else if (obj instanceof WriteCall) {
+			WriteCall writeCall = (WriteCall) obj;
+			writeReqProcessors.get(writeCall.getForObject()).submitWriteCall(writeCall);
+			this.numberOfWriteCalls.incrementAndGet();
+		} else if (obj instanceof ReadRequest) {
+			ReadRequest readRequest = (ReadRequest) obj;
+			this.numberOfReadRequests.incrementAndGet();
+			WriteRequestProcessor writeReqProcessor = writeReqProcessors.get(readRequest.getForObject());
+			if(writeReqProcessor != null) {
+				writeReqProcessor.processReadRequest(readRequest);
+			} else {
+				logger.debug("Received a read for "+readRequest.getForObject()+" which is not held at this server");
+			}
+		} else if (obj instanceof Mutation) {
+			this.numberOfMutations.incrementAndGet();
+			leaseManager.processMutation((Mutation) obj);
+		}
+	}
+	
+	/*
+	 * Reads the first message of a connection of the blocking transport on the calling thread,
+	 * before this receiver is started, so that the server can register the sender of the
+	 * connection before any other message of it is handled. run() goes on with the same reader.
+	 */
+	public Identity readIdentity() throws IOException, ClassNotFoundException {
+		reader = MessageCodecs.get().newReader(connection.getInputStream());
+		Object firstObject = reader.readMessage();
+		if(!(firstObject instanceof Identity)) {
+			throw new ClassCastException(firstObject.getClass().getName()+" is not an Identity");
+		}
+		handleMessage(firstObject);
+		return (Identity) getReceivedObj();
+	}
+	
 	public Object getReceivedObj() {
 		try {
 			return receivedObjs.take();
@@ -156,47 +272,63 @@ public class ObjectReceiver extends Thread {
 	}
 	
 	public int getNumberOfRequests() {
-		return numberOfRequests;
+		return numberOfRequests.get();
 	}
 
 	public void setNumberOfRequests(int numberOfRequests) {
-		this.numberOfRequests = numberOfRequests;
+		this.numberOfRequests.set(numberOfRequests);
 	}
 
 	public int getNumberOfReleases() {
-		return numberOfReleases;
+		return numberOfReleases.get();
 	}
 
 	public void setNumberOfReleases(int numberOfReleases) {
-		this.numberOfReleases = numberOfReleases;
+		this.numberOfReleases.set(numberOfReleases);
 	}
 
 	public int getNumberOfAuxiliaryMessages() {
-		return numberOfAuxiliaryMessages;
+		return numberOfAuxiliaryMessages.get();
 	}
 
 	public void setNumberOfAuxiliaryMessages(int numberOfAuxiliaryMessages) {
-		this.numberOfAuxiliaryMessages = numberOfAuxiliaryMessages;
+		this.numberOfAuxiliaryMessages.set(numberOfAuxiliaryMessages);
 	}
 	
 	public int getNumberOfIdentities() {
-		return this.numberOfIdentities;
+		return this.numberOfIdentities.get();
 	}
 
 	public int getNumberOfReqToWrites() {
-		return numberOfReqToWrites;
+		return numberOfReqToWrites.get();
 	}
 
 	public void setNumberOfReqToWrites(int numberOfReqToWrites) {
-		this.numberOfReqToWrites = numberOfReqToWrites;
+		this.numberOfReqToWrites.set(numberOfReqToWrites);
 	}
 
 	public int getNumberOfWriteCalls() {
-		return numberOfWriteCalls;
+		return numberOfWriteCalls.get();
 	}
 
 	public void setNumberOfWriteCalls(int numberOfWriteCalls) {
-		this.numberOfWriteCalls = numberOfWriteCalls;
+		this.numberOfWriteCalls.set(numberOfWriteCalls);
+	}
+
+	public int getNumberOfReadRequests() {
+		return numberOfReadRequests.get();
+	}
+
+	public void setNumberOfReadRequests(int numberOfReadRequests) {
+		this.numberOfReadRequests.set(numberOfReadRequests);
+	}
+
+	public int getNumberOfDataPieces() {
+		return numberOfDataPieces.get();
+	}
+	
+	public int getNumberOfMutations() {
+		return numberOfMutations.get();
 	}
 
 	private void comment(String message) {
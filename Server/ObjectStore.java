@@ -0,0 +1,264 @@
+package edu.utdallas.cs6378.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import edu.utdallas.cs6378.models.ChunkHandle;
+import edu.utdallas.cs6378.utilities.Histogram;
+
+/**
+ * This class is the storage engine of a single object held at this server. The files of the
+ * object are opened once and their FileChannels are kept open for the life of the server, so a
+ * commit costs one write instead of an open, a write and a close.
+ *
+ * When the property "chunksize" is set, the object is a sequence of chunks of that many bytes.
+ * Each chunk is a file of its own named after its ChunkHandle. A write goes to the chunk that
+ * holds its offset and a write that crosses the end of a chunk continues in the next one, which
+ * is created when the previous chunk is full. A chunk size of 0 keeps the object in a single
+ * file named after the object.
+ *
+ * Durability is chosen through the property "durability":
+ * none   - records are handed to the operating system and never forced to disk.
+ * commit - every record is forced to disk before its commit is acknowledged.
+ * group  - the records of all the commits that are applied together are forced with a
+ *          single fsync before any of them is acknowledged. A store is synced on its own, so
+ *          this only batches the commits of one object, which happens under "lease" ordering
+ *          only (see WriteRequestProcessor).
+ *
+ * Every record appended bumps the version of the object. All the replicas of an object apply
+ * the same commits in the same order, so they agree on the version that follows a commit.
+ *
+ * @Method: append()
+ * Appends a record (one line) at the end of the object and returns the offset at which
+ * it was written.
+ *
+ * @Method: writeRecord()
+ * Writes a record (one line) at an offset chosen by the primary of the object.
+ *
+ * @Method: write()
+ * Writes bytes at the given offset into the chunks that hold that range.
+ *
+ * @Method: read()
+ * Reads a byte range of the object with positional reads on the same channels, so reads
+ * do not wait for the writer and never see a partly appended record.
+ *
+ * @Method: sync()
+ * Forces the chunks written since the last sync to disk when the durability is "group".
+ * This has to be called before the commits of those records are acknowledged.
+ *
+ */
+public class ObjectStore {
+
+	public static final String NONE = "none";
+	public static final String COMMIT = "commit";
+	public static final String GROUP = "group";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final String directory;
+	private final String objectName;
+	private final String durability;
+	private final long chunkSize;
+	private final CopyOnWriteArrayList<FileChannel> chunks;
+	private final TreeSet<Integer> unsyncedChunks;
+	private volatile long size;
+	private volatile long version;
+	private int numOfUnsyncedRecords;
+	private final Histogram recordsPerFsync = new Histogram();
+	private final Histogram fsyncMicros = new Histogram();
+
+	public ObjectStore(String directory, String objectName, String durability) throws IOException {
+		this(directory, objectName, durability, 0);
+	}
+
+	public ObjectStore(String directory, String objectName, String durability, long chunkSize) throws IOException {
+		this.directory = directory;
+		this.objectName = objectName;
+		this.durability = durability;
+		this.chunkSize = chunkSize > 0 ? chunkSize : Long.MAX_VALUE;
+		this.chunks = new CopyOnWriteArrayList<FileChannel>();
+		this.unsyncedChunks = new TreeSet<Integer>();
+		if(!isChunked()) {
+			chunks.add(open(getChunkFile(0)));
+			this.size = chunks.get(0).size();
+			return;
+		}
+		File chunkFile;
+		while((chunkFile = getChunkFile(chunks.size())).exists()) {
+			chunks.add(open(chunkFile));
+		}
+		this.size = chunks.isEmpty() ? 0 : (chunks.size() - 1) * chunkSize + chunks.get(chunks.size() - 1).size();
+	}
+
+	private static FileChannel open(File file) throws IOException {
+		return FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	private boolean isChunked() {
+		return chunkSize != Long.MAX_VALUE;
+	}
+
+	private File getChunkFile(int chunkIndex) {
+		if(!isChunked()) {
+			return new File(directory + File.separator + objectName);
+		}
+		return new File(directory + File.separator + new ChunkHandle(objectName, chunkIndex).getFileName());
+	}
+
+	public synchronized long append(String record) throws IOException {
+		long offset = size;
+		writeRecord(offset, record);
+		return offset;
+	}
+
+	/*
+	 * Every replica writes the record at the same offset, so the replicas stay byte for byte
+	 * identical even though none of them decides where the record goes.
+	 */
+	public synchronized void writeRecord(long offset, String record) throws IOException {
+		write(offset, (record + "\n").getBytes(UTF8));
+		version++;
+		numOfUnsyncedRecords++;
+		if(COMMIT.equals(durability)) {
+			force();
+		}
+	}
+
+	public static int getRecordLength(String record) {
+		return (record + "\n").getBytes(UTF8).length;
+	}
+
+	/*
+	 * Full chunks roll over to a new chunk, so the bytes of a record that crosses the end of a
+	 * chunk are split between that chunk and the next one.
+	 */
+	public synchronized void write(long offset, byte[] data) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		long position = offset;
+		while(buffer.hasRemaining()) {
+			int chunkIndex = getChunkIndex(position);
+			while(chunks.size() <= chunkIndex) {
+				chunks.add(open(getChunkFile(chunks.size())));
+			}
+			long positionInChunk = position - chunkIndex * chunkSize;
+			long roomInChunk = chunkSize - positionInChunk;
+			if(buffer.remaining() > roomInChunk) {
+				buffer.limit(buffer.position() + (int) roomInChunk);
+			}
+			while(buffer.position() < buffer.limit()) {
+				int written = chunks.get(chunkIndex).write(buffer, positionInChunk);
+				positionInChunk = positionInChunk + written;
+				position = position + written;
+			}
+			buffer.limit(buffer.capacity());
+			unsyncedChunks.add(chunkIndex);
+		}
+		if(position > size) {
+			size = position;
+		}
+	}
+
+	public byte[] read(long offset, int length) throws IOException {
+		long end = size();
+		if(offset < 0 || offset > end) {
+			throw new IOException("Offset "+offset+" is outside of "+objectName+" of size "+end);
+		}
+		if(length >= 0 && offset + length < end) {
+			end = offset + length;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate((int) (end - offset));
+		while(buffer.hasRemaining()) {
+			long position = offset + buffer.position();
+			int chunkIndex = getChunkIndex(position);
+			long positionInChunk = position - chunkIndex * chunkSize;
+			if(buffer.remaining() > chunkSize - positionInChunk) {
+				buffer.limit(buffer.position() + (int) (chunkSize - positionInChunk));
+			}
+			if(chunks.get(chunkIndex).read(buffer, positionInChunk) < 0) {
+				break;
+			}
+			buffer.limit(buffer.capacity());
+		}
+		return buffer.array();
+	}
+
+	public synchronized void sync() throws IOException {
+		if(GROUP.equals(durability) && numOfUnsyncedRecords > 0) {
+			force();
+		}
+	}
+
+	private void force() throws IOException {
+		long start = System.nanoTime();
+		for(Integer chunkIndex: unsyncedChunks) {
+			chunks.get(chunkIndex).force(false);
+		}
+		unsyncedChunks.clear();
+		fsyncMicros.record((System.nanoTime() - start) / 1000);
+		recordsPerFsync.record(numOfUnsyncedRecords);
+		numOfUnsyncedRecords = 0;
+	}
+
+	private int getChunkIndex(long offset) {
+		return (int) (offset / chunkSize);
+	}
+
+	public long size() {
+		return size;
+	}
+
+	/*
+	 * The version is bumped after the size, hence a reader that reads the version before the
+	 * data never tags data with a version newer than the data itself.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	public ChunkHandle getChunkHandle(long offset) {
+		return new ChunkHandle(objectName, getChunkIndex(offset));
+	}
+
+	public List<ChunkHandle> getChunkHandles() {
+		List<ChunkHandle> chunkHandles = new ArrayList<ChunkHandle>();
+		for(int i = 0; i < chunks.size(); i++) {
+			chunkHandles.add(new ChunkHandle(objectName, i));
+		}
+		return chunkHandles;
+	}
+
+	public long getChunkSize() {
+		return chunkSize;
+	}
+
+	public String getObjectName() {
+		return objectName;
+	}
+
+	public Histogram getRecordsPerFsync() {
+		return recordsPerFsync;
+	}
+
+	public Histogram getFsyncMicros() {
+		return fsyncMicros;
+	}
+
+	public void close() {
+		for(FileChannel channel: chunks) {
+			try {
+				channel.close();
+			} catch(IOException ioe) {
+				ioe.printStackTrace();
+			}
+		}
+	}
+}
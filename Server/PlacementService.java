@@ -0,0 +1,152 @@
+package edu.utdallas.cs6378.server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+
+import edu.utdallas.cs6378.client.ObjectSender;
+import edu.utdallas.cs6378.models.PlacementRequest;
+import edu.utdallas.cs6378.models.PlacementResponse;
+import edu.utdallas.cs6378.models.PlacementTable;
+import edu.utdallas.cs6378.utilities.Constants;
+
+/**
+ * This class holds the placement of objects at a server node. The master server builds the
+ * placement table from the properties "objects" and "servers" when it is created and answers
+ * the lookups of other nodes from it. Every other server receives the table from the master
+ * as soon as it is connected to the master and creates a WriteRequestProcessor for each of
+ * the objects that it holds.
+ *
+ * @Method: buildPlacementTable()
+ * Builds the table on the master with the policy given by the property "placement". With
+ * "range" (the default) the i-th object is held by the i-th server and the servers that
+ * follow it in the property "servers", wrapping around at the end. With "ring" the objects
+ * are placed by a ConsistentHashRing with "virtualnodes" points per server. Either way every
+ * object is held by "replicationfactor" servers.
+ *
+ * @Method: loadPlacementTable()
+ * Stores the table, starts a WriteRequestProcessor for every object held at this server and
+ * then runs the tasks that have been parked until the table was loaded, in their order.
+ *
+ * @Method: processPlacementRequest()
+ * Answers the lookup of a node with the whole table. This is only called at the master.
+ *
+ * @Method: runWhenLoaded()
+ * Runs the task right away if the table has been loaded and parks it otherwise, the way the
+ * DataPipeline parks a RequestToWrite until its data arrives. Messages for an object held at
+ * this server go through it so that they never reach the WriteRequestProcessor of the object
+ * before it exists, without holding up the receiver that delivers them, which is the event
+ * loop of every connection under the nio transport.
+ *
+ */
+public class PlacementService {
+
+	private static Logger logger = Logger.getLogger(PlacementService.class);
+	public static final String RANGE = "range";
+	public static final String RING = "ring";
+	private ConcurrentHashMap<String, WriteRequestProcessor> writeReqProcessors;
+	private ConcurrentHashMap<String, ObjectSender> objectSendersToClients;
+	private ConcurrentHashMap<String, ObjectSender> objectSendersToServers;
+	private volatile PlacementTable placementTable;
+	private volatile boolean placementLoaded;
+	private final List<Runnable> tasksWaitingForTable = new ArrayList<Runnable>();
+
+	public PlacementService(ConcurrentHashMap<String, WriteRequestProcessor> writeReqProcessors,
+			ConcurrentHashMap<String, ObjectSender> objectSendersToClients,
+			ConcurrentHashMap<String, ObjectSender> objectSendersToServers) {
+		this.writeReqProcessors = writeReqProcessors;
+		this.objectSendersToClients = objectSendersToClients;
+		this.objectSendersToServers = objectSendersToServers;
+		if(Constants.MYNAME.equals(Constants.MASTER)) {
+			this.placementTable = buildPlacementTable();
+		}
+	}
+
+	public PlacementTable buildPlacementTable() {
+		PlacementTable table = new PlacementTable();
+		String[] servers = Constants.SERVERS;
+		if(RING.equalsIgnoreCase(Constants.PLACEMENT)) {
+			ConsistentHashRing ring = new ConsistentHashRing(servers, Constants.VIRTUALNODES);
+			for(String objectName: Constants.OBJECTS) {
+				table.addObject(objectName, ring.getReplicas(objectName, Constants.REPLICATIONFACTOR));
+			}
+			return table;
+		}
+		int numOfReplicas = Math.min(Constants.REPLICATIONFACTOR, servers.length);
+		for(int i = 0; i < Constants.OBJECTS.length; i++) {
+			String[] replicas = new String[numOfReplicas];
+			for(int j = 0; j < numOfReplicas; j++) {
+				replicas[j] = servers[(i + j) % servers.length];
+			}
+			table.addObject(Constants.OBJECTS[i], replicas);
+		}
+		return table;
+	}
+
+	public synchronized void loadPlacementTable(PlacementTable table) {
+		if(placementLoaded) {
+			return;
+		}
+		logger.debug("Placement: "+table);
+		for(String objectName: table.getObjectsAt(Constants.MYNAME)) {
+			try {
+				WriteRequestProcessor writeReqProcessor = new WriteRequestProcessor(objectName, objectSendersToClients, objectSendersToServers);
+				writeReqProcessor.start();
+				writeReqProcessors.put(objectName, writeReqProcessor);
+				logger.debug(objectName);
+			} catch(IOException ioe) {
+				logger.error("Object "+objectName+" could not be opened: "+ioe.getMessage());
+			}
+		}
+		this.placementTable = table;
+		for(Runnable task: tasksWaitingForTable) {
+			task.run();
+		}
+		tasksWaitingForTable.clear();
+		placementLoaded = true;
+	}
+
+	public void processPlacementRequest(PlacementRequest request) {
+		ObjectSender objSender = objectSendersToClients.get(request.getFromNode());
+		if(objSender == null) {
+			objSender = objectSendersToServers.get(request.getFromNode());
+		}
+		if(objSender == null || placementTable == null) {
+			logger.debug("Placement lookup from "+request.getFromNode()+" can not be answered");
+			return;
+		}
+		objSender.submitObject(new PlacementResponse(Constants.MYNAME, placementTable));
+	}
+
+	/*
+	 * The master pushes the table to every server that gets connected to it.
+	 */
+	public void pushPlacementTable(ObjectSender objSender) {
+		if(Constants.MYNAME.equals(Constants.MASTER) && placementTable != null) {
+			objSender.submitObject(new PlacementResponse(Constants.MYNAME, placementTable));
+		}
+	}
+
+	/*
+	 * The flag is only set once the parked tasks have run, and under the same lock, so a message
+	 * that arrives while they run waits for them and never overtakes a message parked before it.
+	 */
+	public void runWhenLoaded(Runnable task) {
+		if(!placementLoaded) {
+			synchronized(this) {
+				if(!placementLoaded) {
+					tasksWaitingForTable.add(task);
+					return;
+				}
+			}
+		}
+		task.run();
+	}
+
+	public PlacementTable getPlacementTable() {
+		return placementTable;
+	}
+}
@@ -1,76 +1,170 @@
 package edu.utdallas.cs6378.server;
 
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
 
 import edu.utdallas.cs6378.client.ObjectSender;
+import edu.utdallas.cs6378.models.Failed;
 import edu.utdallas.cs6378.models.Grant;
+import edu.utdallas.cs6378.models.Inquire;
 import edu.utdallas.cs6378.models.Request;
 import edu.utdallas.cs6378.utilities.Constants;
 /**
- * This class RequestProcessor accepts requests and processes them one by one.
- * This is a thread sub-class that is blocked when a grant is sent to a client.
- * It is unblocked only when a release is received in ObjectReceiver which calls
- * the method resumeProcessing()
- * 
- * @Method: run()
- * this is a synchronized method that is blocked once a grant is sent. All the 
- * requests are polled from ConcurrentSkipListSet which maintains the requests
- * in order as the Request objects are comparable.
- * 
+ * This class RequestProcessor accepts requests for an object and grants them one by one.
+ * The lock on the object is a small state machine: it is either free or granted to one
+ * request, and the requests waiting for it are kept in order in a priority queue as the
+ * Request objects are comparable. Requests and releases are events that are handled on an
+ * executor shared by the request processors of all the objects, so no thread is held by an
+ * object while its lock is granted or while no request is waiting.
+ *
+ * When the property "inquire" is true, the grants follow the inquire/yield/failed extension
+ * of Maekawa's algorithm, so that clients holding grants for younger requests can not block
+ * older ones forever. An older request that arrives while the lock is granted makes the
+ * server inquire the client it has granted. A request that has to wait behind an older one is
+ * told that it failed at this server, so that its client yields the grants it is inquired
+ * about instead of keeping them.
+ *
  * @Method: submitRequest()
- * This is a method that accepts requests to be processed.
- * 
+ * This is a method that accepts requests to be processed. The request is granted at once
+ * if the lock is free and queued otherwise.
+ *
  * @Method: resumeProcessing()
- * This method unblocks the run() method that was previously blocked when grant
- * was sent. This method should be used only when a release is received.
- * 
+ * Frees the lock and grants it to the first waiting request, if any. This method should be
+ * used only when a release is received.
+ *
+ * @Method: submitYield()
+ * Takes the grant back from a client that yielded it, queues its request again and grants
+ * the lock to the oldest waiting request.
+ *
  */
 
-public class RequestProcessor extends Thread {
-	
+public class RequestProcessor {
+
 	@SuppressWarnings("unused")
 	private static Logger logger = Logger.getLogger(RequestProcessor.class);
-	private ConcurrentSkipListSet<Request> requests;
+	private PriorityQueue<Request> waitingRequests;
+	private Request grantedTo;
+	private boolean inquireSent;
 	private ConcurrentHashMap<String, ObjectSender> clientConnections;
-	
-	public RequestProcessor(ConcurrentHashMap<String, ObjectSender> clientConnections) {
-		requests = new ConcurrentSkipListSet<Request>();
+	private Executor executor;
+	private String serverName;
+	private boolean inquireYield;
+	private AtomicLong numOfInquiresSent = new AtomicLong();
+	private AtomicLong numOfFailedSent = new AtomicLong();
+	private AtomicLong numOfYieldsReceived = new AtomicLong();
+
+	public RequestProcessor(ConcurrentHashMap<String, ObjectSender> clientConnections, Executor executor) {
+		this(clientConnections, executor, Constants.MYNAME, Constants.INQUIRE);
+	}
+
+	public RequestProcessor(ConcurrentHashMap<String, ObjectSender> clientConnections, Executor executor,
+			String serverName, boolean inquireYield) {
+		this.waitingRequests = new PriorityQueue<Request>();
 		this.clientConnections = clientConnections;
+		this.executor = executor;
+		this.serverName = serverName;
+		this.inquireYield = inquireYield;
 	}
-	
-	@Override
-	public synchronized void run() {
-		while(!isInterrupted()) {
-			try {
-				Request request = requests.pollFirst();
-				if (request != null) {
-					comment("Sending grant for request "+request.getRequestId()+" to client "+request.getClient());
-					clientConnections.get(request.getClient()).submitObject(new Grant(Constants.MYNAME, request));
-					this.wait();
+
+	public void submitRequest(final Request request) {
+		comment("Received request "+request.getRequestId()+" from "+request.getClient());
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				requestReceived(request);
+			}
+		});
+	}
+
+	public void resumeProcessing() {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				releaseReceived();
+			}
+		});
+	}
+
+	public void submitYield(final Request request) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				yieldReceived(request);
+			}
+		});
+	}
+
+	private synchronized void requestReceived(Request request) {
+		Request oldestWaiting = waitingRequests.peek();
+		waitingRequests.add(request);
+		if(grantedTo == null) {
+			grantNext();
+		} else if(inquireYield) {
+			if(request.compareTo(grantedTo) < 0 && waitingRequests.peek() == request) {
+				// the request that was the oldest one waiting is now behind an older request too
+				if(oldestWaiting != null) {
+					sendFailed(oldestWaiting);
+				}
+				if(!inquireSent) {
+					inquireSent = true;
+					numOfInquiresSent.incrementAndGet();
+					clientConnections.get(grantedTo.getClient()).submitObject(new Inquire(serverName, grantedTo));
 				}
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+			} else {
+				sendFailed(request);
 			}
 		}
-		comment("RequestProcessor has terminated!");
 	}
-	
-	public void submitRequest(Request request) {
-		try {
-			comment("Received request "+request.getRequestId()+" from "+request.getClient());
-			requests.add(request);
-		} catch(Exception e) {
-			e.printStackTrace();
+
+	private synchronized void releaseReceived() {
+		grantedTo = null;
+		grantNext();
+	}
+
+	/*
+	 * A yield that crossed a release or a later grant to the same client is ignored, only the
+	 * request that holds the lock can give it back.
+	 */
+	private synchronized void yieldReceived(Request request) {
+		if(grantedTo == null || grantedTo.compareTo(request) != 0 || !grantedTo.getRequestId().equals(request.getRequestId())) {
+			return;
 		}
+		numOfYieldsReceived.incrementAndGet();
+		waitingRequests.add(grantedTo);
+		grantedTo = null;
+		grantNext();
+	}
+
+	private void grantNext() {
+		inquireSent = false;
+		grantedTo = waitingRequests.poll();
+		if(grantedTo != null) {
+			comment("Sending grant for request "+grantedTo.getRequestId()+" to client "+grantedTo.getClient());
+			clientConnections.get(grantedTo.getClient()).submitObject(new Grant(serverName, grantedTo));
+		}
+	}
+
+	private void sendFailed(Request request) {
+		numOfFailedSent.incrementAndGet();
+		clientConnections.get(request.getClient()).submitObject(new Failed(serverName, request));
+	}
+
+	public long getNumOfInquiresSent() {
+		return numOfInquiresSent.get();
 	}
-	
-	public synchronized void resumeProcessing() {
-		this.notify();
+
+	public long getNumOfFailedSent() {
+		return numOfFailedSent.get();
 	}
-	
+
+	public long getNumOfYieldsReceived() {
+		return numOfYieldsReceived.get();
+	}
+
 	private void comment(String message) {
 		//logger.debug(message);
 	}
@@ -1,20 +1,37 @@
 package edu.utdallas.cs6378.server;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 
 import edu.utdallas.cs6378.client.ObjectSender;
+import edu.utdallas.cs6378.models.Invalidation;
+import edu.utdallas.cs6378.models.Mutation;
+import edu.utdallas.cs6378.models.MutationAck;
+import edu.utdallas.cs6378.models.ReadRequest;
+import edu.utdallas.cs6378.models.ReadResponse;
 import edu.utdallas.cs6378.models.RequestToWrite;
+import edu.utdallas.cs6378.models.TransactionId;
 import edu.utdallas.cs6378.models.WriteCall;
 import edu.utdallas.cs6378.models.WriteResponse;
 import edu.utdallas.cs6378.utilities.Constants;
+import edu.utdallas.cs6378.utilities.Histogram;
+import edu.utdallas.cs6378.utilities.Metrics;
+import edu.utdallas.cs6378.utilities.NodeThread;
+import edu.utdallas.cs6378.utilities.TimedQueue;
 
 /**
  * This class has methods that provide exclusive access to an object stored at this server.
@@ -22,21 +39,122 @@ import edu.utdallas.cs6378.utilities.Constants;
  * object. Function of each of the methods in this class are explained at the function
  * implementation 
  * 
+ * Staged messages are kept in a table keyed by the transaction id of their RequestToWrite,
+ * so prepares from many clients can be staged at the same time. Transactions are applied
+ * (committed or aborted) strictly in the order of their transaction ids: a decided
+ * transaction waits until all the transactions staged before it have been decided.
+ * Hence every replica applies the writes on an object in the same order.
+ * 
+ * Committed messages are appended to the ObjectStore of the object. All the WriteCalls that
+ * are queued when the processor wakes up are applied together and the store is synced once
+ * before any of their "done" responses is sent, so with group durability one fsync covers
+ * every commit of the batch. The batches are per object: under the default quorum ordering a
+ * client holds the lock of the object for the whole 2-phase commit, so there is never more than
+ * one WriteCall of an object to apply and group durability costs one fsync per commit like
+ * commit durability. Nor do batches form under "optimistic" ordering, as a replica stages a
+ * single compare-and-set of an object at a time. Batches of several records only form under
+ * "lease" ordering, where many mutations of an object are in flight at once. Once the batch
+ * has committed, the clients that cache the object are sent an Invalidation with its new
+ * version.
+ * 
+ * When the property "ordering" is "lease", writes come as Mutations instead. This processor
+ * numbers the mutations of its object and chooses their offsets (record append) when this
+ * server is the primary, and every replica applies them strictly in the order of their serial
+ * numbers at those offsets. The primary answers the client once every secondary has
+ * acknowledged the mutation.
+ * 
+ * When the property "ordering" is "optimistic", a RequestToWrite is a compare-and-set: it
+ * carries the version of the object that the client expects and a replica votes yes only if
+ * that is its current version and no other compare-and-set on the object is staged. The
+ * client commits once a majority of the replicas has voted yes, and then every replica applies
+ * the write whatever it voted. The committed compare-and-sets are applied in the order of the
+ * versions they expected rather than of their transaction ids: a retry may carry a smaller id
+ * than a write that was committed before it, and a replica that lags behind would otherwise
+ * apply the two the other way round. Hence the replicas stay identical.
+ * 
  */
 
-public class WriteRequestProcessor extends Thread {
+public class WriteRequestProcessor extends NodeThread {
 
 	private static Logger logger = Logger.getLogger(WriteRequestProcessor.class);
 	private ConcurrentHashMap<String, ObjectSender> clientConnections;
+	private ConcurrentHashMap<String, ObjectSender> serverConnections;
 	private String objectName;
-	private ArrayBlockingQueue<WriteCall> queue = new ArrayBlockingQueue<WriteCall>(10);
-	private Random randomGenerator = new Random();
-	private String stagedStringToBeWritten;
+	public static final String OPTIMISTIC = "optimistic";
+	private TimedQueue<Object> queue = new TimedQueue<Object>("write");
+	private final String serverName;
+	private final float probabilityOfYes;
+	private final Random randomGenerator;
+	private ConcurrentSkipListMap<TransactionId, StagedTransaction> stagedTransactions;
+	private TreeMap<Long, StagedTransaction> committedCompareAndSets = new TreeMap<Long, StagedTransaction>();
+	private ObjectStore objectStore;
+	private final Histogram commitMicros;
+	private long nextSerialNumber;
+	private long nextSerialNumberToApply;
+	private long nextOffset;
+	private TransactionId versionReservedBy;
+	private Map<Long, Mutation> receivedMutations = new TreeMap<Long, Mutation>();
+	private ConcurrentHashMap<Long, PendingMutation> pendingMutations = new ConcurrentHashMap<Long, PendingMutation>();
+	private long lastInvalidatedVersion;
+	private Set<String> cachingClients = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 	
-	public WriteRequestProcessor(String objectName, ConcurrentHashMap<String, ObjectSender> clientConnections) {
+	public WriteRequestProcessor(String objectName, ConcurrentHashMap<String, ObjectSender> clientConnections,
+			ConcurrentHashMap<String, ObjectSender> serverConnections) throws IOException {
+		this(Constants.MYNAME, objectName, new ObjectStore(Constants.DATADIR+File.separator+Constants.MYNAME, objectName,
+				Constants.DURABILITY, Constants.CHUNKSIZE), Constants.PROBABILITYOFYES, new Random(), clientConnections, serverConnections);
+	}
+	
+	/*
+	 * Creates the processor of an object of the given server without reading the properties, as
+	 * the simulator does for every server it runs.
+	 */
+	public WriteRequestProcessor(String serverName, String objectName, ObjectStore objectStore, float probabilityOfYes,
+			Random randomGenerator, ConcurrentHashMap<String, ObjectSender> clientConnections,
+			ConcurrentHashMap<String, ObjectSender> serverConnections) throws IOException {
+		this.serverName = serverName;
 		this.objectName = objectName;
+		this.commitMicros = Metrics.histogram("server.commit."+objectName+".us");
 		this.clientConnections = clientConnections;
-		this.stagedStringToBeWritten = null;
+		this.serverConnections = serverConnections;
+		this.stagedTransactions = new ConcurrentSkipListMap<TransactionId, StagedTransaction>();
+		this.objectStore = objectStore;
+		this.probabilityOfYes = probabilityOfYes;
+		this.randomGenerator = randomGenerator;
+		this.nextOffset = objectStore.size();
+		this.lastInvalidatedVersion = objectStore.getVersion();
+	}
+	
+	/*
+	 * A message that has been staged by a RequestToWrite and the WriteCall that decides its
+	 * fate once it has been received.
+	 */
+	private static class StagedTransaction {
+		private final RequestToWrite requestToWrite;
+		private final boolean votedYes;
+		private WriteCall writeCall;
+		
+		private StagedTransaction(RequestToWrite requestToWrite, boolean votedYes) {
+			this.requestToWrite = requestToWrite;
+			this.votedYes = votedYes;
+		}
+	}
+	
+	/*
+	 * A mutation ordered by this server as the primary, with the number of replicas (this one
+	 * included) that have still to apply it and the response for the client once they have.
+	 */
+	private static class PendingMutation {
+		private final Mutation mutation;
+		private final AtomicInteger numOfReplicasLeft;
+		private final String response;
+		private final long start;
+		
+		private PendingMutation(Mutation mutation, int numOfReplicas, String response) {
+			this.mutation = mutation;
+			this.response = response;
+			this.numOfReplicasLeft = new AtomicInteger(numOfReplicas);
+			this.start = System.nanoTime();
+		}
 	}
 	
 	/*
@@ -46,50 +164,288 @@ public class WriteRequestProcessor extends Thread {
 	 * received from client through an instance of WriteCall class. 
 	 * 
 	 * Message to be written/committed is obtained when an instance of RequestToWrite is received from
-	 * the client. That message is staged in the instance variable "stagedStringToBeWritten".
+	 * the client. That message is staged in the table "stagedTransactions" under its transaction id.
+	 * A WriteCall records the decision for its transaction and then all the decided transactions at
+	 * the head of the table are applied in order.
 	 * 
-	 * As soon as the action is performed, a "done" response is sent to the client which issued request
+	 * All the WriteCalls queued at that moment are processed together. Once their actions are performed
+	 * and the store has been synced, a "done" response is sent to each client which issued request
 	 * to write to this object. Please note that ObjectSenders to clients are accessible to each and 
 	 * every instance of this object from the instance variable clientConnections. 
 	 */
 	@Override
 	public void run() {
+		List<Object> writeCalls = new ArrayList<Object>();
 		while(!isInterrupted()) {
 			try {
-				WriteCall writeCall = queue.take();
-				if (Constants.COMMIT.equals(writeCall.getAction()) && stagedStringToBeWritten != null) {
-					BufferedWriter bufferedWriter = null;
-					try {
-						bufferedWriter = new BufferedWriter(new FileWriter(
-								Constants.MYNAME + File.separator + objectName,
-								true));
-						bufferedWriter.write(this.stagedStringToBeWritten);
-						bufferedWriter.write("\n");
-						bufferedWriter.close();
-						logger.debug("Writing message \""+this.stagedStringToBeWritten+"\" to "+objectName);
-					} catch(IOException ioe) {
-						ioe.printStackTrace();
-						try {
-							bufferedWriter.close();
-						} catch (IOException e1) {
-							e1.printStackTrace();
-						}
-					}
-				} else {
-					logger.debug("Aborting message \""+stagedStringToBeWritten+"\" to "+this.objectName);
-				}
-				this.stagedStringToBeWritten = null;
-				this.clientConnections.get(writeCall.getFromClient()).submitObject(new WriteResponse(Constants.MYNAME, Constants.DONE));
+				writeCalls.add(queue.take());
+				queue.drainTo(writeCalls);
+				processWriteCalls(writeCalls);
 			} catch (InterruptedException ie) {
 				Thread.currentThread().interrupt();
+			} finally {
+				writeCalls.clear();
+			}
+		}
+		objectStore.close();
+	}
+	
+	/*
+	 * Processes a batch of WriteCalls and Mutations as run() does with the ones it takes from the
+	 * queue. The simulator calls it directly, on the thread that delivers the messages.
+	 */
+	public void processWriteCalls(List<Object> writeCalls) {
+		List<WriteCall> appliedWriteCalls = new ArrayList<WriteCall>();
+		List<Mutation> appliedMutations = new ArrayList<Mutation>();
+		long start = System.nanoTime();
+		for(Object object: writeCalls) {
+			if(object instanceof Mutation) {
+				Mutation mutation = (Mutation) object;
+				receivedMutations.put(mutation.getSerialNumber(), mutation);
+				applyOrderedMutations(appliedMutations);
+				continue;
+			}
+			WriteCall writeCall = (WriteCall) object;
+			StagedTransaction staged = writeCall.getTransactionId() == null ? null
+					: stagedTransactions.get(writeCall.getTransactionId());
+			if(staged == null) {
+				logger.debug("No message is staged for "+writeCall.getTransactionId()+" in "+this.objectName);
+				appliedWriteCalls.add(writeCall);
+				continue;
+			}
+			staged.writeCall = writeCall;
+			if(staged.requestToWrite.getExpectedVersion() >= 0) {
+				stagedTransactions.remove(writeCall.getTransactionId());
+				applyCompareAndSets(staged, appliedWriteCalls);
+			} else {
+				applyDecidedTransactions(appliedWriteCalls);
+			}
+		}
+		try {
+			objectStore.sync();
+		} catch(IOException ioe) {
+			ioe.printStackTrace();
+		}
+		long commitTime = (System.nanoTime() - start) / 1000;
+		if(objectStore.getVersion() != lastInvalidatedVersion) {
+			lastInvalidatedVersion = objectStore.getVersion();
+			sendInvalidations(lastInvalidatedVersion);
+		}
+		for(WriteCall writeCall: appliedWriteCalls) {
+			commitMicros.record(commitTime);
+			sendDone(writeCall);
+		}
+		for(Mutation mutation: appliedMutations) {
+			acknowledge(mutation);
+		}
+	}
+	
+	/*
+	 * Applies the decided transactions at the head of the table in order and collects their
+	 * WriteCalls. The "done" responses are sent by the caller once the store has been synced.
+	 */
+	private void applyDecidedTransactions(List<WriteCall> appliedWriteCalls) {
+		Map.Entry<TransactionId, StagedTransaction> head;
+		while((head = stagedTransactions.firstEntry()) != null && head.getValue().writeCall != null) {
+			StagedTransaction staged = head.getValue();
+			stagedTransactions.remove(head.getKey());
+			if (Constants.COMMIT.equals(staged.writeCall.getAction()) && staged.votedYes) {
+				append(staged);
+			} else {
+				logger.debug("Aborting message \""+staged.requestToWrite.getStringToBeWritten()+"\" to "+this.objectName);
+			}
+			appliedWriteCalls.add(staged.writeCall);
+		}
+	}
+	
+	/*
+	 * Applies a decided compare-and-set. An aborted one is answered right away, a committed one
+	 * waits until this replica has reached the version it expected, which it does once the
+	 * compare-and-set committed at the previous version has been applied. Only one
+	 * compare-and-set is committed per version, as a replica reserves a version for a single one.
+	 */
+	private void applyCompareAndSets(StagedTransaction decided, List<WriteCall> appliedWriteCalls) {
+		if(!Constants.COMMIT.equals(decided.writeCall.getAction())) {
+			logger.debug("Aborting message \""+decided.requestToWrite.getStringToBeWritten()+"\" to "+this.objectName);
+			releaseVersion(decided.requestToWrite.getTransactionId());
+			appliedWriteCalls.add(decided.writeCall);
+		} else {
+			committedCompareAndSets.put(decided.requestToWrite.getExpectedVersion(), decided);
+		}
+		Map.Entry<Long, StagedTransaction> next;
+		while((next = committedCompareAndSets.firstEntry()) != null && next.getKey() <= objectStore.getVersion()) {
+			StagedTransaction staged = next.getValue();
+			committedCompareAndSets.remove(next.getKey());
+			if(next.getKey() == objectStore.getVersion()) {
+				append(staged);
+			} else {
+				logger.error("Compare-and-set "+staged.requestToWrite.getTransactionId()+" on "+objectName+" expected version "
+						+next.getKey()+" which this replica has already passed");
+			}
+			releaseVersion(staged.requestToWrite.getTransactionId());
+			appliedWriteCalls.add(staged.writeCall);
+		}
+	}
+	
+	private void append(StagedTransaction staged) {
+		String stagedStringToBeWritten = staged.requestToWrite.getStringToBeWritten();
+		try {
+			objectStore.append(stagedStringToBeWritten);
+			logger.debug("Writing message \""+stagedStringToBeWritten+"\" to "+objectName);
+		} catch(IOException ioe) {
+			ioe.printStackTrace();
+		}
+	}
+	
+	/*
+	 * Applies the received mutations that follow the last applied one without a gap.
+	 */
+	private void applyOrderedMutations(List<Mutation> appliedMutations) {
+		Mutation mutation;
+		while((mutation = receivedMutations.remove(nextSerialNumberToApply)) != null) {
+			try {
+				objectStore.writeRecord(mutation.getOffset(), mutation.getStringToBeWritten());
+				logger.debug("Writing mutation "+mutation.getSerialNumber()+" \""+mutation.getStringToBeWritten()+"\" to "+objectName
+						+" at offset "+mutation.getOffset());
+			} catch(IOException ioe) {
+				ioe.printStackTrace();
+			}
+			nextSerialNumberToApply++;
+			appliedMutations.add(mutation);
+		}
+	}
+	
+	private void acknowledge(Mutation mutation) {
+		if(serverName.equals(mutation.getPrimary())) {
+			mutationApplied(mutation.getSerialNumber());
+		} else {
+			serverConnections.get(mutation.getPrimary()).submitObject(
+					new MutationAck(serverName, objectName, mutation.getSerialNumber()));
+		}
+	}
+	
+	/*
+	 * Called at the primary once a replica has applied the mutation with the given serial number.
+	 * The client is answered when all the replicas have applied it.
+	 */
+	public void mutationApplied(long serialNumber) {
+		PendingMutation pending = pendingMutations.get(serialNumber);
+		if(pending == null || pending.numOfReplicasLeft.decrementAndGet() > 0) {
+			return;
+		}
+		pendingMutations.remove(serialNumber);
+		commitMicros.record((System.nanoTime() - pending.start) / 1000);
+		WriteResponse response = new WriteResponse(serverName, pending.response, pending.mutation.getRequestId());
+		response.setOffset(pending.mutation.getOffset());
+		this.clientConnections.get(pending.mutation.getFromClient()).submitObject(response);
+	}
+	
+	/*
+	 * Orders a record append received from a client while this server holds the lease on the
+	 * object. The primary chooses the offset of the record, which is the end of the records
+	 * ordered so far. A record never crosses the end of a chunk: if it does not fit in what is
+	 * left of the current chunk, the rest of the chunk is padded instead on every replica and the
+	 * client is told to retry, so that its record goes into the next chunk. A record larger than
+	 * a chunk is refused.
+	 * 
+	 * The serial number and the offset are assigned and the mutation is forwarded to the
+	 * secondaries under the same lock, so every secondary receives the mutations in the order of
+	 * their serial numbers.
+	 */
+	public void processMutation(Mutation mutation, String[] secondaries) {
+		long chunkSize = objectStore.getChunkSize();
+		int recordLength = ObjectStore.getRecordLength(mutation.getStringToBeWritten());
+		if(recordLength > chunkSize) {
+			this.clientConnections.get(mutation.getFromClient()).submitObject(
+					new WriteResponse(serverName, Constants.NO, mutation.getRequestId()));
+			return;
+		}
+		synchronized(pendingMutations) {
+			long roomInChunk = chunkSize - nextOffset % chunkSize;
+			if(recordLength > roomInChunk) {
+				Mutation padding = new Mutation(mutation.getMutationId(), objectName, mutation.getFromClient(),
+						serverName, newPadding((int) roomInChunk));
+				padding.setRequestId(mutation.getRequestId());
+				mutation = padding;
+				order(mutation, secondaries, Constants.RETRY);
+			} else {
+				order(mutation, secondaries, Constants.DONE);
 			}
 		}
+		submitMutation(mutation);
+	}
+	
+	private void order(Mutation mutation, String[] secondaries, String response) {
+		mutation.setSerialNumber(nextSerialNumber++);
+		mutation.setOffset(nextOffset);
+		nextOffset = nextOffset + ObjectStore.getRecordLength(mutation.getStringToBeWritten());
+		mutation.setSecondaries(secondaries);
+		pendingMutations.put(mutation.getSerialNumber(), new PendingMutation(mutation, secondaries.length + 1, response));
+		for(String secondary: secondaries) {
+			serverConnections.get(secondary).submitObject(mutation);
+		}
+	}
+	
+	/*
+	 * A line of blanks that fills the given number of bytes together with its line feed.
+	 */
+	private static String newPadding(int length) {
+		char[] padding = new char[length - 1];
+		Arrays.fill(padding, ' ');
+		return new String(padding);
+	}
+	
+	/*
+	 * Mutations that have a serial number are applied by run() in the order of their numbers.
+	 * The queue is unbounded, so this never blocks the event loop that delivers the mutation.
+	 */
+	public void submitMutation(Mutation mutation) {
+		try {
+			queue.put(mutation);
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	public ObjectStore getObjectStore() {
+		return objectStore;
+	}
+	
+	public Histogram getCommitMicros() {
+		return commitMicros;
+	}
+	
+	/*
+	 * Only the clients that have read this object from this replica for their cache since the last
+	 * invalidation may hold a copy of it, so only they are told the version that the commits of
+	 * this batch have produced, and each of them only by the replica it read from. Nothing is sent
+	 * when no client caches the object. A client is taken out of the set before it is sent the
+	 * invalidation and has to read the object again to be put back. The invalidations are sent
+	 * before the "done" responses, hence a writer never reads its own write back from a stale
+	 * cache entry.
+	 */
+	private void sendInvalidations(long version) {
+		if(cachingClients.isEmpty()) {
+			return;
+		}
+		Invalidation invalidation = new Invalidation(serverName, objectName, version);
+		Iterator<String> clients = cachingClients.iterator();
+		while(clients.hasNext()) {
+			String client = clients.next();
+			clients.remove();
+			clientConnections.get(client).submitObject(invalidation);
+		}
+	}
+	
+	private void sendDone(WriteCall writeCall) {
+		this.clientConnections.get(writeCall.getFromClient()).submitObject(new WriteResponse(serverName, Constants.DONE, writeCall.getRequestId()));
 	}
 	
 	/*
 	 * WriteCall is a message that is received from the client that has information about the action to be taken
 	 * with respect to staged data. These messages are put into a blocking queue which is accessed by the run method
-	 * to process them.
+	 * to process them. The queue is unbounded so that a receiver on the event loop of the nio transport is never held
+	 * up by a slow disk; it holds at most one WriteCall per transaction in flight, which the clients already bound.
 	 */
 	public void submitWriteCall(WriteCall writeCall) {
 		try {
@@ -106,14 +462,65 @@ public class WriteRequestProcessor extends Thread {
 	 * a yes message is sent otherwise a no message is sent. This corresponds to probability of 0.95 for an yes. 
 	 * 
 	 * The messages can be submitted to clients as this object has access to object senders to the clients. 
+	 * 
+	 * This method is called by the receiver threads of many clients at the same time. Every message is
+	 * staged under its own transaction id, so concurrent prepares do not overwrite each other.
 	 */
 	public void processRequestToWrite(RequestToWrite requestToWrite) {
-		int randomNum = randomGenerator.nextInt(100);
-		this.stagedStringToBeWritten = requestToWrite.getStringToBeWritten();
-		if(randomNum < 100 * Constants.PROBABILITYOFYES) {
-			this.clientConnections.get(requestToWrite.getFromClient()).submitObject(new WriteResponse(Constants.MYNAME, Constants.YES));
+		boolean voteYes;
+		if(requestToWrite.getExpectedVersion() >= 0) {
+			voteYes = reserveVersion(requestToWrite);
 		} else {
-			this.clientConnections.get(requestToWrite.getFromClient()).submitObject(new WriteResponse(Constants.MYNAME, Constants.NO));
+			int randomNum = randomGenerator.nextInt(100);
+			voteYes = randomNum < 100 * probabilityOfYes;
+		}
+		if(requestToWrite.getTransactionId() != null) {
+			stagedTransactions.put(requestToWrite.getTransactionId(), new StagedTransaction(requestToWrite, voteYes));
+		}
+		WriteResponse response = new WriteResponse(serverName, voteYes ? Constants.YES : Constants.NO, requestToWrite.getRequestId());
+		response.setVersion(objectStore.getVersion());
+		this.clientConnections.get(requestToWrite.getFromClient()).submitObject(response);
+	}
+	
+	/*
+	 * A compare-and-set that matches the current version reserves the next version of the object
+	 * until it has been committed or aborted, so two writers that expect the same version can not
+	 * both collect a majority.
+	 */
+	private synchronized boolean reserveVersion(RequestToWrite requestToWrite) {
+		if(versionReservedBy != null || requestToWrite.getExpectedVersion() != objectStore.getVersion()) {
+			return false;
+		}
+		versionReservedBy = requestToWrite.getTransactionId();
+		return true;
+	}
+	
+	private synchronized void releaseVersion(TransactionId transactionId) {
+		if(transactionId.equals(versionReservedBy)) {
+			versionReservedBy = null;
+		}
+	}
+	
+	/*
+	 * ReadRequests are answered straight from the object store on the thread that received them.
+	 * They neither wait in the RequestProcessor queue for a critical section nor in the queue of
+	 * this processor, hence reads are not delayed by writes in progress.
+	 * 
+	 * A client that caches the object is recorded before the version is read, so a commit that
+	 * the read does not see is always followed by an invalidation to that client.
+	 */
+	public void processReadRequest(ReadRequest readRequest) {
+		if(readRequest.isCached()) {
+			cachingClients.add(readRequest.getFromClient());
+		}
+		long version = objectStore.getVersion();
+		byte[] data = null;
+		try {
+			data = objectStore.read(readRequest.getOffset(), readRequest.getLength());
+		} catch(IOException ioe) {
+			logger.debug("Read of "+objectName+" failed: "+ioe.getMessage());
 		}
+		this.clientConnections.get(readRequest.getFromClient()).submitObject(new ReadResponse(serverName,
+				objectName, readRequest.getReadId(), readRequest.getOffset(), objectStore.size(), version, data));
 	}
 }
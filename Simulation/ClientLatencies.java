@@ -0,0 +1,35 @@
+package edu.utdallas.cs6378.simulation;
+
+import edu.utdallas.cs6378.utilities.Histogram;
+
+/**
+ * This class holds the latency distributions of the clients of a simulation, with the phases
+ * that ExecuteCriticalSection records: the grant of the quorum, the votes of the prepare, the
+ * dones of the commit and the whole write. Every client records into the same histograms, as
+ * a Histogram of its own for each of them would take most of the memory of a simulation of
+ * thousands of clients.
+ *
+ */
+public class ClientLatencies {
+
+	private final Histogram grantMicros = new Histogram();
+	private final Histogram prepareMicros = new Histogram();
+	private final Histogram commitMicros = new Histogram();
+	private final Histogram writeMicros = new Histogram();
+
+	public Histogram getGrantMicros() {
+		return grantMicros;
+	}
+
+	public Histogram getPrepareMicros() {
+		return prepareMicros;
+	}
+
+	public Histogram getCommitMicros() {
+		return commitMicros;
+	}
+
+	public Histogram getWriteMicros() {
+		return writeMicros;
+	}
+}
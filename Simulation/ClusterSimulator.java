@@ -0,0 +1,373 @@
+package edu.utdallas.cs6378.simulation;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+
+import edu.utdallas.cs6378.client.ExecuteCriticalSection;
+import edu.utdallas.cs6378.client.ObjectSender;
+import edu.utdallas.cs6378.client.QuorumSystem;
+import edu.utdallas.cs6378.client.QuorumSystems;
+import edu.utdallas.cs6378.client.TreeQuorumSystem;
+import edu.utdallas.cs6378.server.ConsistentHashRing;
+import edu.utdallas.cs6378.server.ObjectStore;
+import edu.utdallas.cs6378.server.PlacementService;
+import edu.utdallas.cs6378.utilities.Histogram;
+
+/**
+ * This class is an independent class that has a main method which simulates a whole cluster in
+ * virtual time. This is not part of the project specification.
+ *
+ * The servers and clients of the simulation run the RequestProcessors, WriteRequestProcessors,
+ * RequestStates and quorum systems of the project, and exchange their messages through a
+ * MessageBus instead of sockets, with latencies drawn from configurable distributions. Nothing
+ * waits in real time, so an hour of the cluster is simulated in seconds, and everything is
+ * drawn from one random source, so two runs with the same seed and the same properties make
+ * exactly the same report.
+ *
+ * The workload is given by the properties of server.properties that the simulation knows
+ * (numofrequests, timeunit, waittimefactorlowerbound, waittimefactorupperbound, pipelinewindow,
+ * probabilityofyes, inquire, quorumsystem, quorumweights, quorumrequests, quorumtimeoutms,
+ * placement, replicationfactor, virtualnodes), either from a file or as key=value arguments.
+ * A property prefixed by the name of a server, such as S3.probabilityofyes=0.5, applies to that
+ * server only. The property "latency" is the latency distribution of every link, and
+ * "latency.S3" the one of the links to and from S3 (see LatencyDistributions). The clients make
+ * requests for the given duration of virtual time, or until they have made "numofrequests"
+ * requests if that is set, and the simulation then runs until every request has completed.
+ *
+ * Once it is over, the virtual and real time of the run, the commits, the latency distributions
+ * of the clients and the messages by type are printed as one report, with the commits, aborts
+ * and mean and maximum write latency of every client. The replicas of every
+ * object are then compared and the process exits with status 1 if they differ or if some
+ * clients never completed their requests, which means that the cluster is deadlocked.
+ *
+ * Usage: java edu.utdallas.cs6378.simulation.ClusterSimulator [-servers 7] [-clients 5]
+ *        [-objects 7] [-seed 1] [-duration seconds] [-properties file] [-dir directory]
+ *        [key=value ...]
+ *
+ * @Method: run()
+ * Runs the simulation until no event is left. Returns true if every client completed its
+ * requests.
+ *
+ * @Method: checkReplicas()
+ * Compares the contents of the replicas of every object and returns the objects whose replicas
+ * differ.
+ *
+ * @Method: report()
+ * Returns the throughput, the latency distributions and the message counts of the run.
+ *
+ */
+public class ClusterSimulator {
+
+	private static Logger logger = Logger.getLogger(ClusterSimulator.class);
+	private static final String LATENCY = "latency";
+	private static final int MAX_STALLED_CLIENTS_SHOWN = 20;
+
+	public static void main(String[] args) throws Exception {
+		int numOfServers = 7;
+		int numOfClients = 5;
+		int numOfObjects = 7;
+		long seed = 1;
+		long durationSeconds = 3600;
+		File directory = null;
+		Properties workload = defaultWorkload();
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].startsWith("-") && i + 1 < args.length) {
+				String value = args[++i];
+				if("-servers".equals(args[i - 1])) {
+					numOfServers = Integer.parseInt(value);
+				} else if("-clients".equals(args[i - 1])) {
+					numOfClients = Integer.parseInt(value);
+				} else if("-objects".equals(args[i - 1])) {
+					numOfObjects = Integer.parseInt(value);
+				} else if("-seed".equals(args[i - 1])) {
+					seed = Long.parseLong(value);
+				} else if("-duration".equals(args[i - 1])) {
+					durationSeconds = Long.parseLong(value);
+				} else if("-properties".equals(args[i - 1])) {
+					FileReader reader = new FileReader(value);
+					try {
+						workload.load(reader);
+					} finally {
+						reader.close();
+					}
+				} else if("-dir".equals(args[i - 1])) {
+					directory = new File(value);
+				} else {
+					throw new IllegalArgumentException("Unknown option "+args[i - 1]);
+				}
+			} else if(args[i].contains("=")) {
+				int equals = args[i].indexOf('=');
+				workload.setProperty(args[i].substring(0, equals).trim(), args[i].substring(equals + 1).trim());
+			} else {
+				throw new IllegalArgumentException("Expected an option or key=value, not "+args[i]);
+			}
+		}
+		boolean temporary = directory == null;
+		if(temporary) {
+			directory = Files.createTempDirectory("simulation").toFile();
+		}
+		ClusterSimulator simulation = new ClusterSimulator(numOfServers, numOfClients, numOfObjects, seed,
+				durationSeconds * 1000000, workload, directory);
+		boolean finished = simulation.run();
+		List<String> inconsistentObjects = simulation.checkReplicas();
+		System.out.println(simulation.report());
+		System.out.println(inconsistentObjects.isEmpty() ? "Replicas: consistent"
+				: "Replicas: differ for "+inconsistentObjects);
+		simulation.close();
+		if(temporary) {
+			delete(directory);
+		}
+		System.exit(finished && inconsistentObjects.isEmpty() ? 0 : 1);
+	}
+
+	/*
+	 * The time unit of a real cluster, with a link latency of a local network. The servers
+	 * inquire the clients they have granted, as with thousands of clients the requests reach
+	 * the servers in different orders and the plain protocol deadlocks within a second.
+	 */
+	private static Properties defaultWorkload() {
+		Properties workload = new Properties();
+		workload.setProperty("timeunit", "100");
+		workload.setProperty("numofrequests", "0");
+		workload.setProperty("waittimefactorupperbound", "10");
+		workload.setProperty("waittimefactorlowerbound", "5");
+		workload.setProperty("probabilityofyes", "1.0");
+		workload.setProperty(LATENCY, "lognormal:500:0.5");
+		workload.setProperty("inquire", "true");
+		return workload;
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if(children != null) {
+			for(File child: children) {
+				delete(child);
+			}
+		}
+		if(!file.delete()) {
+			logger.debug("Could not delete "+file);
+		}
+	}
+
+	private final Simulator simulator;
+	private final MessageBus messageBus;
+	private final QuorumSystem quorumSystem;
+	private final String[] objects;
+	private final Map<String, String[]> placement = new LinkedHashMap<String, String[]>();
+	private final Map<String, SimulatedServer> servers = new LinkedHashMap<String, SimulatedServer>();
+	private final Map<String, SimulatedClient> clients = new LinkedHashMap<String, SimulatedClient>();
+	private final ClientLatencies latencies = new ClientLatencies();
+	private final long seed;
+	private final long durationMicros;
+	private long wallNanos;
+
+	public ClusterSimulator(int numOfServers, int numOfClients, int numOfObjects, long seed, long durationMicros,
+			Properties workload, File directory) throws IOException {
+		this.seed = seed;
+		this.durationMicros = durationMicros;
+		this.simulator = new Simulator(seed);
+		String[] serverNames = names("S", numOfServers);
+		String[] clientNames = names("C", numOfClients);
+		this.objects = new String[numOfObjects];
+		for(int i = 0; i < numOfObjects; i++) {
+			objects[i] = "O"+(i + 1)+".txt";
+		}
+		Map<String, LatencyDistribution> nodeLatencies = new HashMap<String, LatencyDistribution>();
+		for(String node: concat(serverNames, clientNames)) {
+			String nodeLatency = workload.getProperty(LATENCY+"."+node);
+			if(nodeLatency != null) {
+				nodeLatencies.put(node, LatencyDistributions.forName(nodeLatency));
+			}
+		}
+		this.messageBus = new MessageBus(simulator, LatencyDistributions.forName(workload.getProperty(LATENCY)), nodeLatencies);
+		this.quorumSystem = QuorumSystems.forName(workload.getProperty("quorumsystem", TreeQuorumSystem.NAME),
+				numOfServers, workload.getProperty("quorumweights", ""));
+		placeObjects(serverNames, workload);
+
+		ConcurrentHashMap<String, ObjectSender> serverConnections = new ConcurrentHashMap<String, ObjectSender>();
+		for(String server: serverNames) {
+			serverConnections.put(server, messageBus.getSender(server));
+		}
+		ConcurrentHashMap<String, ObjectSender> clientConnections = new ConcurrentHashMap<String, ObjectSender>();
+		for(String client: clientNames) {
+			clientConnections.put(client, messageBus.getSender(client));
+		}
+		for(String server: serverNames) {
+			List<String> heldObjects = new ArrayList<String>();
+			for(Map.Entry<String, String[]> entry: placement.entrySet()) {
+				if(Arrays.asList(entry.getValue()).contains(server)) {
+					heldObjects.add(entry.getKey());
+				}
+			}
+			SimulatedServer simulatedServer = new SimulatedServer(server, objects, heldObjects.toArray(new String[0]), directory,
+					Boolean.parseBoolean(getProperty(workload, server, "inquire", "true")),
+					Float.parseFloat(getProperty(workload, server, "probabilityofyes", "1.0")),
+					new Random(simulator.getRandom().nextLong()), clientConnections, serverConnections);
+			servers.put(server, simulatedServer);
+			messageBus.register(server, simulatedServer);
+		}
+		int numOfRequests = Integer.parseInt(workload.getProperty("numofrequests", "0"));
+		long timeUnitMicros = Long.parseLong(workload.getProperty("timeunit")) * 1000;
+		for(String client: clientNames) {
+			SimulatedClient simulatedClient = new SimulatedClient(client, simulator, quorumSystem, objects, placement,
+					serverConnections, latencies);
+			simulatedClient.setWorkload(numOfRequests, durationMicros,
+					Integer.parseInt(workload.getProperty("pipelinewindow", "1")),
+					Integer.parseInt(workload.getProperty("waittimefactorlowerbound")),
+					Integer.parseInt(workload.getProperty("waittimefactorupperbound")), timeUnitMicros);
+			simulatedClient.setTargetedRequests(ExecuteCriticalSection.TARGETED.equalsIgnoreCase(workload.getProperty("quorumrequests")),
+					Long.parseLong(workload.getProperty("quorumtimeoutms", "1000")) * 1000);
+			clients.put(client, simulatedClient);
+			messageBus.register(client, simulatedClient);
+		}
+	}
+
+	private static String[] names(String prefix, int count) {
+		String[] names = new String[count];
+		for(int i = 0; i < count; i++) {
+			names[i] = prefix+(i + 1);
+		}
+		return names;
+	}
+
+	private static String[] concat(String[] first, String[] second) {
+		String[] both = Arrays.copyOf(first, first.length + second.length);
+		System.arraycopy(second, 0, both, first.length, second.length);
+		return both;
+	}
+
+	private static String getProperty(Properties workload, String node, String key, String defaultValue) {
+		String value = workload.getProperty(node+"."+key);
+		return value != null ? value : workload.getProperty(key, defaultValue);
+	}
+
+	/*
+	 * The objects are placed as PlacementService places them on the master.
+	 */
+	private void placeObjects(String[] serverNames, Properties workload) {
+		int replicationFactor = Math.min(Integer.parseInt(workload.getProperty("replicationfactor", "3")), serverNames.length);
+		if(PlacementService.RING.equalsIgnoreCase(workload.getProperty("placement"))) {
+			ConsistentHashRing ring = new ConsistentHashRing(serverNames, Integer.parseInt(workload.getProperty("virtualnodes", "64")));
+			for(String objectName: objects) {
+				placement.put(objectName, ring.getReplicas(objectName, replicationFactor));
+			}
+			return;
+		}
+		for(int i = 0; i < objects.length; i++) {
+			String[] replicas = new String[replicationFactor];
+			for(int j = 0; j < replicationFactor; j++) {
+				replicas[j] = serverNames[(i + j) % serverNames.length];
+			}
+			placement.put(objects[i], replicas);
+		}
+	}
+
+	public boolean run() {
+		long startNanos = System.nanoTime();
+		for(SimulatedClient client: clients.values()) {
+			client.start();
+		}
+		simulator.run(Long.MAX_VALUE);
+		wallNanos = System.nanoTime() - startNanos;
+		return getStalledClients().isEmpty();
+	}
+
+	private List<SimulatedClient> getStalledClients() {
+		List<SimulatedClient> stalledClients = new ArrayList<SimulatedClient>();
+		for(SimulatedClient client: clients.values()) {
+			if(!client.isDone()) {
+				stalledClients.add(client);
+			}
+		}
+		return stalledClients;
+	}
+
+	public List<String> checkReplicas() throws IOException {
+		List<String> inconsistentObjects = new ArrayList<String>();
+		for(Map.Entry<String, String[]> entry: placement.entrySet()) {
+			byte[] first = null;
+			for(String server: entry.getValue()) {
+				ObjectStore objectStore = servers.get(server).getWriteRequestProcessors().get(entry.getKey()).getObjectStore();
+				byte[] contents = objectStore.read(0, (int) objectStore.size());
+				if(first == null) {
+					first = contents;
+				} else if(!Arrays.equals(first, contents)) {
+					inconsistentObjects.add(entry.getKey());
+					break;
+				}
+			}
+		}
+		return inconsistentObjects;
+	}
+
+	public void close() {
+		for(SimulatedServer server: servers.values()) {
+			server.close();
+		}
+	}
+
+	public String report() {
+		long numOfCommits = 0;
+		long numOfAborts = 0;
+		long numOfExpansions = 0;
+		StringBuffer clientLines = new StringBuffer();
+		for(SimulatedClient client: clients.values()) {
+			numOfCommits = numOfCommits + client.getNumOfCommits();
+			numOfAborts = numOfAborts + client.getNumOfAborts();
+			numOfExpansions = numOfExpansions + client.getNumOfExpansions();
+			clientLines.append(String.format("%-6s %8d %8d %12d %12d%n", client.getName(), client.getNumOfCommits(),
+					client.getNumOfAborts(), client.getMeanWriteMicros(), client.getMaxWriteMicros()));
+		}
+		double virtualSeconds = simulator.now() / 1e6;
+		double wallSeconds = wallNanos / 1e9;
+
+		StringBuffer sbuffer = new StringBuffer();
+		sbuffer.append(String.format("Simulation of %d servers and %d clients on %d objects, seed %d, %s%n",
+				servers.size(), clients.size(), objects.length, seed, quorumSystem));
+		sbuffer.append(String.format("Virtual time: %.1f s (requests for %.1f s), %d events, %d messages%n",
+				virtualSeconds, durationMicros / 1e6, simulator.getNumOfEvents(), messageBus.getNumOfMessages()));
+		List<SimulatedClient> stalledClients = getStalledClients();
+		if(!stalledClients.isEmpty()) {
+			sbuffer.append("Deadlocked, requests never completed at ").append(stalledClients.size()).append(" clients:");
+			for(SimulatedClient client: stalledClients.subList(0, Math.min(stalledClients.size(), MAX_STALLED_CLIENTS_SHOWN))) {
+				sbuffer.append(" ").append(client.getName()).append("(").append(client.getNumOfRequestsInFlight()).append(" in flight)");
+			}
+			sbuffer.append(stalledClients.size() > MAX_STALLED_CLIENTS_SHOWN ? " ..." : "").append(String.format("%n"));
+		}
+		sbuffer.append(String.format("Writes: %d committed, %d aborted, %.1f writes/s of virtual time, %d quorum expansions%n%n",
+				numOfCommits, numOfAborts, virtualSeconds > 0 ? (numOfCommits + numOfAborts) / virtualSeconds : 0.0, numOfExpansions));
+		sbuffer.append(String.format("%-6s %8s %8s %12s %12s%n", "client", "commits", "aborts", "mean (us)", "max (us)"));
+		sbuffer.append(clientLines).append(String.format("%n"));
+		sbuffer.append(String.format("%-36s %9s %10s %10s %10s %10s %10s %10s%n",
+				"metric (virtual us)", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+		appendHistogram(sbuffer, "client.grant.us", latencies.getGrantMicros());
+		appendHistogram(sbuffer, "client.prepare.us", latencies.getPrepareMicros());
+		appendHistogram(sbuffer, "client.commit.us", latencies.getCommitMicros());
+		appendHistogram(sbuffer, "client.write.us", latencies.getWriteMicros());
+		sbuffer.append(String.format("%n%-36s %9s%n", "messages", "count"));
+		for(Map.Entry<String, Long> entry: messageBus.getMessageCounts().entrySet()) {
+			sbuffer.append(String.format("%-36s %9d%n", entry.getKey(), entry.getValue()));
+		}
+		sbuffer.append(String.format("%nReal time: %.2f s, %.0f times faster than the cluster", wallSeconds,
+				wallSeconds > 0 ? virtualSeconds / wallSeconds : 0.0));
+		return sbuffer.toString();
+	}
+
+	private static void appendHistogram(StringBuffer sbuffer, String name, Histogram histogram) {
+		sbuffer.append(String.format("%-36s %9d %10.1f %10d %10d %10d %10d %10d%n", name, histogram.getCount(),
+				histogram.getMean(), histogram.getP50(), histogram.getP90(), histogram.getP99(), histogram.getP999(), histogram.getMax()));
+	}
+}
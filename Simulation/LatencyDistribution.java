@@ -0,0 +1,17 @@
+package edu.utdallas.cs6378.simulation;
+
+import java.util.Random;
+
+/**
+ * This interface is the distribution of the one way latency of a link in the simulator. The
+ * latency of every message is drawn from the random source of the simulation, so the latencies
+ * are the same from one run to the next with the same seed.
+ *
+ * @Method: sample()
+ * Returns the latency of a message in microseconds, which is never negative.
+ *
+ */
+public interface LatencyDistribution {
+
+	long sample(Random random);
+}
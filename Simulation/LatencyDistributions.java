@@ -0,0 +1,86 @@
+package edu.utdallas.cs6378.simulation;
+
+import java.util.Random;
+
+/**
+ * This class returns the latency distributions of the simulator from their specification,
+ * a name followed by its parameters in microseconds separated by colons:
+ * constant:500         - every message takes 500 us.
+ * uniform:200:800      - uniform between 200 and 800 us.
+ * exponential:500      - exponential with a mean of 500 us.
+ * normal:500:100       - normal with a mean of 500 us and a deviation of 100 us, cut at 0.
+ * lognormal:500:0.5    - log-normal with a median of 500 us and a sigma of 0.5, which has the
+ *                        long tail of the latencies of a real network.
+ *
+ * @Method: forName()
+ * Returns the latency distribution for the given specification.
+ *
+ */
+public class LatencyDistributions {
+
+	public static final String CONSTANT = "constant";
+	public static final String UNIFORM = "uniform";
+	public static final String EXPONENTIAL = "exponential";
+	public static final String NORMAL = "normal";
+	public static final String LOGNORMAL = "lognormal";
+
+	public static LatencyDistribution forName(String specification) {
+		final String[] parts = specification.trim().split(":");
+		String name = parts[0].trim();
+		if(CONSTANT.equalsIgnoreCase(name) && parts.length == 2) {
+			final long latency = (long) parameter(parts, 1);
+			return new LatencyDistribution() {
+				@Override
+				public long sample(Random random) {
+					return latency;
+				}
+			};
+		} else if(UNIFORM.equalsIgnoreCase(name) && parts.length == 3) {
+			final long lowest = (long) parameter(parts, 1);
+			final long highest = Math.max(lowest, (long) parameter(parts, 2));
+			return new LatencyDistribution() {
+				@Override
+				public long sample(Random random) {
+					return lowest + (long) (random.nextDouble() * (highest - lowest + 1));
+				}
+			};
+		} else if(EXPONENTIAL.equalsIgnoreCase(name) && parts.length == 2) {
+			final double mean = parameter(parts, 1);
+			return new LatencyDistribution() {
+				@Override
+				public long sample(Random random) {
+					return (long) (-mean * Math.log(1 - random.nextDouble()));
+				}
+			};
+		} else if(NORMAL.equalsIgnoreCase(name) && parts.length == 3) {
+			final double mean = parameter(parts, 1);
+			final double deviation = parameter(parts, 2);
+			return new LatencyDistribution() {
+				@Override
+				public long sample(Random random) {
+					return Math.max(0, (long) (mean + deviation * random.nextGaussian()));
+				}
+			};
+		} else if(LOGNORMAL.equalsIgnoreCase(name) && parts.length == 3) {
+			final double logMedian = Math.log(parameter(parts, 1));
+			final double sigma = parameter(parts, 2);
+			return new LatencyDistribution() {
+				@Override
+				public long sample(Random random) {
+					return (long) Math.exp(logMedian + sigma * random.nextGaussian());
+				}
+			};
+		}
+		throw new IllegalArgumentException("Unknown latency distribution \""+specification+"\"! Supported distributions are \""
+				+CONSTANT+":<us>\", \""+UNIFORM+":<from us>:<to us>\", \""+EXPONENTIAL+":<mean us>\", \""
+				+NORMAL+":<mean us>:<deviation us>\" and \""+LOGNORMAL+":<median us>:<sigma>\"");
+	}
+
+	private static double parameter(String[] parts, int index) {
+		double value = Double.parseDouble(parts[index].trim());
+		if(value < 0) {
+			throw new IllegalArgumentException("Latency parameters can not be negative: "+parts[index]);
+		}
+		return value;
+	}
+}
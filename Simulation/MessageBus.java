@@ -0,0 +1,148 @@
+package edu.utdallas.cs6378.simulation;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.utdallas.cs6378.client.ObjectSender;
+import edu.utdallas.cs6378.transport.MessageHandler;
+import edu.utdallas.cs6378.transport.MessageLink;
+
+/**
+ * This class is the in-memory transport of the simulator. It takes the place of the sockets
+ * between the nodes: a message that a node sends is delivered to the MessageHandler of the
+ * node it is sent to, as an event of the simulator, after a latency drawn from the latency
+ * distribution of the link. Messages are not serialized, so the receiver gets the object that
+ * was sent.
+ *
+ * The nodes send their messages through the same ObjectSenders that they use over the nio
+ * transport, on a MessageLink of this bus. There is one ObjectSender per receiving node which
+ * every other node shares, and the sender of a message is the node whose event is running.
+ * Like a TCP connection, the link from one node to another delivers in order: a message is
+ * never delivered before a message that was sent earlier on the same link, whatever its
+ * latency is.
+ *
+ * The latency of a link is the distribution given for the node it goes to, or else the one
+ * given for the node it comes from, or else the default one.
+ *
+ * A node is numbered in the order it is registered, and every node keeps the time of the last
+ * delivery from each other node in an array indexed by that number, so no object is made to
+ * find a link. The servers are registered first, so the array of a client, which only hears
+ * from servers, stays as short as the number of servers.
+ *
+ * @Method: register()
+ * Sets the handler that receives the messages sent to the given node.
+ *
+ * @Method: getSender()
+ * Returns the ObjectSender through which any node sends to the given node.
+ *
+ * @Method: getMessageCounts()
+ * Returns the number of messages delivered so far by type of message.
+ *
+ */
+public class MessageBus {
+
+	private final Simulator simulator;
+	private final LatencyDistribution defaultLatency;
+	private final Map<String, LatencyDistribution> nodeLatencies;
+	private final Map<String, Endpoint> endpoints = new HashMap<String, Endpoint>();
+	private final Map<String, ObjectSender> senders = new HashMap<String, ObjectSender>();
+	private final Map<Class<?>, long[]> messageCounts = new HashMap<Class<?>, long[]>();
+	private long numOfMessages;
+
+	/*
+	 * A registered node, with the latency given for it if any and the time of the last delivery
+	 * to it from every node that has sent to it.
+	 */
+	private static class Endpoint {
+		private final int number;
+		private final MessageHandler handler;
+		private final LatencyDistribution latency;
+		private long[] lastDeliveries = new long[0];
+
+		private Endpoint(int number, MessageHandler handler, LatencyDistribution latency) {
+			this.number = number;
+			this.handler = handler;
+			this.latency = latency;
+		}
+	}
+
+	public MessageBus(Simulator simulator, LatencyDistribution defaultLatency, Map<String, LatencyDistribution> nodeLatencies) {
+		this.simulator = simulator;
+		this.defaultLatency = defaultLatency;
+		this.nodeLatencies = nodeLatencies;
+	}
+
+	public void register(String node, MessageHandler handler) {
+		endpoints.put(node, new Endpoint(endpoints.size(), handler, nodeLatencies.get(node)));
+	}
+
+	public synchronized ObjectSender getSender(final String toNode) {
+		ObjectSender sender = senders.get(toNode);
+		if(sender == null) {
+			sender = new ObjectSender(new MessageLink() {
+				@Override
+				public void send(Object message) throws IOException {
+					post(simulator.getCurrentNode(), toNode, message);
+				}
+			});
+			senders.put(toNode, sender);
+		}
+		return sender;
+	}
+
+	private LatencyDistribution getLatency(Endpoint from, Endpoint to) {
+		if(to.latency != null) {
+			return to.latency;
+		}
+		return from.latency == null ? defaultLatency : from.latency;
+	}
+
+	private void post(String fromNode, String toNode, final Object message) {
+		Endpoint from = fromNode == null ? null : endpoints.get(fromNode);
+		Endpoint to = endpoints.get(toNode);
+		if(from == null || to == null) {
+			throw new IllegalStateException("Can not send "+message.getClass().getSimpleName()+" from "+fromNode+" to "+toNode);
+		}
+		long deliveryTime = simulator.now() + getLatency(from, to).sample(simulator.getRandom());
+		if(from.number >= to.lastDeliveries.length) {
+			to.lastDeliveries = Arrays.copyOf(to.lastDeliveries, Math.max(from.number + 1, 2 * to.lastDeliveries.length));
+		}
+		if(to.lastDeliveries[from.number] > deliveryTime) {
+			deliveryTime = to.lastDeliveries[from.number];
+		}
+		to.lastDeliveries[from.number] = deliveryTime;
+		final MessageHandler handler = to.handler;
+		simulator.scheduleAt(deliveryTime, toNode, new Runnable() {
+			@Override
+			public void run() {
+				count(message);
+				handler.handleMessage(message);
+			}
+		});
+	}
+
+	private void count(Object message) {
+		long[] count = messageCounts.get(message.getClass());
+		if(count == null) {
+			count = new long[1];
+			messageCounts.put(message.getClass(), count);
+		}
+		count[0]++;
+		numOfMessages++;
+	}
+
+	public Map<String, Long> getMessageCounts() {
+		Map<String, Long> counts = new TreeMap<String, Long>();
+		for(Map.Entry<Class<?>, long[]> entry: messageCounts.entrySet()) {
+			counts.put(entry.getKey().getSimpleName(), entry.getValue()[0]);
+		}
+		return counts;
+	}
+
+	public long getNumOfMessages() {
+		return numOfMessages;
+	}
+}
@@ -0,0 +1,323 @@
+package edu.utdallas.cs6378.simulation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+
+import edu.utdallas.cs6378.client.ClientSendWrapper;
+import edu.utdallas.cs6378.client.ObjectSender;
+import edu.utdallas.cs6378.client.QuorumSystem;
+import edu.utdallas.cs6378.client.TwoPhaseCommit;
+import edu.utdallas.cs6378.models.Failed;
+import edu.utdallas.cs6378.models.Grant;
+import edu.utdallas.cs6378.models.Inquire;
+import edu.utdallas.cs6378.models.Invalidation;
+import edu.utdallas.cs6378.models.Release;
+import edu.utdallas.cs6378.models.Request;
+import edu.utdallas.cs6378.models.RequestState;
+import edu.utdallas.cs6378.models.WriteResponse;
+import edu.utdallas.cs6378.transport.MessageHandler;
+
+/**
+ * This class is a client node of the simulator. It makes the same requests as
+ * ExecuteCriticalSection and GrantHandler together, with the same RequestState and
+ * ClientSendWrapper, but as events of the simulator: where ExecuteCriticalSection waits for
+ * a quorum or for the responses of the servers, this client returns and goes on when the
+ * message it waits for is delivered. Requests are stamped with the virtual time, so they are
+ * ordered at the servers by the time they were made in the simulation.
+ *
+ * A request is sent to all the servers or, when the requests are targeted, to one minimal
+ * quorum that is expanded after the quorum timeout. Once a quorum has granted it, the message
+ * is written to the servers that hold the object with the TwoPhaseCommit of ExecuteCriticalSection,
+ * which this client drives with the responses as they are delivered, and the grants are
+ * released. Up to "pipelinewindow" requests are in flight at once, with the wait time of
+ * ExecuteCriticalSection between them. The clients do not cache objects, so invalidations are
+ * only counted. The latencies are recorded in the ClientLatencies that all the clients share.
+ *
+ * @Method: start()
+ * Schedules the first request of this client.
+ *
+ * @Method: handleMessage()
+ * Handles the grants, inquiries and failures of its requests and the responses of the servers
+ * to its 2-phase commits.
+ *
+ * @Method: isDone()
+ * Returns true once this client has made all its requests and none of them is in flight. A
+ * client that is not done when there is no event left is stalled.
+ *
+ */
+public class SimulatedClient implements MessageHandler {
+
+	private static Logger logger = Logger.getLogger(SimulatedClient.class);
+	private final String name;
+	private final Simulator simulator;
+	private final QuorumSystem quorumSystem;
+	private final String[] objects;
+	private final Map<String, String[]> placement;
+	private final ConcurrentHashMap<String, ObjectSender> serverConnections;
+	private final ClientSendWrapper clientSendWrapper;
+	private final Map<Integer, CriticalSection> requestsInFlight = new HashMap<Integer, CriticalSection>();
+	private int numOfRequestsToBeIssued;
+	private long issueUntilMicros;
+	private int pipelineWindow = 1;
+	private int lowerBound = 1;
+	private int upperBound = 2;
+	private long timeUnitMicros = 1000;
+	private boolean targeted;
+	private long quorumTimeoutMicros = 1000000;
+	private boolean waitingForWindow;
+	private int numOfRequestsIssued;
+	private long numOfCommits;
+	private long numOfAborts;
+	private long numOfExpansions;
+	private long numOfInvalidations;
+	private long totalWriteMicros;
+	private long maxWriteMicros;
+	private final ClientLatencies latencies;
+
+	/*
+	 * The state of a request from its issue to its release.
+	 */
+	private static class CriticalSection {
+		private final RequestState rState;
+		private final long issuedAt;
+		private TwoPhaseCommit twoPhaseCommit;
+		private long phaseStartedAt;
+
+		private CriticalSection(RequestState rState, long issuedAt) {
+			this.rState = rState;
+			this.issuedAt = issuedAt;
+		}
+	}
+
+	public SimulatedClient(String name, Simulator simulator, QuorumSystem quorumSystem, String[] objects,
+			Map<String, String[]> placement, ConcurrentHashMap<String, ObjectSender> serverConnections, ClientLatencies latencies) {
+		this.name = name;
+		this.simulator = simulator;
+		this.quorumSystem = quorumSystem;
+		this.objects = objects;
+		this.placement = placement;
+		this.serverConnections = serverConnections;
+		this.latencies = latencies;
+		this.clientSendWrapper = new ClientSendWrapper(serverConnections) {
+			@Override
+			public void submitObject(Object object) {
+				send(object);
+			}
+		};
+	}
+
+	/*
+	 * No more requests are issued after the given virtual time, and at most the given number of
+	 * requests unless it is 0.
+	 */
+	public void setWorkload(int numOfRequests, long issueUntilMicros, int pipelineWindow, int lowerBound, int upperBound,
+			long timeUnitMicros) {
+		this.numOfRequestsToBeIssued = numOfRequests > 0 ? numOfRequests : Integer.MAX_VALUE;
+		this.issueUntilMicros = issueUntilMicros;
+		this.pipelineWindow = Math.max(1, pipelineWindow);
+		this.lowerBound = lowerBound;
+		this.upperBound = Math.max(lowerBound + 1, upperBound);
+		this.timeUnitMicros = timeUnitMicros;
+	}
+
+	public void setTargetedRequests(boolean targeted, long quorumTimeoutMicros) {
+		this.targeted = targeted;
+		this.quorumTimeoutMicros = quorumTimeoutMicros;
+	}
+
+	public void start() {
+		scheduleIssue(waitTime());
+	}
+
+	private long waitTime() {
+		return (lowerBound + simulator.getRandom().nextInt(upperBound - lowerBound)) * timeUnitMicros;
+	}
+
+	private void scheduleIssue(long delayMicros) {
+		simulator.schedule(delayMicros, name, new Runnable() {
+			@Override
+			public void run() {
+				issueRequest();
+			}
+		});
+	}
+
+	/*
+	 * As in ExecuteCriticalSection, a single request at a time waits after its critical section
+	 * before the next one is issued, while pipelined requests wait after they are issued and
+	 * then for room in the window.
+	 */
+	private void issueRequest() {
+		if(numOfRequestsIssued >= numOfRequestsToBeIssued || simulator.now() > issueUntilMicros) {
+			return;
+		}
+		if(requestsInFlight.size() >= pipelineWindow) {
+			waitingForWindow = true;
+			return;
+		}
+		numOfRequestsIssued++;
+		Request request = new Request(simulator.now(), name, numOfRequestsIssued,
+				objects[simulator.getRandom().nextInt(objects.length)]);
+		final RequestState rState = new RequestState(quorumSystem, request, clientSendWrapper);
+		requestsInFlight.put(request.getRequestId(), new CriticalSection(rState, simulator.now()));
+		if(targeted) {
+			rState.requestQuorum(simulator.getRandom());
+			scheduleExpansion(rState);
+		} else {
+			clientSendWrapper.submitObject(request);
+		}
+		if(pipelineWindow > 1) {
+			scheduleIssue(waitTime());
+		}
+	}
+
+	private void scheduleExpansion(final RequestState rState) {
+		simulator.schedule(quorumTimeoutMicros, name, new Runnable() {
+			@Override
+			public void run() {
+				if(rState.expandQuorum()) {
+					numOfExpansions++;
+					scheduleExpansion(rState);
+				}
+			}
+		});
+	}
+
+	@Override
+	public void handleMessage(Object obj) {
+		if(obj instanceof Grant) {
+			processGrant((Grant) obj);
+		} else if(obj instanceof Inquire) {
+			Inquire inquire = (Inquire) obj;
+			CriticalSection criticalSection = requestsInFlight.get(inquire.getRequest().getRequestId());
+			if(criticalSection != null) {
+				criticalSection.rState.processInquire(serverNumber(inquire.getFromServer()));
+			}
+		} else if(obj instanceof Failed) {
+			Failed failed = (Failed) obj;
+			CriticalSection criticalSection = requestsInFlight.get(failed.getRequest().getRequestId());
+			if(criticalSection != null) {
+				criticalSection.rState.processFailed(serverNumber(failed.getFromServer()));
+			}
+		} else if(obj instanceof WriteResponse) {
+			processWriteResponse((WriteResponse) obj);
+		} else if(obj instanceof Invalidation) {
+			numOfInvalidations++;
+		} else {
+			logger.debug(name+" ignores "+obj.getClass().getSimpleName()+" which is not simulated");
+		}
+	}
+
+	private static int serverNumber(String server) {
+		return Integer.parseInt(server.substring(1));
+	}
+
+	/*
+	 * A grant for a request that is no longer in flight comes after its quorum and is released
+	 * at once, as RequestState does for the grants that follow the quorum.
+	 */
+	private void processGrant(Grant grant) {
+		Request request = grant.getRequest();
+		CriticalSection criticalSection = requestsInFlight.get(request.getRequestId());
+		int serverNumber = serverNumber(grant.getFromServer());
+		if(criticalSection == null) {
+			boolean[] releasesToServers = new boolean[quorumSystem.getNumOfServers() + 1];
+			releasesToServers[serverNumber] = true;
+			clientSendWrapper.submitObject(new Release(request.getRequestId(), releasesToServers, request.getForObject()));
+		} else if(criticalSection.rState.updateState(serverNumber)) {
+			latencies.getGrantMicros().record(simulator.now() - criticalSection.issuedAt);
+			prepare(request, criticalSection);
+		}
+	}
+
+	private void prepare(Request request, CriticalSection criticalSection) {
+		criticalSection.twoPhaseCommit = new TwoPhaseCommit(name, request, placement.get(request.getForObject()));
+		criticalSection.phaseStartedAt = simulator.now();
+		sendToReplicas(criticalSection.twoPhaseCommit,
+				criticalSection.twoPhaseCommit.prepare("Message at timestamp: " + simulator.now() + " by client " + name));
+	}
+
+	private void sendToReplicas(TwoPhaseCommit twoPhaseCommit, Object message) {
+		for(String server: twoPhaseCommit.getReplicas()) {
+			serverConnections.get(server).submitObject(message);
+		}
+	}
+
+	private void processWriteResponse(WriteResponse response) {
+		CriticalSection criticalSection = requestsInFlight.get(response.getRequestId());
+		if(criticalSection == null || criticalSection.twoPhaseCommit == null
+				|| !criticalSection.twoPhaseCommit.submitResponse(response)) {
+			return;
+		}
+		if(!criticalSection.twoPhaseCommit.isDecided()) {
+			latencies.getPrepareMicros().record(simulator.now() - criticalSection.phaseStartedAt);
+			criticalSection.phaseStartedAt = simulator.now();
+			sendToReplicas(criticalSection.twoPhaseCommit, criticalSection.twoPhaseCommit.decide());
+		} else {
+			latencies.getCommitMicros().record(simulator.now() - criticalSection.phaseStartedAt);
+			completeRequest(criticalSection);
+		}
+	}
+
+	private void completeRequest(CriticalSection criticalSection) {
+		Request request = criticalSection.rState.getRequest();
+		long writeMicros = simulator.now() - criticalSection.issuedAt;
+		latencies.getWriteMicros().record(writeMicros);
+		totalWriteMicros = totalWriteMicros + writeMicros;
+		maxWriteMicros = Math.max(maxWriteMicros, writeMicros);
+		if(criticalSection.twoPhaseCommit.isCommitted()) {
+			numOfCommits++;
+		} else {
+			numOfAborts++;
+		}
+		requestsInFlight.remove(request.getRequestId());
+		clientSendWrapper.submitObject(new Release(request.getRequestId(),
+				criticalSection.rState.releasesToServers(), request.getForObject()));
+		if(pipelineWindow == 1) {
+			scheduleIssue(waitTime());
+		} else if(waitingForWindow) {
+			waitingForWindow = false;
+			issueRequest();
+		}
+	}
+
+	public boolean isDone() {
+		return requestsInFlight.isEmpty()
+				&& (numOfRequestsIssued >= numOfRequestsToBeIssued || simulator.now() > issueUntilMicros);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getNumOfRequestsInFlight() {
+		return requestsInFlight.size();
+	}
+
+	public long getNumOfCommits() {
+		return numOfCommits;
+	}
+
+	public long getNumOfAborts() {
+		return numOfAborts;
+	}
+
+	public long getNumOfExpansions() {
+		return numOfExpansions;
+	}
+
+	public long getNumOfInvalidations() {
+		return numOfInvalidations;
+	}
+
+	public long getMeanWriteMicros() {
+		return numOfCommits + numOfAborts > 0 ? totalWriteMicros / (numOfCommits + numOfAborts) : 0;
+	}
+
+	public long getMaxWriteMicros() {
+		return maxWriteMicros;
+	}
+}
@@ -0,0 +1,110 @@
+package edu.utdallas.cs6378.simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.apache.log4j.Logger;
+
+import edu.utdallas.cs6378.client.ObjectSender;
+import edu.utdallas.cs6378.models.Release;
+import edu.utdallas.cs6378.models.Request;
+import edu.utdallas.cs6378.models.RequestToWrite;
+import edu.utdallas.cs6378.models.WriteCall;
+import edu.utdallas.cs6378.models.Yield;
+import edu.utdallas.cs6378.server.ObjectStore;
+import edu.utdallas.cs6378.server.RequestProcessor;
+import edu.utdallas.cs6378.server.WriteRequestProcessor;
+import edu.utdallas.cs6378.transport.MessageHandler;
+
+/**
+ * This class is a server node of the simulator. It has the RequestProcessor of every object and
+ * the WriteRequestProcessor of every object that it holds, as a ServerNode has, and dispatches
+ * the messages it receives to them the way ObjectReceiver does. The processors run their events
+ * on the thread of the simulator instead of an executor and a thread per object, and take no
+ * simulated time to process a message.
+ *
+ * The objects are stored in a folder of their own for every server with a durability of "none",
+ * as the disk is not simulated.
+ *
+ * @Method: handleMessage()
+ * Hands a Request, Release or Yield to the RequestProcessor of its object and a RequestToWrite
+ * or WriteCall to the WriteRequestProcessor of its object.
+ *
+ */
+public class SimulatedServer implements MessageHandler {
+
+	private static Logger logger = Logger.getLogger(SimulatedServer.class);
+	private static final Executor DIRECT_EXECUTOR = new Executor() {
+		@Override
+		public void execute(Runnable task) {
+			task.run();
+		}
+	};
+	private final String name;
+	private final Map<String, RequestProcessor> reqProcessors = new TreeMap<String, RequestProcessor>();
+	private final Map<String, WriteRequestProcessor> writeReqProcessors = new TreeMap<String, WriteRequestProcessor>();
+
+	public SimulatedServer(String name, String[] objects, String[] heldObjects, File directory, boolean inquireYield,
+			float probabilityOfYes, Random randomGenerator, ConcurrentHashMap<String, ObjectSender> clientConnections,
+			ConcurrentHashMap<String, ObjectSender> serverConnections) throws IOException {
+		this.name = name;
+		for(String objectName: objects) {
+			reqProcessors.put(objectName, new RequestProcessor(clientConnections, DIRECT_EXECUTOR, name, inquireYield));
+		}
+		File serverDirectory = new File(directory, name);
+		serverDirectory.mkdirs();
+		for(String objectName: heldObjects) {
+			ObjectStore objectStore = new ObjectStore(serverDirectory.getPath(), objectName, ObjectStore.NONE);
+			writeReqProcessors.put(objectName, new WriteRequestProcessor(name, objectName, objectStore, probabilityOfYes,
+					randomGenerator, clientConnections, serverConnections));
+		}
+	}
+
+	@Override
+	public void handleMessage(Object obj) {
+		if(obj instanceof Request) {
+			reqProcessors.get(((Request) obj).getForObject()).submitRequest((Request) obj);
+		} else if(obj instanceof Release) {
+			reqProcessors.get(((Release) obj).getRequestedObject()).resumeProcessing();
+		} else if(obj instanceof Yield) {
+			Request request = ((Yield) obj).getRequest();
+			reqProcessors.get(request.getForObject()).submitYield(request);
+		} else if(obj instanceof RequestToWrite) {
+			RequestToWrite reqToWrite = (RequestToWrite) obj;
+			getWriteRequestProcessor(reqToWrite.getForObject()).processRequestToWrite(reqToWrite);
+		} else if(obj instanceof WriteCall) {
+			WriteCall writeCall = (WriteCall) obj;
+			getWriteRequestProcessor(writeCall.getForObject()).processWriteCalls(Collections.<Object>singletonList(writeCall));
+		} else {
+			logger.debug(name+" ignores "+obj.getClass().getSimpleName()+" which is not simulated");
+		}
+	}
+
+	private WriteRequestProcessor getWriteRequestProcessor(String objectName) {
+		WriteRequestProcessor writeReqProcessor = writeReqProcessors.get(objectName);
+		if(writeReqProcessor == null) {
+			throw new IllegalStateException(objectName+" is not held at "+name);
+		}
+		return writeReqProcessor;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Map<String, WriteRequestProcessor> getWriteRequestProcessors() {
+		return writeReqProcessors;
+	}
+
+	public void close() {
+		for(WriteRequestProcessor writeReqProcessor: writeReqProcessors.values()) {
+			writeReqProcessor.getObjectStore().close();
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package edu.utdallas.cs6378.simulation;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * This class is the core of the discrete-event simulator. Time is virtual and counted in
+ * microseconds from the start of the simulation. Events are kept in a priority queue ordered by
+ * their time and, for events at the same time, by the order in which they were scheduled, so a
+ * simulation that starts from the same seed runs the same events in the same order.
+ *
+ * Every event belongs to a node. While an event runs, that node is the current node, which is
+ * how the message bus knows the sender of a message without a connection per pair of nodes.
+ * All the events run on the thread that calls run(), one after the other.
+ *
+ * @Method: schedule()
+ * Runs the given task on behalf of the given node after the given delay in microseconds.
+ *
+ * @Method: run()
+ * Runs the events in the order of their time until the queue is empty or the next event is
+ * later than the given time. Returns the number of events it ran.
+ *
+ * @Method: getRandom()
+ * Returns the random source of the simulation, which every node draws from in the order of the
+ * events.
+ *
+ */
+public class Simulator {
+
+	private final PriorityQueue<Event> events = new PriorityQueue<Event>();
+	private final Random random;
+	private long now;
+	private long nextSequence;
+	private long numOfEvents;
+	private String currentNode;
+
+	private static class Event implements Comparable<Event> {
+		private final long time;
+		private final long sequence;
+		private final String node;
+		private final Runnable task;
+
+		private Event(long time, long sequence, String node, Runnable task) {
+			this.time = time;
+			this.sequence = sequence;
+			this.node = node;
+			this.task = task;
+		}
+
+		@Override
+		public int compareTo(Event o) {
+			if(time != o.time) {
+				return time < o.time ? -1 : 1;
+			}
+			return sequence < o.sequence ? -1 : (sequence == o.sequence ? 0 : 1);
+		}
+	}
+
+	public Simulator(long seed) {
+		this.random = new Random(seed);
+	}
+
+	public void schedule(long delayMicros, String node, Runnable task) {
+		events.add(new Event(now + Math.max(0, delayMicros), nextSequence++, node, task));
+	}
+
+	/*
+	 * Schedules the task at the given time, which must not be in the past.
+	 */
+	public void scheduleAt(long timeMicros, String node, Runnable task) {
+		schedule(timeMicros - now, node, task);
+	}
+
+	public long run(long untilMicros) {
+		long numOfEventsRun = 0;
+		Event event;
+		while((event = events.peek()) != null && event.time <= untilMicros) {
+			events.poll();
+			now = event.time;
+			currentNode = event.node;
+			try {
+				event.task.run();
+			} finally {
+				currentNode = null;
+			}
+			numOfEventsRun++;
+		}
+		numOfEvents = numOfEvents + numOfEventsRun;
+		return numOfEventsRun;
+	}
+
+	public long now() {
+		return now;
+	}
+
+	public String getCurrentNode() {
+		return currentNode;
+	}
+
+	public Random getRandom() {
+		return random;
+	}
+
+	public long getNumOfEvents() {
+		return numOfEvents;
+	}
+
+	public boolean isIdle() {
+		return events.isEmpty();
+	}
+}
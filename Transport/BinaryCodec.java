@@ -0,0 +1,555 @@
+package edu.utdallas.cs6378.transport;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.List;
+
+import edu.utdallas.cs6378.models.DataPiece;
+import edu.utdallas.cs6378.models.Failed;
+import edu.utdallas.cs6378.models.Grant;
+import edu.utdallas.cs6378.models.Identity;
+import edu.utdallas.cs6378.models.Inquire;
+import edu.utdallas.cs6378.models.Invalidation;
+import edu.utdallas.cs6378.models.Lease;
+import edu.utdallas.cs6378.models.LeaseRequest;
+import edu.utdallas.cs6378.models.Mutation;
+import edu.utdallas.cs6378.models.MutationAck;
+import edu.utdallas.cs6378.models.PlacementRequest;
+import edu.utdallas.cs6378.models.PlacementResponse;
+import edu.utdallas.cs6378.models.PlacementTable;
+import edu.utdallas.cs6378.models.ReadRequest;
+import edu.utdallas.cs6378.models.ReadResponse;
+import edu.utdallas.cs6378.models.Release;
+import edu.utdallas.cs6378.models.Request;
+import edu.utdallas.cs6378.models.RequestToWrite;
+import edu.utdallas.cs6378.models.TransactionId;
+import edu.utdallas.cs6378.models.WriteCall;
+import edu.utdallas.cs6378.models.WriteResponse;
+import edu.utdallas.cs6378.models.Yield;
+
+/**
+ * This codec writes every message as a length prefixed frame with a one byte type tag
+ * followed by the fixed fields of that message. Unlike java serialization, no class
+ * descriptors are written and a Grant only carries the fields of its request that
+ * identify it (timestamp, client, request id and object) instead of the full request.
+ *
+ * Frame layout: [int length of body][byte tag][fields of the message]
+ *
+ * A batch of messages is a single frame with the tag TAG_BATCH followed by the number of
+ * messages and then the tag and fields of each of them.
+ *
+ * @Method: encode()
+ * Writes the tag and the fields of a message. The grant status of a release is packed
+ * into bits.
+ *
+ * @Method: decode()
+ * Reads the tag and builds the message of that type from its fields.
+ *
+ */
+public class BinaryCodec implements MessageCodec {
+
+	public static final String NAME = "binary";
+
+	static final byte TAG_REQUEST = 1;
+	static final byte TAG_RELEASE = 2;
+	static final byte TAG_GRANT = 3;
+	static final byte TAG_REQUEST_TO_WRITE = 4;
+	static final byte TAG_WRITE_CALL = 5;
+	static final byte TAG_WRITE_RESPONSE = 6;
+	static final byte TAG_IDENTITY = 7;
+	static final byte TAG_STRING = 8;
+	static final byte TAG_BATCH = 9;
+	static final byte TAG_READ_REQUEST = 10;
+	static final byte TAG_READ_RESPONSE = 11;
+	static final byte TAG_INVALIDATION = 12;
+	static final byte TAG_PLACEMENT_REQUEST = 13;
+	static final byte TAG_PLACEMENT_RESPONSE = 14;
+	static final byte TAG_DATA_PIECE = 15;
+	static final byte TAG_LEASE_REQUEST = 16;
+	static final byte TAG_LEASE = 17;
+	static final byte TAG_MUTATION = 18;
+	static final byte TAG_MUTATION_ACK = 19;
+	static final byte TAG_INQUIRE = 20;
+	static final byte TAG_FAILED = 21;
+	static final byte TAG_YIELD = 22;
+
+	private static final int BUFFER_SIZE = 8192;
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	/*
+	 * Each frame is encoded completely in memory and handed to the socket stream with a
+	 * single write call.
+	 */
+	@Override
+	public MessageWriter newWriter(final OutputStream outStream) throws IOException {
+		final FrameBuffer frame = new FrameBuffer(256);
+		return new MessageWriter() {
+			@Override
+			public void writeMessage(Object message) throws IOException {
+				frame.clear();
+				frame.putInt(0);
+				encode(message, frame);
+				frame.putInt(0, frame.position() - 4);
+				outStream.write(frame.array(), 0, frame.position());
+				outStream.flush();
+			}
+
+			@Override
+			public void writeBatch(List<Object> messages) throws IOException {
+				if(messages.size() == 1) {
+					writeMessage(messages.get(0));
+					return;
+				}
+				frame.clear();
+				frame.putInt(0);
+				frame.putByte(TAG_BATCH);
+				frame.putVarInt(messages.size());
+				for(Object message: messages) {
+					encode(message, frame);
+				}
+				frame.putInt(0, frame.position() - 4);
+				outStream.write(frame.array(), 0, frame.position());
+				outStream.flush();
+			}
+		};
+	}
+
+	@Override
+	public MessageReader newReader(InputStream inStream) throws IOException {
+		final DataInputStream frameInStream = new DataInputStream(new BufferedInputStream(inStream, BUFFER_SIZE));
+		final FrameBuffer frame = new FrameBuffer(256);
+		final ArrayDeque<Object> batched = new ArrayDeque<Object>();
+		return new MessageReader() {
+			@Override
+			public Object readMessage() throws IOException {
+				if(!batched.isEmpty()) {
+					return batched.poll();
+				}
+				int length = frameInStream.readInt();
+				if(length <= 0) {
+					throw new IOException("Invalid frame length "+length);
+				}
+				frameInStream.readFully(frame.ensureCapacity(length), 0, length);
+				frame.wrap(length);
+				if(frame.peekByte() == TAG_BATCH) {
+					frame.getByte();
+					int numOfMessages = frame.getVarInt();
+					for(int i = 0; i < numOfMessages; i++) {
+						batched.add(decode(frame));
+					}
+					return batched.poll();
+				}
+				return decode(frame);
+			}
+		};
+	}
+
+	@Override
+	public ByteBuffer encodeFrame(Object message) throws IOException {
+		FrameBuffer frame = new FrameBuffer(64);
+		frame.putInt(0);
+		encode(message, frame);
+		frame.putInt(0, frame.position() - 4);
+		return ByteBuffer.wrap(frame.array(), 0, frame.position());
+	}
+
+	@Override
+	public Object decodeFrame(byte[] body, int length) throws IOException {
+		FrameBuffer frame = new FrameBuffer(body);
+		frame.wrap(length);
+		return decode(frame);
+	}
+
+	void encode(Object message, FrameBuffer out) throws IOException {
+		if(message instanceof Request) {
+			out.putByte(TAG_REQUEST);
+			writeRequest((Request) message, out);
+		} else if(message instanceof Release) {
+			Release release = (Release) message;
+			out.putByte(TAG_RELEASE);
+			out.putInt(release.getRequestId());
+			out.putString(release.getRequestedObject());
+			writeBits(release.getReleasesToServers(), out);
+		} else if(message instanceof Grant) {
+			Grant grant = (Grant) message;
+			out.putByte(TAG_GRANT);
+			out.putString(grant.getFromServer());
+			writeRequest(grant.getRequest(), out);
+		} else if(message instanceof Inquire) {
+			Inquire inquire = (Inquire) message;
+			out.putByte(TAG_INQUIRE);
+			out.putString(inquire.getFromServer());
+			writeRequest(inquire.getRequest(), out);
+		} else if(message instanceof Failed) {
+			Failed failed = (Failed) message;
+			out.putByte(TAG_FAILED);
+			out.putString(failed.getFromServer());
+			writeRequest(failed.getRequest(), out);
+		} else if(message instanceof Yield) {
+			Yield yield = (Yield) message;
+			out.putByte(TAG_YIELD);
+			out.putString(yield.getToServer());
+			writeRequest(yield.getRequest(), out);
+		} else if(message instanceof RequestToWrite) {
+			RequestToWrite reqToWrite = (RequestToWrite) message;
+			out.putByte(TAG_REQUEST_TO_WRITE);
+			out.putString(reqToWrite.getForObject());
+			out.putString(reqToWrite.getFromClient());
+			writeStrings(reqToWrite.getServersBeingRequested(), out);
+			out.putString(reqToWrite.getStringToBeWritten());
+			writeInteger(reqToWrite.getRequestId(), out);
+			writeTransactionId(reqToWrite.getTransactionId(), out);
+			writeTransactionId(reqToWrite.getDataId(), out);
+			out.putLong(reqToWrite.getExpectedVersion());
+		} else if(message instanceof WriteCall) {
+			WriteCall writeCall = (WriteCall) message;
+			out.putByte(TAG_WRITE_CALL);
+			out.putString(writeCall.getAction());
+			out.putString(writeCall.getFromClient());
+			out.putString(writeCall.getForObject());
+			writeStrings(writeCall.getServersBeingRequested(), out);
+			writeInteger(writeCall.getRequestId(), out);
+			writeTransactionId(writeCall.getTransactionId(), out);
+		} else if(message instanceof WriteResponse) {
+			WriteResponse response = (WriteResponse) message;
+			out.putByte(TAG_WRITE_RESPONSE);
+			out.putString(response.getServer());
+			out.putString(response.getResponse());
+			writeInteger(response.getRequestId(), out);
+			out.putLong(response.getOffset());
+			out.putLong(response.getVersion());
+		} else if(message instanceof Identity) {
+			Identity identity = (Identity) message;
+			out.putByte(TAG_IDENTITY);
+			out.putString(identity.getName());
+			out.putString(identity.getFunction());
+		} else if(message instanceof ReadRequest) {
+			ReadRequest readRequest = (ReadRequest) message;
+			out.putByte(TAG_READ_REQUEST);
+			out.putString(readRequest.getFromClient());
+			out.putString(readRequest.getForObject());
+			out.putInt(readRequest.getReadId());
+			out.putLong(readRequest.getOffset());
+			out.putInt(readRequest.getLength());
+			out.putByte(readRequest.isCached() ? 1 : 0);
+		} else if(message instanceof ReadResponse) {
+			ReadResponse readResponse = (ReadResponse) message;
+			out.putByte(TAG_READ_RESPONSE);
+			out.putString(readResponse.getServer());
+			out.putString(readResponse.getForObject());
+			out.putInt(readResponse.getReadId());
+			out.putLong(readResponse.getOffset());
+			out.putLong(readResponse.getObjectSize());
+			out.putLong(readResponse.getVersion());
+			out.putByteArray(readResponse.getData());
+		} else if(message instanceof Invalidation) {
+			Invalidation invalidation = (Invalidation) message;
+			out.putByte(TAG_INVALIDATION);
+			out.putString(invalidation.getServer());
+			out.putString(invalidation.getForObject());
+			out.putLong(invalidation.getVersion());
+		} else if(message instanceof PlacementRequest) {
+			out.putByte(TAG_PLACEMENT_REQUEST);
+			out.putString(((PlacementRequest) message).getFromNode());
+		} else if(message instanceof PlacementResponse) {
+			PlacementResponse placementResponse = (PlacementResponse) message;
+			out.putByte(TAG_PLACEMENT_RESPONSE);
+			out.putString(placementResponse.getFromServer());
+			PlacementTable table = placementResponse.getPlacementTable();
+			out.putVarInt(table.getObjects().size());
+			for(String objectName: table.getObjects()) {
+				out.putString(objectName);
+				writeStrings(table.getReplicas(objectName), out);
+			}
+		} else if(message instanceof DataPiece) {
+			DataPiece piece = (DataPiece) message;
+			out.putByte(TAG_DATA_PIECE);
+			writeTransactionId(piece.getTransactionId(), out);
+			if(piece.getRequestToWrite() == null) {
+				out.putByte(0);
+			} else {
+				out.putByte(1);
+				encode(piece.getRequestToWrite(), out);
+			}
+			writeStrings(piece.getChain(), out);
+			out.putVarInt(piece.getChainIndex());
+			out.putVarInt(piece.getPieceIndex());
+			out.putVarInt(piece.getNumOfPieces());
+			out.putByteArray(piece.getData());
+		} else if(message instanceof LeaseRequest) {
+			LeaseRequest leaseRequest = (LeaseRequest) message;
+			out.putByte(TAG_LEASE_REQUEST);
+			out.putString(leaseRequest.getFromNode());
+			out.putString(leaseRequest.getForObject());
+		} else if(message instanceof Lease) {
+			Lease lease = (Lease) message;
+			out.putByte(TAG_LEASE);
+			out.putString(lease.getForObject());
+			out.putString(lease.getPrimary());
+			writeStrings(lease.getSecondaries(), out);
+			out.putLong(lease.getExpiresAt());
+		} else if(message instanceof Mutation) {
+			Mutation mutation = (Mutation) message;
+			out.putByte(TAG_MUTATION);
+			writeTransactionId(mutation.getMutationId(), out);
+			out.putString(mutation.getForObject());
+			out.putString(mutation.getFromClient());
+			out.putString(mutation.getPrimary());
+			out.putString(mutation.getStringToBeWritten());
+			writeInteger(mutation.getRequestId(), out);
+			out.putLong(mutation.getSerialNumber());
+			out.putLong(mutation.getOffset());
+			writeStrings(mutation.getSecondaries(), out);
+		} else if(message instanceof MutationAck) {
+			MutationAck ack = (MutationAck) message;
+			out.putByte(TAG_MUTATION_ACK);
+			out.putString(ack.getServer());
+			out.putString(ack.getForObject());
+			out.putLong(ack.getSerialNumber());
+		} else if(message instanceof String) {
+			out.putByte(TAG_STRING);
+			out.putString((String) message);
+		} else {
+			throw new IOException("Binary codec can not encode "+message.getClass().getName());
+		}
+	}
+
+	Object decode(FrameBuffer in) throws IOException {
+		byte tag = in.getByte();
+		switch(tag) {
+		case TAG_REQUEST:
+			return readRequest(in);
+		case TAG_RELEASE: {
+			int requestId = in.getInt();
+			String requestedObject = in.getString();
+			return new Release(requestId, readBits(in), requestedObject);
+		}
+		case TAG_GRANT: {
+			String fromServer = in.getString();
+			return new Grant(fromServer, readRequest(in));
+		}
+		case TAG_INQUIRE: {
+			String fromServer = in.getString();
+			return new Inquire(fromServer, readRequest(in));
+		}
+		case TAG_FAILED: {
+			String fromServer = in.getString();
+			return new Failed(fromServer, readRequest(in));
+		}
+		case TAG_YIELD: {
+			String toServer = in.getString();
+			return new Yield(toServer, readRequest(in));
+		}
+		case TAG_REQUEST_TO_WRITE: {
+			String forObject = in.getString();
+			String fromClient = in.getString();
+			String[] servers = readStrings(in);
+			RequestToWrite reqToWrite = new RequestToWrite(forObject, fromClient, in.getString());
+			reqToWrite.addServersBeingRequested(servers);
+			reqToWrite.setRequestId(readInteger(in));
+			reqToWrite.setTransactionId(readTransactionId(in));
+			reqToWrite.setDataId(readTransactionId(in));
+			reqToWrite.setExpectedVersion(in.getLong());
+			return reqToWrite;
+		}
+		case TAG_WRITE_CALL: {
+			String action = in.getString();
+			String fromClient = in.getString();
+			String forObject = in.getString();
+			WriteCall writeCall = new WriteCall(action, fromClient, forObject);
+			String[] servers = readStrings(in);
+			writeCall.addServersBeingRequested(servers);
+			writeCall.setRequestId(readInteger(in));
+			writeCall.setTransactionId(readTransactionId(in));
+			return writeCall;
+		}
+		case TAG_WRITE_RESPONSE: {
+			String server = in.getString();
+			String response = in.getString();
+			WriteResponse writeResponse = new WriteResponse(server, response, readInteger(in));
+			writeResponse.setOffset(in.getLong());
+			writeResponse.setVersion(in.getLong());
+			return writeResponse;
+		}
+		case TAG_IDENTITY: {
+			String name = in.getString();
+			return new Identity(name, in.getString());
+		}
+		case TAG_READ_REQUEST: {
+			String fromClient = in.getString();
+			String forObject = in.getString();
+			int readId = in.getInt();
+			long offset = in.getLong();
+			ReadRequest readRequest = new ReadRequest(fromClient, forObject, readId, offset, in.getInt());
+			readRequest.setCached(in.getByte() != 0);
+			return readRequest;
+		}
+		case TAG_READ_RESPONSE: {
+			String server = in.getString();
+			String forObject = in.getString();
+			int readId = in.getInt();
+			long offset = in.getLong();
+			long objectSize = in.getLong();
+			long version = in.getLong();
+			return new ReadResponse(server, forObject, readId, offset, objectSize, version, in.getByteArray());
+		}
+		case TAG_INVALIDATION: {
+			String server = in.getString();
+			String forObject = in.getString();
+			return new Invalidation(server, forObject, in.getLong());
+		}
+		case TAG_PLACEMENT_REQUEST:
+			return new PlacementRequest(in.getString());
+		case TAG_PLACEMENT_RESPONSE: {
+			String fromServer = in.getString();
+			PlacementTable table = new PlacementTable();
+			int numOfObjects = in.getVarInt();
+			for(int i = 0; i < numOfObjects; i++) {
+				String objectName = in.getString();
+				table.addObject(objectName, readStrings(in));
+			}
+			return new PlacementResponse(fromServer, table);
+		}
+		case TAG_DATA_PIECE: {
+			TransactionId transactionId = readTransactionId(in);
+			RequestToWrite header = in.getByte() == 0 ? null : (RequestToWrite) decode(in);
+			String[] chain = readStrings(in);
+			int chainIndex = in.getVarInt();
+			int pieceIndex = in.getVarInt();
+			int numOfPieces = in.getVarInt();
+			return new DataPiece(transactionId, header, chain, chainIndex, pieceIndex, numOfPieces, in.getByteArray());
+		}
+		case TAG_LEASE_REQUEST: {
+			String fromNode = in.getString();
+			return new LeaseRequest(fromNode, in.getString());
+		}
+		case TAG_LEASE: {
+			String forObject = in.getString();
+			String primary = in.getString();
+			String[] secondaries = readStrings(in);
+			return new Lease(forObject, primary, secondaries, in.getLong());
+		}
+		case TAG_MUTATION: {
+			TransactionId mutationId = readTransactionId(in);
+			String forObject = in.getString();
+			String fromClient = in.getString();
+			String primary = in.getString();
+			Mutation mutation = new Mutation(mutationId, forObject, fromClient, primary, in.getString());
+			mutation.setRequestId(readInteger(in));
+			mutation.setSerialNumber(in.getLong());
+			mutation.setOffset(in.getLong());
+			mutation.setSecondaries(readStrings(in));
+			return mutation;
+		}
+		case TAG_MUTATION_ACK: {
+			String server = in.getString();
+			String forObject = in.getString();
+			return new MutationAck(server, forObject, in.getLong());
+		}
+		case TAG_STRING:
+			return in.getString();
+		default:
+			throw new IOException("Unknown message tag "+tag);
+		}
+	}
+
+	private static void writeRequest(Request request, FrameBuffer out) {
+		out.putLong(request.getTimeStamp());
+		out.putString(request.getClient());
+		out.putInt(request.getRequestId());
+		out.putString(request.getForObject());
+	}
+
+	private static Request readRequest(FrameBuffer in) throws IOException {
+		long timeStamp = in.getLong();
+		String fromClient = in.getString();
+		int requestId = in.getInt();
+		return new Request(timeStamp, fromClient, requestId, in.getString());
+	}
+
+	private static void writeInteger(Integer value, FrameBuffer out) {
+		if(value == null) {
+			out.putByte(0);
+		} else {
+			out.putByte(1);
+			out.putInt(value);
+		}
+	}
+
+	private static Integer readInteger(FrameBuffer in) throws IOException {
+		if(in.getByte() == 0) {
+			return null;
+		}
+		return in.getInt();
+	}
+
+	private static void writeTransactionId(TransactionId transactionId, FrameBuffer out) {
+		if(transactionId == null) {
+			out.putByte(0);
+		} else {
+			out.putByte(1);
+			out.putLong(transactionId.getTimeStamp());
+			out.putString(transactionId.getClient());
+			out.putInt(transactionId.getRequestId());
+		}
+	}
+
+	private static TransactionId readTransactionId(FrameBuffer in) throws IOException {
+		if(in.getByte() == 0) {
+			return null;
+		}
+		long timeStamp = in.getLong();
+		String client = in.getString();
+		return new TransactionId(timeStamp, client, in.getInt());
+	}
+
+	private static void writeStrings(String[] values, FrameBuffer out) {
+		out.putByte(values.length);
+		for(String value: values) {
+			out.putString(value);
+		}
+	}
+
+	private static String[] readStrings(FrameBuffer in) throws IOException {
+		String[] values = new String[in.getUnsignedByte()];
+		for(int i = 0; i < values.length; i++) {
+			values[i] = in.getString();
+		}
+		return values;
+	}
+
+	private static void writeBits(boolean[] bits, FrameBuffer out) {
+		out.putShort(bits.length);
+		int packed = 0;
+		for(int i = 0; i < bits.length; i++) {
+			if(bits[i]) {
+				packed |= 1 << (i % 8);
+			}
+			if(i % 8 == 7 || i == bits.length - 1) {
+				out.putByte(packed);
+				packed = 0;
+			}
+		}
+	}
+
+	private static boolean[] readBits(FrameBuffer in) throws IOException {
+		boolean[] bits = new boolean[in.getShort() & 0xffff];
+		int packed = 0;
+		for(int i = 0; i < bits.length; i++) {
+			if(i % 8 == 0) {
+				packed = in.getUnsignedByte();
+			}
+			bits[i] = (packed & (1 << (i % 8))) != 0;
+		}
+		return bits;
+	}
+}
@@ -0,0 +1,78 @@
+package edu.utdallas.cs6378.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import edu.utdallas.cs6378.models.Grant;
+import edu.utdallas.cs6378.models.Release;
+import edu.utdallas.cs6378.models.Request;
+
+/**
+ * This class is an independent class that has a main method which measures the
+ * codecs on the grant/release hot path. This is not part of the project specification.
+ *
+ * For every codec, a stream of Request, Grant and Release messages (in the same ratio
+ * as one server sees them) is written to memory and read back. The bytes per message
+ * and the time per message (encode + decode) are printed for each codec.
+ *
+ * Usage: java edu.utdallas.cs6378.transport.CodecBenchmark [numOfMessages]
+ *
+ */
+public class CodecBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int numOfMessages = 300000;
+		if(args.length != 0) {
+			numOfMessages = Integer.parseInt(args[0]);
+		}
+		String[] codecs = {JavaSerializationCodec.NAME, BinaryCodec.NAME};
+		for(String codecName: codecs) {
+			MessageCodec codec = MessageCodecs.forName(codecName);
+			// warm up before measuring
+			for(int i = 0; i < 5; i++) {
+				run(codec, numOfMessages / 10);
+			}
+			long[] result = run(codec, numOfMessages);
+			System.out.println(String.format("codec: %-7s bytes/message: %6.1f  ns/message (encode + decode): %8.1f",
+					codecName, (double) result[0] / numOfMessages, (double) result[1] / numOfMessages));
+		}
+	}
+
+	/*
+	 * Returns the number of bytes written and the nanoseconds spent to write and read back
+	 * the given number of messages.
+	 */
+	private static long[] run(MessageCodec codec, int numOfMessages) throws IOException, ClassNotFoundException {
+		Object[] messages = new Object[numOfMessages];
+		for(int i = 0; i < numOfMessages; i++) {
+			messages[i] = newMessage(i);
+		}
+		ByteArrayOutputStream outStream = new ByteArrayOutputStream(numOfMessages * 64);
+		long start = System.nanoTime();
+		MessageWriter writer = codec.newWriter(outStream);
+		for(int i = 0; i < numOfMessages; i++) {
+			writer.writeMessage(messages[i]);
+		}
+		MessageReader reader = codec.newReader(new ByteArrayInputStream(outStream.toByteArray()));
+		for(int i = 0; i < numOfMessages; i++) {
+			reader.readMessage();
+		}
+		long elapsed = System.nanoTime() - start;
+		return new long[] {outStream.size(), elapsed};
+	}
+
+	private static Object newMessage(int i) {
+		Request request = new Request(System.currentTimeMillis(), "C"+(i % 5 + 1), i, "O"+(i % 7 + 1)+".txt");
+		switch(i % 3) {
+		case 0:
+			return request;
+		case 1:
+			return new Grant("S"+(i % 7 + 1), request);
+		default:
+			boolean[] releasesToServers = new boolean[8];
+			releasesToServers[i % 7 + 1] = true;
+			return new Release(i, releasesToServers, request.getForObject());
+		}
+	}
+}
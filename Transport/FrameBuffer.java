@@ -0,0 +1,201 @@
+package edu.utdallas.cs6378.transport;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * This class is a growable byte array that the binary codec encodes frames into and
+ * decodes frames from. It is owned by a single writer or reader and hence it is not
+ * synchronized, unlike ByteArrayOutputStream and DataInputStream.
+ *
+ * Strings are written as a variable length count (0 for null, length + 1 otherwise)
+ * followed by their UTF-8 bytes so that the short node and object names cost one byte
+ * of length while payloads of any size can still be carried.
+ *
+ */
+class FrameBuffer {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private byte[] bytes;
+	private int position;
+	private int limit;
+
+	FrameBuffer(int initialCapacity) {
+		this.bytes = new byte[initialCapacity];
+	}
+
+	FrameBuffer(byte[] bytes) {
+		this.bytes = bytes;
+	}
+
+	byte[] array() {
+		return bytes;
+	}
+
+	int position() {
+		return position;
+	}
+
+	void clear() {
+		position = 0;
+		limit = 0;
+	}
+
+	/*
+	 * Prepares this buffer to decode the given number of bytes that have been copied
+	 * into array() starting at index 0.
+	 */
+	void wrap(int length) {
+		position = 0;
+		limit = length;
+	}
+
+	byte[] ensureCapacity(int capacity) {
+		if(bytes.length < capacity) {
+			bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+		}
+		return bytes;
+	}
+
+	void putByte(int value) {
+		ensureCapacity(position + 1);
+		bytes[position++] = (byte) value;
+	}
+
+	void putShort(int value) {
+		ensureCapacity(position + 2);
+		bytes[position++] = (byte) (value >>> 8);
+		bytes[position++] = (byte) value;
+	}
+
+	void putInt(int value) {
+		ensureCapacity(position + 4);
+		bytes[position++] = (byte) (value >>> 24);
+		bytes[position++] = (byte) (value >>> 16);
+		bytes[position++] = (byte) (value >>> 8);
+		bytes[position++] = (byte) value;
+	}
+
+	void putInt(int index, int value) {
+		bytes[index] = (byte) (value >>> 24);
+		bytes[index + 1] = (byte) (value >>> 16);
+		bytes[index + 2] = (byte) (value >>> 8);
+		bytes[index + 3] = (byte) value;
+	}
+
+	void putLong(long value) {
+		putInt((int) (value >>> 32));
+		putInt((int) value);
+	}
+
+	void putBytes(byte[] value, int offset, int length) {
+		ensureCapacity(position + length);
+		System.arraycopy(value, offset, bytes, position, length);
+		position += length;
+	}
+
+	void putVarInt(int value) {
+		while((value & ~0x7f) != 0) {
+			putByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		putByte(value);
+	}
+
+	void putString(String value) {
+		if(value == null) {
+			putVarInt(0);
+		} else {
+			byte[] encoded = value.getBytes(UTF8);
+			putVarInt(encoded.length + 1);
+			putBytes(encoded, 0, encoded.length);
+		}
+	}
+
+	void putByteArray(byte[] value) {
+		if(value == null) {
+			putVarInt(0);
+		} else {
+			putVarInt(value.length + 1);
+			putBytes(value, 0, value.length);
+		}
+	}
+
+	byte getByte() throws IOException {
+		require(1);
+		return bytes[position++];
+	}
+
+	byte peekByte() throws IOException {
+		require(1);
+		return bytes[position];
+	}
+
+	int getUnsignedByte() throws IOException {
+		return getByte() & 0xff;
+	}
+
+	short getShort() throws IOException {
+		require(2);
+		int value = ((bytes[position] & 0xff) << 8) | (bytes[position + 1] & 0xff);
+		position += 2;
+		return (short) value;
+	}
+
+	int getInt() throws IOException {
+		require(4);
+		int value = ((bytes[position] & 0xff) << 24) | ((bytes[position + 1] & 0xff) << 16)
+				| ((bytes[position + 2] & 0xff) << 8) | (bytes[position + 3] & 0xff);
+		position += 4;
+		return value;
+	}
+
+	long getLong() throws IOException {
+		long high = getInt();
+		long low = getInt() & 0xffffffffL;
+		return (high << 32) | low;
+	}
+
+	int getVarInt() throws IOException {
+		int value = 0;
+		for(int shift = 0; shift < 32; shift += 7) {
+			int b = getUnsignedByte();
+			value |= (b & 0x7f) << shift;
+			if((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed variable length integer");
+	}
+
+	String getString() throws IOException {
+		int length = getVarInt() - 1;
+		if(length < 0) {
+			return null;
+		}
+		require(length);
+		String value = new String(bytes, position, length, UTF8);
+		position += length;
+		return value;
+	}
+
+	byte[] getByteArray() throws IOException {
+		int length = getVarInt() - 1;
+		if(length < 0) {
+			return null;
+		}
+		require(length);
+		byte[] value = new byte[length];
+		System.arraycopy(bytes, position, value, 0, length);
+		position += length;
+		return value;
+	}
+
+	private void require(int length) throws IOException {
+		if(position + length > limit) {
+			throw new IOException("Frame is truncated");
+		}
+	}
+}
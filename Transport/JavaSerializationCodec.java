@@ -0,0 +1,81 @@
+package edu.utdallas.cs6378.transport;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * This codec uses the default java serialization through ObjectOutputStream and
+ * ObjectInputStream. This is the format that has always been used by the nodes and
+ * it remains the default when the property "codec" is not set.
+ * 
+ * When frames are used (nio transport), every frame is a complete serialization stream
+ * of its own as there is no long lived ObjectOutputStream on a channel.
+ * 
+ */
+public class JavaSerializationCodec implements MessageCodec {
+
+	public static final String NAME = "java";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public MessageWriter newWriter(OutputStream outStream) throws IOException {
+		final ObjectOutputStream objOutStream = new ObjectOutputStream(new BufferedOutputStream(outStream));
+		objOutStream.flush();
+		return new MessageWriter() {
+			@Override
+			public void writeMessage(Object message) throws IOException {
+				objOutStream.writeObject(message);
+				objOutStream.flush();
+			}
+
+			@Override
+			public void writeBatch(List<Object> messages) throws IOException {
+				for(Object message: messages) {
+					objOutStream.writeObject(message);
+				}
+				objOutStream.flush();
+			}
+		};
+	}
+
+	@Override
+	public MessageReader newReader(InputStream inStream) throws IOException {
+		final ObjectInputStream objInStream = new ObjectInputStream(inStream);
+		return new MessageReader() {
+			@Override
+			public Object readMessage() throws IOException, ClassNotFoundException {
+				return objInStream.readObject();
+			}
+		};
+	}
+
+	@Override
+	public ByteBuffer encodeFrame(Object message) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+		body.write(new byte[4]);
+		ObjectOutputStream objOutStream = new ObjectOutputStream(body);
+		objOutStream.writeObject(message);
+		objOutStream.close();
+		ByteBuffer frame = ByteBuffer.wrap(body.toByteArray());
+		frame.putInt(0, frame.capacity() - 4);
+		return frame;
+	}
+
+	@Override
+	public Object decodeFrame(byte[] body, int length) throws IOException, ClassNotFoundException {
+		ObjectInputStream objInStream = new ObjectInputStream(new ByteArrayInputStream(body, 0, length));
+		return objInStream.readObject();
+	}
+}
@@ -0,0 +1,38 @@
+package edu.utdallas.cs6378.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * This interface is the codec layer that sits between the sender/receiver threads
+ * and the socket streams. Every node in a cluster must use the same codec which is
+ * selected through the property "codec" in server.properties.
+ * 
+ * @Method: newWriter()
+ * Returns a writer that encodes messages on to the given output stream of a connection.
+ * 
+ * @Method: newReader()
+ * Returns a reader that decodes messages from the given input stream of a connection.
+ * 
+ * @Method: encodeFrame()
+ * Encodes a single message as a frame [int length of body][body] that is ready to be
+ * written to a channel. This is used by the nio transport and it is thread safe.
+ * 
+ * @Method: decodeFrame()
+ * Decodes the body of a single frame. This is used by the nio transport.
+ * 
+ */
+public interface MessageCodec {
+
+	String getName();
+
+	MessageWriter newWriter(OutputStream outStream) throws IOException;
+
+	MessageReader newReader(InputStream inStream) throws IOException;
+
+	ByteBuffer encodeFrame(Object message) throws IOException;
+
+	Object decodeFrame(byte[] body, int length) throws IOException, ClassNotFoundException;
+}
@@ -0,0 +1,35 @@
+package edu.utdallas.cs6378.transport;
+
+import edu.utdallas.cs6378.utilities.Constants;
+
+/**
+ * This class returns the codec to be used by this node.
+ * 
+ * @Method: get()
+ * Returns the codec configured through the property "codec" in server.properties.
+ * 
+ * @Method: forName()
+ * Returns the codec for the given name. Supported names are "java" and "binary".
+ * 
+ */
+public class MessageCodecs {
+
+	private static MessageCodec configuredCodec;
+
+	public static synchronized MessageCodec get() {
+		if(configuredCodec == null) {
+			configuredCodec = forName(Constants.CODEC);
+		}
+		return configuredCodec;
+	}
+
+	public static MessageCodec forName(String name) {
+		if(BinaryCodec.NAME.equalsIgnoreCase(name)) {
+			return new BinaryCodec();
+		} else if(JavaSerializationCodec.NAME.equalsIgnoreCase(name)) {
+			return new JavaSerializationCodec();
+		}
+		throw new IllegalArgumentException("Unknown codec \""+name+"\"! Supported codecs are \""
+				+JavaSerializationCodec.NAME+"\" and \""+BinaryCodec.NAME+"\"");
+	}
+}
@@ -0,0 +1,12 @@
+package edu.utdallas.cs6378.transport;
+
+/**
+ * This interface is implemented by the classes that process the messages received over
+ * a connection (ObjectReceiver on servers and GrantHandler on clients). In the nio
+ * transport, the event loop that reads a connection hands every decoded message to it.
+ * 
+ */
+public interface MessageHandler {
+
+	void handleMessage(Object message);
+}
@@ -0,0 +1,14 @@
+package edu.utdallas.cs6378.transport;
+
+import java.io.IOException;
+
+/**
+ * This interface is a connection to another node on which messages can be sent without
+ * a dedicated sender thread. Implementations must be thread safe and must send the
+ * messages in the order in which send() is called.
+ * 
+ */
+public interface MessageLink {
+
+	void send(Object message) throws IOException;
+}
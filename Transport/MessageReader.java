@@ -0,0 +1,13 @@
+package edu.utdallas.cs6378.transport;
+
+import java.io.IOException;
+
+/**
+ * This interface reads messages from a single connection. A reader is owned by
+ * exactly one receiver thread and hence implementations need not be thread safe.
+ * 
+ */
+public interface MessageReader {
+
+	Object readMessage() throws IOException, ClassNotFoundException;
+}
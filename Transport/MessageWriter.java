@@ -0,0 +1,22 @@
+package edu.utdallas.cs6378.transport;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * This interface writes messages on to a single connection. A writer is owned by
+ * exactly one sender thread and hence implementations need not be thread safe.
+ * 
+ * @Method: writeMessage()
+ * Writes a single message and flushes it to the connection.
+ * 
+ * @Method: writeBatch()
+ * Writes all the given messages and flushes the connection only once.
+ * 
+ */
+public interface MessageWriter {
+
+	void writeMessage(Object message) throws IOException;
+
+	void writeBatch(List<Object> messages) throws IOException;
+}
@@ -0,0 +1,146 @@
+package edu.utdallas.cs6378.transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class is a single non-blocking connection that is multiplexed by a NioEventLoop.
+ *
+ * @Method: send()
+ * Encodes the message into a frame and queues it. The event loop that owns this
+ * connection writes the queued frames when the channel is writable. This can be called
+ * from any thread.
+ *
+ * @Method: onReadable()
+ * Called by the event loop when data is available. Complete frames are decoded and
+ * handed to the MessageHandler of this connection in the order they are received.
+ *
+ * @Method: onWritable()
+ * Called by the event loop to write as many queued frames as the channel accepts. All
+ * the frames queued so far are written with one gathering write so that bursts of small
+ * messages do not cost one system call each.
+ *
+ */
+public class NioConnection implements MessageLink {
+
+	private static Logger logger = Logger.getLogger(NioConnection.class);
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+	private static final int MAX_GATHERED_FRAMES = 64;
+
+	private final SocketChannel channel;
+	private final NioEventLoop eventLoop;
+	private final MessageCodec codec;
+	private final MessageHandler handler;
+	private final ConcurrentLinkedQueue<ByteBuffer> outbound = new ConcurrentLinkedQueue<ByteBuffer>();
+	private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+	private final ByteBuffer[] gatheredFrames = new ByteBuffer[MAX_GATHERED_FRAMES];
+	private SelectionKey key;
+
+	NioConnection(SocketChannel channel, NioEventLoop eventLoop, MessageCodec codec, MessageHandler handler) {
+		this.channel = channel;
+		this.eventLoop = eventLoop;
+		this.codec = codec;
+		this.handler = handler;
+	}
+
+	@Override
+	public void send(Object message) throws IOException {
+		if(!channel.isOpen()) {
+			throw new IOException("Connection is closed");
+		}
+		outbound.add(codec.encodeFrame(message));
+		eventLoop.scheduleWrite(this);
+	}
+
+	public SocketChannel getChannel() {
+		return channel;
+	}
+
+	NioEventLoop getEventLoop() {
+		return eventLoop;
+	}
+
+	void setKey(SelectionKey key) {
+		this.key = key;
+	}
+
+	void onReadable() throws IOException {
+		int read = channel.read(readBuffer);
+		if(read < 0) {
+			close();
+			return;
+		}
+		readBuffer.flip();
+		while(readBuffer.remaining() >= 4) {
+			int length = readBuffer.getInt(readBuffer.position());
+			if(length <= 0) {
+				throw new IOException("Invalid frame length "+length);
+			}
+			if(readBuffer.remaining() < 4 + length) {
+				if(readBuffer.capacity() < 4 + length) {
+					ByteBuffer larger = ByteBuffer.allocate(4 + length);
+					larger.put(readBuffer);
+					readBuffer = larger;
+					return;
+				}
+				break;
+			}
+			readBuffer.getInt();
+			byte[] body = new byte[length];
+			readBuffer.get(body);
+			try {
+				handler.handleMessage(codec.decodeFrame(body, length));
+			} catch(ClassNotFoundException cnfe) {
+				throw new IOException(cnfe);
+			} catch(RuntimeException re) {
+				logger.error("Message handler failed: "+re);
+			}
+		}
+		readBuffer.compact();
+	}
+
+	/*
+	 * Frames that are sent before the connection is registered with the selector stay
+	 * queued until the event loop registers it.
+	 */
+	void onWritable() throws IOException {
+		if(key == null) {
+			return;
+		}
+		while(!outbound.isEmpty()) {
+			int numOfFrames = 0;
+			for(ByteBuffer frame: outbound) {
+				if(numOfFrames == gatheredFrames.length) {
+					break;
+				}
+				gatheredFrames[numOfFrames++] = frame;
+			}
+			channel.write(gatheredFrames, 0, numOfFrames);
+			for(int i = 0; i < numOfFrames; i++) {
+				if(gatheredFrames[i].hasRemaining()) {
+					key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+					return;
+				}
+				outbound.poll();
+				gatheredFrames[i] = null;
+			}
+		}
+		key.interestOps(SelectionKey.OP_READ);
+	}
+
+	void close() {
+		if(key != null) {
+			key.cancel();
+		}
+		try {
+			channel.close();
+		} catch(IOException ioe) {
+			// the connection is being dropped anyway
+		}
+	}
+}
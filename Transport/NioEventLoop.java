@@ -0,0 +1,122 @@
+package edu.utdallas.cs6378.transport;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This thread owns a Selector and performs all the reads and writes of the connections
+ * registered to it. A node runs a fixed number of these threads irrespective of the
+ * number of nodes it is connected to.
+ *
+ * @Method: run()
+ * Registers the new connections, writes the connections that have queued frames and
+ * then waits for the selector. Readable connections decode their frames and hand them
+ * to their MessageHandlers on this thread.
+ *
+ * @Method: register()
+ * Queues a connection to be registered with the selector by this thread.
+ *
+ * @Method: scheduleWrite()
+ * Queues a connection that has frames to be written and wakes up the selector.
+ *
+ * @Method: close()
+ * Asks the loop to stop and wakes up the selector. The loop closes the selector itself once
+ * it is done with the selected keys, so they are never iterated while it is being closed.
+ *
+ */
+public class NioEventLoop extends Thread {
+
+	private static Logger logger = Logger.getLogger(NioEventLoop.class);
+	private final Selector selector;
+	private final ConcurrentLinkedQueue<NioConnection> registrations = new ConcurrentLinkedQueue<NioConnection>();
+	private final ConcurrentLinkedQueue<NioConnection> pendingWrites = new ConcurrentLinkedQueue<NioConnection>();
+	private volatile boolean closed;
+
+	public NioEventLoop(String name) throws IOException {
+		super(name);
+		this.selector = Selector.open();
+		setDaemon(true);
+	}
+
+	@Override
+	public void run() {
+		try {
+			while(!closed) {
+				NioConnection connection;
+				while((connection = registrations.poll()) != null) {
+					try {
+						connection.setKey(connection.getChannel().register(selector, SelectionKey.OP_READ, connection));
+						process(connection, SelectionKey.OP_WRITE);
+					} catch(IOException ioe) {
+						connection.close();
+					}
+				}
+				while((connection = pendingWrites.poll()) != null) {
+					process(connection, SelectionKey.OP_WRITE);
+				}
+				selector.select();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while(keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if(key.isValid()) {
+						process((NioConnection) key.attachment(), key.readyOps());
+					}
+				}
+			}
+		} catch(ClosedSelectorException cse) {
+			// the transport has been shut down
+		} catch(IOException ioe) {
+			logger.error("Event loop "+getName()+" failed: "+ioe.getMessage());
+		} finally {
+			closeSelector();
+		}
+	}
+	
+	private void closeSelector() {
+		try {
+			selector.close();
+		} catch(IOException ioe) {
+			// nothing more to release
+		}
+	}
+
+	private void process(NioConnection connection, int readyOps) {
+		try {
+			if((readyOps & SelectionKey.OP_READ) != 0) {
+				connection.onReadable();
+			}
+			if((readyOps & SelectionKey.OP_WRITE) != 0 && connection.getChannel().isOpen()) {
+				connection.onWritable();
+			}
+		} catch(CancelledKeyException cke) {
+			connection.close();
+		} catch(IOException ioe) {
+			connection.close();
+		}
+	}
+
+	void register(NioConnection connection) {
+		registrations.add(connection);
+		selector.wakeup();
+	}
+
+	void scheduleWrite(NioConnection connection) {
+		pendingWrites.add(connection);
+		if(Thread.currentThread() != this) {
+			selector.wakeup();
+		}
+	}
+
+	void close() {
+		closed = true;
+		selector.wakeup();
+	}
+}
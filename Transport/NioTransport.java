@@ -0,0 +1,123 @@
+package edu.utdallas.cs6378.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import edu.utdallas.cs6378.utilities.Constants;
+
+/**
+ * This class is the non-blocking transport of a node which is enabled by setting the
+ * property "transport" to "nio". It owns a fixed pool of NioEventLoop threads (property
+ * "transportthreads") and every connection of the node, whether it is to a server or
+ * to a client, is multiplexed by one of those threads. Hence the number of I/O threads
+ * stays the same as nodes are added, unlike the blocking transport that runs a sender
+ * and a receiver thread for every connection.
+ *
+ * @Method: get()
+ * Returns the transport of this node and starts its event loops on first use.
+ *
+ * @Method: connect()
+ * Opens a connection to the given address. The connecting node registers the channel
+ * and sends its identity as the first message.
+ *
+ * @Method: open()
+ * Switches a connected channel to non-blocking mode and assigns it to an event loop
+ * in round robin order. Every decoded message is handed to the given handler once the
+ * connection is registered; messages sent before that are queued.
+ *
+ * @Method: register()
+ * Registers an opened connection with the selector of its event loop, which starts
+ * reading from it. Given a channel it opens and registers it at once.
+ *
+ * @Method: readFrame()
+ * Reads exactly one message from a channel that is still in blocking mode. This is used
+ * to read the identity that a connecting node sends as its first message.
+ *
+ */
+public class NioTransport {
+
+	public static final String NAME = "nio";
+	private static NioTransport transport;
+
+	private final MessageCodec codec;
+	private final NioEventLoop[] eventLoops;
+	private int nextEventLoop;
+
+	public NioTransport(MessageCodec codec, int numOfEventLoops) throws IOException {
+		this.codec = codec;
+		this.eventLoops = new NioEventLoop[Math.max(1, numOfEventLoops)];
+		for(int i = 0; i < eventLoops.length; i++) {
+			eventLoops[i] = new NioEventLoop("NioEventLoop-"+i);
+			eventLoops[i].start();
+		}
+	}
+
+	public static boolean isEnabled() {
+		return NAME.equalsIgnoreCase(Constants.TRANSPORT);
+	}
+
+	public static synchronized NioTransport get() throws IOException {
+		if(transport == null) {
+			transport = new NioTransport(MessageCodecs.get(), Constants.TRANSPORTTHREADS);
+		}
+		return transport;
+	}
+
+	public static synchronized void shutdownIfStarted() {
+		if(transport != null) {
+			transport.shutdown();
+			transport = null;
+		}
+	}
+
+	public SocketChannel connect(String ipAddress, int port) throws IOException {
+		SocketChannel channel = SocketChannel.open(new InetSocketAddress(ipAddress, port));
+		channel.socket().setTcpNoDelay(true);
+		return channel;
+	}
+
+	public synchronized NioConnection open(SocketChannel channel, MessageHandler handler) throws IOException {
+		channel.configureBlocking(false);
+		NioEventLoop eventLoop = eventLoops[nextEventLoop];
+		nextEventLoop = (nextEventLoop + 1) % eventLoops.length;
+		return new NioConnection(channel, eventLoop, codec, handler);
+	}
+
+	public void register(NioConnection connection) {
+		connection.getEventLoop().register(connection);
+	}
+
+	public NioConnection register(SocketChannel channel, MessageHandler handler) throws IOException {
+		NioConnection connection = open(channel, handler);
+		register(connection);
+		return connection;
+	}
+
+	public Object readFrame(SocketChannel channel) throws IOException, ClassNotFoundException {
+		ByteBuffer header = ByteBuffer.allocate(4);
+		readFully(channel, header);
+		int length = header.getInt(0);
+		if(length <= 0) {
+			throw new IOException("Invalid frame length "+length);
+		}
+		ByteBuffer body = ByteBuffer.allocate(length);
+		readFully(channel, body);
+		return codec.decodeFrame(body.array(), length);
+	}
+
+	private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer) < 0) {
+				throw new IOException("Connection closed before a complete frame was read");
+			}
+		}
+	}
+
+	public void shutdown() {
+		for(NioEventLoop eventLoop: eventLoops) {
+			eventLoop.close();
+		}
+	}
+}
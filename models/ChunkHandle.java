@@ -0,0 +1,66 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class identifies a single fixed-size chunk of an object. The handle is made of the
+ * name of the object and the index of the chunk within it, hence every replica of an object
+ * names its chunks the same way without having to agree on them first. Chunk i of an object
+ * holds the bytes from i * chunksize up to (i + 1) * chunksize - 1.
+ * 
+ * Handles are ordered by object name and then by chunk index.
+ * 
+ */
+public class ChunkHandle implements Comparable<ChunkHandle>, Serializable {
+
+	private static final long serialVersionUID = -5186236377412985103L;
+	private String objectName;
+	private int chunkIndex;
+
+	public ChunkHandle(String objectName, int chunkIndex) {
+		this.objectName = objectName;
+		this.chunkIndex = chunkIndex;
+	}
+
+	public String getObjectName() {
+		return objectName;
+	}
+
+	public int getChunkIndex() {
+		return chunkIndex;
+	}
+
+	/*
+	 * Name of the file that holds this chunk at a server, for example O1.txt.chunk0
+	 */
+	public String getFileName() {
+		return objectName+".chunk"+chunkIndex;
+	}
+
+	@Override
+	public int compareTo(ChunkHandle o) {
+		int byObject = objectName.compareTo(o.objectName);
+		if(byObject != 0) {
+			return byObject;
+		}
+		return chunkIndex < o.chunkIndex ? -1 : (chunkIndex == o.chunkIndex ? 0 : 1);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(!(o instanceof ChunkHandle)) {
+			return false;
+		}
+		return compareTo((ChunkHandle) o) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return objectName.hashCode() * 31 + chunkIndex;
+	}
+
+	@Override
+	public String toString() {
+		return objectName+"#"+chunkIndex;
+	}
+}
@@ -0,0 +1,82 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class is the model of one piece of the data of a write that is pushed along a chain of
+ * servers. The client sends the pieces only to the first server of the chain and every server
+ * forwards each piece to the next server as soon as it has received it, so the data of a write
+ * crosses every link once and the servers receive it at the same time.
+ * 
+ * The first piece carries the RequestToWrite of the write without its message, the message
+ * being the concatenation of the data of all the pieces. chainIndex is the position in chain
+ * of the server the piece is sent to. The pieces of data that a client pushes ahead of its
+ * critical section carry no RequestToWrite and transactionId is the data id that the later
+ * RequestToWrite refers to.
+ * 
+ */
+public class DataPiece implements Serializable {
+
+	private static final long serialVersionUID = 5927340117638020114L;
+	private TransactionId transactionId;
+	private RequestToWrite requestToWrite;
+	private String[] chain;
+	private int chainIndex;
+	private int pieceIndex;
+	private int numOfPieces;
+	private byte[] data;
+
+	public DataPiece(TransactionId transactionId, RequestToWrite requestToWrite, String[] chain, int chainIndex,
+			int pieceIndex, int numOfPieces, byte[] data) {
+		this.transactionId = transactionId;
+		this.requestToWrite = requestToWrite;
+		this.chain = chain;
+		this.chainIndex = chainIndex;
+		this.pieceIndex = pieceIndex;
+		this.numOfPieces = numOfPieces;
+		this.data = data;
+	}
+
+	/*
+	 * The same piece addressed to the next server of the chain.
+	 */
+	public DataPiece forNextServer() {
+		return new DataPiece(transactionId, requestToWrite, chain, chainIndex + 1, pieceIndex, numOfPieces, data);
+	}
+
+	public boolean hasNextServer() {
+		return chainIndex + 1 < chain.length;
+	}
+
+	public String getNextServer() {
+		return chain[chainIndex + 1];
+	}
+
+	public TransactionId getTransactionId() {
+		return transactionId;
+	}
+
+	public RequestToWrite getRequestToWrite() {
+		return requestToWrite;
+	}
+
+	public String[] getChain() {
+		return chain;
+	}
+
+	public int getChainIndex() {
+		return chainIndex;
+	}
+
+	public int getPieceIndex() {
+		return pieceIndex;
+	}
+
+	public int getNumOfPieces() {
+		return numOfPieces;
+	}
+
+	public byte[] getData() {
+		return data;
+	}
+}
@@ -0,0 +1,32 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class is a Failed model whose instance is sent by a server to a client whose request
+ * is waiting behind an older request for the same object. It tells the client to give up
+ * the grants that are inquired about until that server grants the request.
+ * 
+ */
+
+public class Failed implements Serializable {
+
+	private static final long serialVersionUID = 5720934410176582214L;
+	
+	private String fromServer;
+	private Request forRequest;
+	
+	public Failed(String fromServer, Request forRequest) {
+		this.fromServer = fromServer;
+		this.forRequest = forRequest;
+	}
+	
+	public String getFromServer() {
+		return fromServer;
+	}
+	
+	public Request getRequest() {
+		return forRequest;
+	}
+
+}
@@ -0,0 +1,32 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class is an Inquire model whose instance is sent by a server to the client it has
+ * granted, when an older request for the same object is waiting at that server. The client
+ * yields the grant if its request can not reach a quorum yet.
+ * 
+ */
+
+public class Inquire implements Serializable {
+
+	private static final long serialVersionUID = -3148201457718823090L;
+	
+	private String fromServer;
+	private Request forRequest;
+	
+	public Inquire(String fromServer, Request forRequest) {
+		this.fromServer = fromServer;
+		this.forRequest = forRequest;
+	}
+	
+	public String getFromServer() {
+		return fromServer;
+	}
+	
+	public Request getRequest() {
+		return forRequest;
+	}
+
+}
@@ -0,0 +1,32 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class is the model of the message that a server pushes to every client when a write
+ * to one of its objects commits. It carries the version of the object after the commit and
+ * a client drops any cached copy of the object with an older version.
+ * 
+ */
+public class Invalidation implements Serializable {
+
+	private static final long serialVersionUID = 7300512294846102718L;
+	private String server;
+	private String forObject;
+	private long version;
+	
+	public Invalidation(String server, String forObject, long version) {
+		this.server = server;
+		this.forObject = forObject;
+		this.version = version;
+	}
+	public String getServer() {
+		return server;
+	}
+	public String getForObject() {
+		return forObject;
+	}
+	public long getVersion() {
+		return version;
+	}
+}
@@ -0,0 +1,46 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class is the model of the lease that the master grants on an object to one of the
+ * servers that hold it, the primary. Until expiresAt (in milliseconds on the clock of the
+ * master) only the primary orders the mutations of the object and the other replicas, the
+ * secondaries, apply them in that order.
+ * 
+ */
+public class Lease implements Serializable {
+
+	private static final long serialVersionUID = -3012694738513830474L;
+	private String forObject;
+	private String primary;
+	private String[] secondaries;
+	private long expiresAt;
+
+	public Lease(String forObject, String primary, String[] secondaries, long expiresAt) {
+		this.forObject = forObject;
+		this.primary = primary;
+		this.secondaries = secondaries;
+		this.expiresAt = expiresAt;
+	}
+
+	public boolean isValid() {
+		return System.currentTimeMillis() < expiresAt;
+	}
+
+	public String getForObject() {
+		return forObject;
+	}
+
+	public String getPrimary() {
+		return primary;
+	}
+
+	public String[] getSecondaries() {
+		return secondaries;
+	}
+
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+}
@@ -0,0 +1,29 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class is the model of a lookup of the lease on an object that a node sends to the
+ * master server. A client sends it to find the primary of the object and the primary sends
+ * it to extend its own lease. The master answers with a Lease.
+ * 
+ */
+public class LeaseRequest implements Serializable {
+
+	private static final long serialVersionUID = 4407156254186211905L;
+	private String fromNode;
+	private String forObject;
+
+	public LeaseRequest(String fromNode, String forObject) {
+		this.fromNode = fromNode;
+		this.forObject = forObject;
+	}
+
+	public String getFromNode() {
+		return fromNode;
+	}
+
+	public String getForObject() {
+		return forObject;
+	}
+}
@@ -0,0 +1,88 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class is the model of a write when the property "ordering" is "lease". A client
+ * sends the mutation to the primary of the object, which assigns it the next serial number
+ * of the object and forwards it to the secondaries. Every replica applies the mutations of
+ * an object in the order of their serial numbers, writing each record at the offset that the
+ * primary has chosen for it. serialNumber and offset are -1 until the primary has assigned them.
+ * 
+ */
+public class Mutation implements Serializable {
+
+	private static final long serialVersionUID = 1686402573512968217L;
+	private TransactionId mutationId;
+	private String forObject;
+	private String fromClient;
+	private String primary;
+	private String stringToBeWritten;
+	private Integer requestId;
+	private long serialNumber;
+	private long offset;
+	private String[] secondaries;
+
+	public Mutation(TransactionId mutationId, String forObject, String fromClient, String primary, String stringToBeWritten) {
+		this.mutationId = mutationId;
+		this.forObject = forObject;
+		this.fromClient = fromClient;
+		this.primary = primary;
+		this.stringToBeWritten = stringToBeWritten;
+		this.serialNumber = -1;
+		this.offset = -1;
+		this.secondaries = new String[0];
+	}
+
+	public TransactionId getMutationId() {
+		return mutationId;
+	}
+
+	public String getForObject() {
+		return forObject;
+	}
+
+	public String getFromClient() {
+		return fromClient;
+	}
+
+	public String getPrimary() {
+		return primary;
+	}
+
+	public String getStringToBeWritten() {
+		return stringToBeWritten;
+	}
+
+	public Integer getRequestId() {
+		return requestId;
+	}
+
+	public void setRequestId(Integer requestId) {
+		this.requestId = requestId;
+	}
+
+	public long getSerialNumber() {
+		return serialNumber;
+	}
+
+	public void setSerialNumber(long serialNumber) {
+		this.serialNumber = serialNumber;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public void setOffset(long offset) {
+		this.offset = offset;
+	}
+
+	public String[] getSecondaries() {
+		return secondaries;
+	}
+
+	public void setSecondaries(String... secondaries) {
+		this.secondaries = secondaries.clone();
+	}
+}
@@ -0,0 +1,35 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class is the model of the message that a secondary sends to the primary of an object
+ * once it has applied the mutation with the given serial number. The primary answers the
+ * client when every secondary has acknowledged the mutation.
+ * 
+ */
+public class MutationAck implements Serializable {
+
+	private static final long serialVersionUID = -6236741859103265740L;
+	private String server;
+	private String forObject;
+	private long serialNumber;
+
+	public MutationAck(String server, String forObject, long serialNumber) {
+		this.server = server;
+		this.forObject = forObject;
+		this.serialNumber = serialNumber;
+	}
+
+	public String getServer() {
+		return server;
+	}
+
+	public String getForObject() {
+		return forObject;
+	}
+
+	public long getSerialNumber() {
+		return serialNumber;
+	}
+}
@@ -0,0 +1,23 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class is the model of a lookup of the placement table that a node sends to the
+ * master server. The master answers with a PlacementResponse that carries the whole table,
+ * which is small, so the node can cache it and answer later lookups by itself.
+ * 
+ */
+public class PlacementRequest implements Serializable {
+
+	private static final long serialVersionUID = 2207454016328213368L;
+	private String fromNode;
+
+	public PlacementRequest(String fromNode) {
+		this.fromNode = fromNode;
+	}
+
+	public String getFromNode() {
+		return fromNode;
+	}
+}
@@ -0,0 +1,29 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class is the model of the reply of the master server to a PlacementRequest. The
+ * master also sends it to every server as soon as that server is connected to it, so that
+ * the server learns which objects it holds.
+ * 
+ */
+public class PlacementResponse implements Serializable {
+
+	private static final long serialVersionUID = -7791553420711843172L;
+	private String fromServer;
+	private PlacementTable placementTable;
+
+	public PlacementResponse(String fromServer, PlacementTable placementTable) {
+		this.fromServer = fromServer;
+		this.placementTable = placementTable;
+	}
+
+	public String getFromServer() {
+		return fromServer;
+	}
+
+	public PlacementTable getPlacementTable() {
+		return placementTable;
+	}
+}
@@ -0,0 +1,62 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class maps every object to the servers that hold a replica of it. The table is built
+ * by the master server and sent to the other servers, which create a WriteRequestProcessor
+ * for every object they hold, and to the clients, which cache it and run the 2-phase commit
+ * of a write with the replicas of the object found in it.
+ * 
+ * The replicas of an object are listed in a fixed order and the first of them is the
+ * replica that the placement policy picked first.
+ * 
+ */
+public class PlacementTable implements Serializable {
+
+	private static final long serialVersionUID = -1528867024151926035L;
+	private LinkedHashMap<String, String[]> replicasOfObjects;
+
+	public PlacementTable() {
+		this.replicasOfObjects = new LinkedHashMap<String, String[]>();
+	}
+
+	public void addObject(String objectName, String... replicas) {
+		replicasOfObjects.put(objectName, replicas);
+	}
+
+	/*
+	 * Returns null for an object that is not in the table.
+	 */
+	public String[] getReplicas(String objectName) {
+		return replicasOfObjects.get(objectName);
+	}
+
+	public List<String> getObjects() {
+		return new ArrayList<String>(replicasOfObjects.keySet());
+	}
+
+	public List<String> getObjectsAt(String server) {
+		List<String> objects = new ArrayList<String>();
+		for(Map.Entry<String, String[]> entry: replicasOfObjects.entrySet()) {
+			if(Arrays.asList(entry.getValue()).contains(server)) {
+				objects.add(entry.getKey());
+			}
+		}
+		return objects;
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer sbuffer = new StringBuffer();
+		for(Map.Entry<String, String[]> entry: replicasOfObjects.entrySet()) {
+			sbuffer.append(entry.getKey()).append("->").append(Arrays.toString(entry.getValue())).append(" ");
+		}
+		return sbuffer.toString();
+	}
+}
@@ -0,0 +1,55 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class is the model of a request to read an object from one of the servers that
+ * hold it. A read does not take part in the mutual exclusion protocol: the server answers
+ * it from the object file straight away.
+ * 
+ * The field readId is chosen by the client so that it can match the ReadResponse to this
+ * request. The fields offset and length select a byte range of the object. A length of -1
+ * reads from the offset up to the end of the object. A client that keeps the object in its
+ * cache marks the request as cached, so that the server tells it when the object changes.
+ * 
+ */
+public class ReadRequest implements Serializable {
+
+	private static final long serialVersionUID = 4132978402385105526L;
+	public static final int TO_END = -1;
+	private String fromClient;
+	private String forObject;
+	private int readId;
+	private long offset;
+	private int length;
+	private boolean cached;
+	
+	public ReadRequest(String fromClient, String forObject, int readId, long offset, int length) {
+		this.fromClient = fromClient;
+		this.forObject = forObject;
+		this.readId = readId;
+		this.offset = offset;
+		this.length = length;
+	}
+	public String getFromClient() {
+		return fromClient;
+	}
+	public String getForObject() {
+		return forObject;
+	}
+	public int getReadId() {
+		return readId;
+	}
+	public long getOffset() {
+		return offset;
+	}
+	public int getLength() {
+		return length;
+	}
+	public boolean isCached() {
+		return cached;
+	}
+	public void setCached(boolean cached) {
+		this.cached = cached;
+	}
+}
@@ -0,0 +1,57 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class is the model of the reply of a server to a ReadRequest. It carries the bytes
+ * that were read starting at the requested offset and the size of the object at the time
+ * of the read, so that a client can tell whether it has read up to the end of the object.
+ * 
+ * The field version is the version of the object when the read started. A client caches the
+ * data under this version and drops it when it is told about a newer version.
+ * 
+ * The field data is null when the server does not hold the requested object.
+ * 
+ */
+public class ReadResponse implements Serializable {
+
+	private static final long serialVersionUID = -2718450833610436903L;
+	private String server;
+	private String forObject;
+	private int readId;
+	private long offset;
+	private long objectSize;
+	private long version;
+	private byte[] data;
+	
+	public ReadResponse(String server, String forObject, int readId, long offset, long objectSize, long version, byte[] data) {
+		this.server = server;
+		this.forObject = forObject;
+		this.readId = readId;
+		this.offset = offset;
+		this.objectSize = objectSize;
+		this.version = version;
+		this.data = data;
+	}
+	public String getServer() {
+		return server;
+	}
+	public String getForObject() {
+		return forObject;
+	}
+	public int getReadId() {
+		return readId;
+	}
+	public long getOffset() {
+		return offset;
+	}
+	public long getObjectSize() {
+		return objectSize;
+	}
+	public long getVersion() {
+		return version;
+	}
+	public byte[] getData() {
+		return data;
+	}
+}
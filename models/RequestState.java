@@ -1,55 +1,96 @@
 package edu.utdallas.cs6378.models;
 
+import java.util.BitSet;
+import java.util.Random;
+
 import org.apache.log4j.Logger;
 
 import edu.utdallas.cs6378.client.ClientSendWrapper;
+import edu.utdallas.cs6378.client.QuorumSystem;
+import edu.utdallas.cs6378.client.TreeQuorumSystem;
 
 /**
  * This class is a RequestState model that is used to maintain the status of a request.
  * 
  * @Method: updateState()
  * This method returns true if the quorum condition has just been fulfilled otherwise false
- * in all other cases. It will use checkState() method to confirm if the quorum condition
- * has been satisfied. Once a request is granted, subsequent grants are immediately released 
- * to those servers.
- * 
- * @Method: checkState()
- * This method checks if a quorum of nodes has granted the request recursively.
+ * in all other cases. The servers that granted the request are kept as a BitSet, in which
+ * server Si is the bit i-1, and checked by the quorum system of the client. Once a request is granted,
+ * subsequent grants are immediately released to those servers.
  * 
  * @Method: releaseToServers()
  * This method returns all those servers that granted request before it was considered to be
  * granted by a quorum of nodes.
  * 
+ * @Method: processInquire()
+ * A server that granted this request asks for its grant back because an older request is
+ * waiting for it. Until the quorum is reached, the grant is yielded if the request has failed
+ * at some server or has yielded another grant that it did not get back yet. Otherwise the
+ * inquiry is remembered and the grant is yielded once the request fails somewhere.
+ * 
+ * @Method: processFailed()
+ * A server tells that this request is waiting behind an older one. The grants that were
+ * inquired about so far are yielded.
+ * 
+ * @Method: requestQuorum()
+ * Sends the request to the servers of one minimal quorum chosen at random, instead of all the
+ * servers, when the property "quorumrequests" is "targeted".
+ * 
+ * @Method: expandQuorum()
+ * Called when the quorum has not been reached in time. The servers that were asked and have
+ * neither granted the request nor answered it (with a failure or an inquiry) are taken to be
+ * slow, and the request is sent to the servers that the quorum system adds to reach a quorum
+ * without them, if it can. Returns false once there is nothing left to expand to.
+ * 
+ * @Method: getGrantMicros()
+ * Returns the time in microseconds from the creation of this state, when the request is
+ * issued, to the grant that completed its quorum.
+ * 
  */
 public class RequestState {
 	
 	@SuppressWarnings("unused")
 	private static Logger logger = Logger.getLogger(RequestState.class);
 	private boolean requestGranted;
-	private final boolean[] serverGrantStatus;
+	private final BitSet grantedServers = new BitSet();
 	private final String[] orderOfGrants;
 	private int index;
 	private final int numOfServers;
+	private final QuorumSystem quorumSystem;
 	private final Request request;
 	private final ClientSendWrapper clientSendWrapper;
+	private final BitSet failedServers = new BitSet();
+	private final BitSet yieldedServers = new BitSet();
+	private final BitSet inquiringServers = new BitSet();
+	private final BitSet requestedServers = new BitSet();
+	private final long issuedNanos;
+	private long grantedNanos;
 	
 	public RequestState(int numOfServers, Request request, ClientSendWrapper clientSendWrapper) {
+		this(new TreeQuorumSystem(numOfServers), request, clientSendWrapper);
+	}
+	
+	public RequestState(QuorumSystem quorumSystem, Request request, ClientSendWrapper clientSendWrapper) {
 		requestGranted = false;
-		this.numOfServers = numOfServers + 1;
-		serverGrantStatus = new boolean[this.numOfServers];
+		this.numOfServers = quorumSystem.getNumOfServers() + 1;
+		this.quorumSystem = quorumSystem;
 		index = 1;
 		orderOfGrants = new String[this.numOfServers];
 		this.request = request;
 		this.clientSendWrapper = clientSendWrapper;
+		this.issuedNanos = System.nanoTime();
 	}
 	
 	public synchronized boolean updateState(int serverNumber) {
 		if(!requestGranted) {
-			serverGrantStatus[serverNumber] = true;
+			grantedServers.set(serverNumber - 1);
+			failedServers.clear(serverNumber - 1);
+			yieldedServers.clear(serverNumber - 1);
 			orderOfGrants[index] = "'S"+serverNumber+"' ";
 			index++;
-			if(checkState(1)) {
+			if(quorumSystem.isQuorum(grantedServers)) {
 				requestGranted = true;
+				grantedNanos = System.nanoTime();
 				StringBuffer sbuffer = new StringBuffer();
 				for(int i = 1; i < index; i++) {
 					sbuffer.append(orderOfGrants[i]);
@@ -70,22 +111,80 @@ public class RequestState {
 		}
 	}
 	
-	private boolean checkState(int parent) {
-		if(2*parent >= serverGrantStatus.length - 1) {
-			return serverGrantStatus[parent];
+	/*
+	 * The servers are sent as a set of their own, as requestedServers grows on an expansion
+	 * while the request may still be queued in the ClientSendWrapper.
+	 */
+	public synchronized void requestQuorum(Random randGenerator) {
+		BitSet quorum = quorumSystem.getRandomQuorum(randGenerator);
+		requestedServers.or(quorum);
+		clientSendWrapper.submitRequest(request, quorum);
+	}
+	
+	public synchronized boolean expandQuorum() {
+		if(requestGranted) {
+			return false;
+		}
+		BitSet slowServers = (BitSet) requestedServers.clone();
+		slowServers.andNot(grantedServers);
+		slowServers.andNot(failedServers);
+		slowServers.andNot(yieldedServers);
+		slowServers.andNot(inquiringServers);
+		BitSet newServers = quorumSystem.getExpansion(requestedServers, slowServers);
+		if(newServers.isEmpty()) {
+			return false;
+		}
+		requestedServers.or(newServers);
+		clientSendWrapper.submitRequest(request, newServers);
+		return true;
+	}
+	
+	public synchronized void processInquire(int serverNumber) {
+		if(requestGranted || !grantedServers.get(serverNumber - 1)) {
+			return;
+		}
+		if(!failedServers.isEmpty() || !yieldedServers.isEmpty()) {
+			yieldTo(serverNumber);
 		} else {
-			if(serverGrantStatus[parent]) {
-				return (checkState(2*parent) || checkState(2*parent + 1));
-			} else {
-				return (checkState(2*parent) && checkState(2*parent + 1));
+			inquiringServers.set(serverNumber - 1);
+		}
+	}
+	
+	public synchronized void processFailed(int serverNumber) {
+		if(requestGranted) {
+			return;
+		}
+		failedServers.set(serverNumber - 1);
+		BitSet inquiredGrants = (BitSet) inquiringServers.clone();
+		inquiredGrants.and(grantedServers);
+		for(int i = inquiredGrants.nextSetBit(0); i >= 0; i = inquiredGrants.nextSetBit(i + 1)) {
+			yieldTo(i + 1);
+		}
+	}
+	
+	/*
+	 * The grant is also taken out of the order of grants, as the server grants the request
+	 * again later.
+	 */
+	private void yieldTo(int serverNumber) {
+		grantedServers.clear(serverNumber - 1);
+		inquiringServers.clear(serverNumber - 1);
+		yieldedServers.set(serverNumber - 1);
+		String grant = "'S"+serverNumber+"' ";
+		for(int i = 1; i < index; i++) {
+			if(grant.equals(orderOfGrants[i])) {
+				System.arraycopy(orderOfGrants, i + 1, orderOfGrants, i, index - i - 1);
+				index--;
+				break;
 			}
 		}
+		clientSendWrapper.submitObject(new Yield("S"+serverNumber, request));
 	}
 	
 	public synchronized boolean[] releasesToServers() {
 		boolean[] copyGrantStatus = new boolean[this.numOfServers];
-		for (int j = 0; j < this.numOfServers; j++) {
-			copyGrantStatus[j] = serverGrantStatus[j];
+		for (int j = 1; j < this.numOfServers; j++) {
+			copyGrantStatus[j] = grantedServers.get(j - 1);
 		}
 		return copyGrantStatus;
 	}
@@ -93,6 +192,14 @@ public class RequestState {
 	public Request getRequest() {
 		return this.request;
 	}
+
+	public long getIssuedNanos() {
+		return issuedNanos;
+	}
+
+	public synchronized long getGrantMicros() {
+		return requestGranted ? (grantedNanos - issuedNanos) / 1000 : 0;
+	}
 	/*
 	private void submitReleases(int serverNum) {
 		boolean[] copyGrantStatus = new boolean[this.numOfServers];
@@ -1,7 +1,16 @@
 package edu.utdallas.cs6378.models;
 
 import java.io.Serializable;
-
+/*
+ * This class is the model that carries the message to be written to an object and asks
+ * the servers holding the object to stage it (the prepare phase of the 2-phase commit).
+ * The staged message is identified by transactionId, so a server can have staged
+ * messages from many clients at once and the WriteCall names the one to commit or abort.
+ * When the client has pushed the data ahead of the critical section, stringToBeWritten is
+ * null and dataId names the data that the servers have buffered. A compare-and-set carries
+ * the version of the object that the client expects in expectedVersion, which is -1 for an
+ * unconditional write.
+ */
 public class RequestToWrite implements Serializable {
 	
 	private static final long serialVersionUID = -1174628394476508392L;
@@ -9,20 +18,25 @@ public class RequestToWrite implements Serializable {
 	private String fromClient;
 	private String[] serversBeingRequested;
 	private String stringToBeWritten;
+	private Integer requestId;
+	private TransactionId transactionId;
+	private TransactionId dataId;
+	private long expectedVersion = -1;
 	
 	public RequestToWrite(String forObject, String fromClient, String stringToBeWritten) 
 	{
 		this.forObject = forObject;
 		this.fromClient = fromClient;
-		this.serversBeingRequested = new String[3];
+		this.serversBeingRequested = new String[0];
 		this.stringToBeWritten = stringToBeWritten;
 	}
 	
-	public void addServersBeingRequested(String server1, String server2, String server3) 
+	/*
+	 * The servers that hold a replica of the object, as many as the replication factor.
+	 */
+	public void addServersBeingRequested(String... servers) 
 	{
-		this.serversBeingRequested[0] = server1;
-		this.serversBeingRequested[1] = server2;
-		this.serversBeingRequested[2] = server3;
+		this.serversBeingRequested = servers.clone();
 	}
 
 	public String getForObject() {
@@ -53,4 +67,49 @@ public class RequestToWrite implements Serializable {
 		this.stringToBeWritten = stringToBeWritten;
 	}
 
+	public Integer getRequestId() {
+		return requestId;
+	}
+
+	public void setRequestId(Integer requestId) {
+		this.requestId = requestId;
+	}
+
+	public TransactionId getTransactionId() {
+		return transactionId;
+	}
+
+	public void setTransactionId(TransactionId transactionId) {
+		this.transactionId = transactionId;
+	}
+
+	public TransactionId getDataId() {
+		return dataId;
+	}
+
+	public void setDataId(TransactionId dataId) {
+		this.dataId = dataId;
+	}
+
+	public long getExpectedVersion() {
+		return expectedVersion;
+	}
+
+	public void setExpectedVersion(long expectedVersion) {
+		this.expectedVersion = expectedVersion;
+	}
+
+	/*
+	 * Returns a copy of this request with the given message. Everything else is copied, so a
+	 * compare-and-set that travels through the data pipeline stays a compare-and-set.
+	 */
+	public RequestToWrite copyWithMessage(String stringToBeWritten) {
+		RequestToWrite copy = new RequestToWrite(forObject, fromClient, stringToBeWritten);
+		copy.serversBeingRequested = serversBeingRequested.clone();
+		copy.requestId = requestId;
+		copy.transactionId = transactionId;
+		copy.dataId = dataId;
+		copy.expectedVersion = expectedVersion;
+		return copy;
+	}
 }
@@ -0,0 +1,71 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class identifies a single write (transaction) of a client on an object. It is
+ * built from the timestamp, client and request id of the request whose critical section
+ * performs the write.
+ * 
+ * The objects of this class are ordered the same way as requests: based on timestamp,
+ * then name of the client and then request id. Servers apply the staged transactions of
+ * an object in this order so that every replica applies them in the same order. The
+ * compare-and-sets of the "optimistic" ordering are the exception: they are applied in the
+ * order of the versions they expect.
+ * 
+ */
+public class TransactionId implements Comparable<TransactionId>, Serializable {
+
+	private static final long serialVersionUID = 3342128842563101479L;
+	private long timeStamp;
+	private String client;
+	private int requestId;
+
+	public TransactionId(long timeStamp, String client, int requestId) {
+		this.timeStamp = timeStamp;
+		this.client = client;
+		this.requestId = requestId;
+	}
+
+	public long getTimeStamp() {
+		return timeStamp;
+	}
+
+	public String getClient() {
+		return client;
+	}
+
+	public int getRequestId() {
+		return requestId;
+	}
+
+	@Override
+	public int compareTo(TransactionId o) {
+		if(timeStamp != o.timeStamp) {
+			return timeStamp < o.timeStamp ? -1 : 1;
+		}
+		int byClient = client.compareTo(o.client);
+		if(byClient != 0) {
+			return byClient;
+		}
+		return requestId < o.requestId ? -1 : (requestId == o.requestId ? 0 : 1);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(!(o instanceof TransactionId)) {
+			return false;
+		}
+		return compareTo((TransactionId) o) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (timeStamp ^ (timeStamp >>> 32)) * 31 * 31 + client.hashCode() * 31 + requestId;
+	}
+
+	@Override
+	public String toString() {
+		return client+":"+requestId+"@"+timeStamp;
+	}
+}
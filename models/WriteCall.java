@@ -8,7 +8,9 @@ import java.io.Serializable;
  * 
  * The field serversBeingRequested facilitates in identifying the destination
  * of the particular instance of the class. forObject refers to the object 
- * on the server that is being modified.
+ * on the server that is being modified. requestId identifies the request of the
+ * client whose critical section issued this call and transactionId identifies the
+ * staged write (RequestToWrite) that this call commits or aborts.
  */
 public class WriteCall implements Serializable {
 	
@@ -17,13 +19,15 @@ public class WriteCall implements Serializable {
 	private String fromClient;
 	private String forObject;
 	private String[] serversBeingRequested;
+	private Integer requestId;
+	private TransactionId transactionId;
 	
 	
 	public WriteCall(String action, String fromClient, String forObject) {
 		this.action = action;
 		this.fromClient = fromClient;
 		this.forObject = forObject;
-		this.serversBeingRequested = new String[3];
+		this.serversBeingRequested = new String[0];
 	}
 
 	public String getAction() {
@@ -50,14 +54,31 @@ public class WriteCall implements Serializable {
 		this.forObject = forObject;
 	}
 
-	public void addServersBeingRequested(String server1, String server2, String server3) 
+	/*
+	 * The servers that hold a replica of the object, as many as the replication factor.
+	 */
+	public void addServersBeingRequested(String... servers) 
 	{
-		this.serversBeingRequested[0] = server1;
-		this.serversBeingRequested[1] = server2;
-		this.serversBeingRequested[2] = server3;
+		this.serversBeingRequested = servers.clone();
 	}
 	
 	public String[] getServersBeingRequested() {
 		return serversBeingRequested;
 	}
+
+	public Integer getRequestId() {
+		return requestId;
+	}
+
+	public void setRequestId(Integer requestId) {
+		this.requestId = requestId;
+	}
+
+	public TransactionId getTransactionId() {
+		return transactionId;
+	}
+
+	public void setTransactionId(TransactionId transactionId) {
+		this.transactionId = transactionId;
+	}
 }
@@ -6,17 +6,28 @@ import java.io.Serializable;
  * with respect to its willingness to commit or not commit. This is also used to respond
  * with a "done" message that indicates that the requested action has been completed.
  * 
- * The field response can take either "yes", "no" or "done" messages.
+ * The field response can take either "yes", "no" or "done" messages. The field requestId
+ * is copied from the RequestToWrite or WriteCall that is being responded to so that a
+ * client with many requests in flight can match the response to its request. The field
+ * offset is the offset at which the primary placed a record append and -1 otherwise. The
+ * field version is the version of the object at the server when it voted.
  */
 public class WriteResponse implements Serializable {
 
 	private static final long serialVersionUID = -6439619480502114762L;
 	private String server;
 	private String response;
+	private Integer requestId;
+	private long offset = -1;
+	private long version = -1;
 	public WriteResponse(String server, String response) {
 		this.server = server;
 		this.response = response;
 	}
+	public WriteResponse(String server, String response, Integer requestId) {
+		this(server, response);
+		this.requestId = requestId;
+	}
 	public String getServer() {
 		return server;
 	}
@@ -29,4 +40,22 @@ public class WriteResponse implements Serializable {
 	public void setResponse(String response) {
 		this.response = response;
 	}
+	public Integer getRequestId() {
+		return requestId;
+	}
+	public void setRequestId(Integer requestId) {
+		this.requestId = requestId;
+	}
+	public long getOffset() {
+		return offset;
+	}
+	public void setOffset(long offset) {
+		this.offset = offset;
+	}
+	public long getVersion() {
+		return version;
+	}
+	public void setVersion(long version) {
+		this.version = version;
+	}
 }
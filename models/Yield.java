@@ -0,0 +1,32 @@
+package edu.utdallas.cs6378.models;
+
+import java.io.Serializable;
+
+/**
+ * This class is a Yield model whose instance is sent by a client to give a grant back to the
+ * server that inquired about it. The request waits at the server again and the server grants
+ * the oldest waiting request.
+ * 
+ */
+
+public class Yield implements Serializable {
+
+	private static final long serialVersionUID = -8046733219553146731L;
+	
+	private String toServer;
+	private Request forRequest;
+	
+	public Yield(String toServer, Request forRequest) {
+		this.toServer = toServer;
+		this.forRequest = forRequest;
+	}
+	
+	public String getToServer() {
+		return toServer;
+	}
+	
+	public Request getRequest() {
+		return forRequest;
+	}
+
+}
@@ -0,0 +1,12 @@
+package edu.utdallas.cs6378.utilities;
+
+/**
+ * This interface is a single value of a node, such as the number of messages it has sent,
+ * that is read when it is asked for. Gauges are registered with Metrics, usually as anonymous
+ * classes that read a counter of the component they belong to.
+ *
+ */
+public interface GaugeMXBean {
+
+	long getValue();
+}
@@ -0,0 +1,190 @@
+package edu.utdallas.cs6378.utilities;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class records the distribution of non-negative values (batch sizes, latencies in
+ * microseconds) in the way of an HDR histogram. The values from 0 to 63 have a bucket each.
+ * Above that, every range from 2^i to 2^(i+1) - 1 is split into 32 buckets of equal width,
+ * so a value is known within 1/32 (about 3%) of itself whatever its magnitude is, with
+ * less than 2000 buckets for all the values of a long. Values can be recorded from many
+ * threads without locking.
+ *
+ * @Method: record()
+ * Adds a value to the distribution.
+ *
+ * @Method: add()
+ * Adds all the values of another histogram to this one, to merge the distributions of
+ * several nodes.
+ *
+ * @Method: getPercentile()
+ * Returns the upper bound of the bucket that holds the given percentile, which is
+ * accurate within 3%.
+ *
+ * @Method: getBuckets()
+ * Returns the number of values in every power of two range, which is compact enough for
+ * the logs.
+ *
+ * @Method: toString()
+ * Returns a one line summary with count, mean, p50, p99, p99.9 and max.
+ *
+ */
+public class Histogram implements HistogramMXBean {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int NUM_OF_EXACT_VALUES = 2 * SUB_BUCKET_COUNT;
+	private static final int NUM_OF_BUCKETS = NUM_OF_EXACT_VALUES + (62 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+	private final AtomicLongArray buckets = new AtomicLongArray(NUM_OF_BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long value) {
+		if(value < 0) {
+			value = 0;
+		}
+		buckets.incrementAndGet(indexOf(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		long currentMax = max.get();
+		while(value > currentMax && !max.compareAndSet(currentMax, value)) {
+			currentMax = max.get();
+		}
+	}
+
+	public void add(Histogram other) {
+		for(int i = 0; i < NUM_OF_BUCKETS; i++) {
+			long numInBucket = other.buckets.get(i);
+			if(numInBucket > 0) {
+				buckets.addAndGet(i, numInBucket);
+			}
+		}
+		count.addAndGet(other.getCount());
+		sum.addAndGet(other.getSum());
+		long otherMax = other.getMax();
+		long currentMax = max.get();
+		while(otherMax > currentMax && !max.compareAndSet(currentMax, otherMax)) {
+			currentMax = max.get();
+		}
+	}
+
+	/*
+	 * A value of 2^i or more (i >= 6) is shifted right by i - 5 bits, which leaves 32 to 63,
+	 * the position of the value within its power of two range.
+	 */
+	static int indexOf(long value) {
+		if(value < NUM_OF_EXACT_VALUES) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return NUM_OF_EXACT_VALUES + (shift - 1) * SUB_BUCKET_COUNT + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+	}
+
+	static long lowestValueAt(int index) {
+		if(index < NUM_OF_EXACT_VALUES) {
+			return index;
+		}
+		int shift = (index - NUM_OF_EXACT_VALUES) / SUB_BUCKET_COUNT + 1;
+		long subBucket = (index - NUM_OF_EXACT_VALUES) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+		return subBucket << shift;
+	}
+
+	static long highestValueAt(int index) {
+		if(index + 1 >= NUM_OF_BUCKETS) {
+			return Long.MAX_VALUE;
+		}
+		return lowestValueAt(index + 1) - 1;
+	}
+
+	@Override
+	public long getCount() {
+		return count.get();
+	}
+
+	@Override
+	public long getMax() {
+		return max.get();
+	}
+
+	@Override
+	public long getSum() {
+		return sum.get();
+	}
+
+	@Override
+	public double getMean() {
+		long numOfValues = count.get();
+		return numOfValues == 0 ? 0 : (double) sum.get() / numOfValues;
+	}
+
+	public long getPercentile(double percentile) {
+		long numOfValues = count.get();
+		if(numOfValues == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(numOfValues * percentile / 100.0));
+		long seen = 0;
+		for(int i = 0; i < NUM_OF_BUCKETS; i++) {
+			seen = seen + buckets.get(i);
+			if(seen >= rank) {
+				return Math.min(highestValueAt(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	@Override
+	public long getP50() {
+		return getPercentile(50);
+	}
+
+	@Override
+	public long getP90() {
+		return getPercentile(90);
+	}
+
+	@Override
+	public long getP99() {
+		return getPercentile(99);
+	}
+
+	@Override
+	public long getP999() {
+		return getPercentile(99.9);
+	}
+
+	/*
+	 * Returns the non empty power of two ranges in the form "[from-to]:count ".
+	 */
+	public String getBuckets() {
+		StringBuffer sbuffer = new StringBuffer();
+		long from = 0;
+		long to = 0;
+		long numInRange = 0;
+		for(int i = 0; i < NUM_OF_BUCKETS; i++) {
+			long lowest = lowestValueAt(i);
+			long rangeFrom = lowest == 0 ? 0 : Long.highestOneBit(lowest);
+			if(rangeFrom != from) {
+				if(numInRange > 0) {
+					sbuffer.append("[").append(from).append("-").append(to).append("]:").append(numInRange).append(" ");
+				}
+				from = rangeFrom;
+				numInRange = 0;
+			}
+			to = highestValueAt(i);
+			numInRange = numInRange + buckets.get(i);
+		}
+		if(numInRange > 0) {
+			sbuffer.append("[").append(from).append("-").append(to).append("]:").append(numInRange).append(" ");
+		}
+		return sbuffer.toString();
+	}
+
+	@Override
+	public String toString() {
+		return "count:"+getCount()+", mean:"+String.format("%.1f", getMean())+", p50:"+getPercentile(50)
+				+", p99:"+getPercentile(99)+", p99.9:"+getPercentile(99.9)+", max:"+getMax();
+	}
+}
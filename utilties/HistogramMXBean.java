@@ -0,0 +1,27 @@
+package edu.utdallas.cs6378.utilities;
+
+/**
+ * This interface is the view of a Histogram that is registered on the platform MBean server
+ * by Metrics, so the distribution can be watched with jconsole or any JMX client while the
+ * node runs. The values are in the unit the histogram records, which is microseconds for
+ * the latencies.
+ *
+ */
+public interface HistogramMXBean {
+
+	long getCount();
+
+	long getSum();
+
+	long getMax();
+
+	double getMean();
+
+	long getP50();
+
+	long getP90();
+
+	long getP99();
+
+	long getP999();
+}
@@ -0,0 +1,182 @@
+package edu.utdallas.cs6378.utilities;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * This class is the registry of the histograms and gauges of a node. Every metric has a name
+ * such as "client.grant.us" (the suffix gives the unit) and is registered on the platform
+ * MBean server as edu.utdallas.cs6378:type=Histogram,name=client.grant.us, so it can be read
+ * live with jconsole or any JMX client while the cluster runs. When the property
+ * "metricsport" is set, the node also serves all its metrics in the Prometheus text format
+ * at http://127.0.0.1:<metricsport>/metrics, which can be scraped or simply fetched with curl.
+ *
+ * The registry is static, one per node. When several nodes run in one JVM (EmbeddedCluster),
+ * each of them loads its own copy of this class, and the name of the node is added to the
+ * JMX names as node=S1 so their metrics do not clash.
+ *
+ * @Method: setNodeName()
+ * Sets the name of the node that is added to the JMX names of the metrics registered after
+ * it. It is called when the node starts, before any metric is registered.
+ *
+ * @Method: histogram()
+ * Returns the histogram of the given name, creating and registering it the first time. The
+ * components that record the same measure share one histogram this way.
+ *
+ * @Method: registerGauge()
+ * Registers a value that is read whenever the metrics are asked for.
+ *
+ * @Method: startHttpServer()
+ * Starts serving the metrics on the given port of the loopback interface, 0 serves nothing.
+ *
+ * @Method: stopHttpServer()
+ * Stops serving the metrics. This should be called when the node shuts down.
+ *
+ */
+public class Metrics {
+
+	private static Logger logger = Logger.getLogger(Metrics.class);
+	public static final String DOMAIN = "edu.utdallas.cs6378";
+	private static final ConcurrentSkipListMap<String, Histogram> histograms = new ConcurrentSkipListMap<String, Histogram>();
+	private static final ConcurrentSkipListMap<String, GaugeMXBean> gauges = new ConcurrentSkipListMap<String, GaugeMXBean>();
+	private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+	private static HttpServer httpServer;
+	private static ExecutorService httpExecutor;
+	private static volatile String nodeName;
+
+	public static void setNodeName(String name) {
+		nodeName = name;
+	}
+
+	public static Histogram histogram(String name) {
+		Histogram histogram = histograms.get(name);
+		if(histogram == null) {
+			Histogram newHistogram = new Histogram();
+			histogram = histograms.putIfAbsent(name, newHistogram);
+			if(histogram == null) {
+				histogram = newHistogram;
+				registerMBean("Histogram", name, histogram);
+			}
+		}
+		return histogram;
+	}
+
+	public static void registerGauge(String name, GaugeMXBean gauge) {
+		if(gauges.put(name, gauge) == null) {
+			registerMBean("Gauge", name, gauge);
+		}
+	}
+
+	private static void registerMBean(String type, String name, Object mbean) {
+		try {
+			MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+			String node = nodeName == null ? "" : ",node="+ObjectName.quote(nodeName);
+			ObjectName objectName = new ObjectName(DOMAIN+":type="+type+node+",name="+ObjectName.quote(name));
+			if(!mbeanServer.isRegistered(objectName)) {
+				mbeanServer.registerMBean(mbean, objectName);
+			}
+		} catch(Exception e) {
+			logger.warn("Could not register "+name+" with JMX: "+e.getMessage());
+		}
+	}
+
+	public static synchronized void startHttpServer(int port) {
+		if(port <= 0 || httpServer != null) {
+			return;
+		}
+		try {
+			httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+		} catch(IOException e) {
+			logger.error("Could not serve the metrics on port "+port+": "+e.getMessage());
+			return;
+		}
+		httpServer.createContext("/metrics", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] body = scrape().getBytes("UTF-8");
+				exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+				exchange.sendResponseHeaders(200, body.length);
+				OutputStream out = exchange.getResponseBody();
+				try {
+					out.write(body);
+				} finally {
+					out.close();
+				}
+			}
+		});
+		httpExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "metrics-http");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		httpServer.setExecutor(httpExecutor);
+		httpServer.start();
+		logger.info("Serving metrics at http://127.0.0.1:"+port+"/metrics");
+	}
+
+	public static synchronized void stopHttpServer() {
+		if(httpServer != null) {
+			httpServer.stop(0);
+			httpExecutor.shutdownNow();
+			httpServer = null;
+		}
+	}
+
+	/*
+	 * Histograms are written as Prometheus summaries, with their maximum as a separate gauge.
+	 */
+	public static String scrape() {
+		StringBuffer sbuffer = new StringBuffer();
+		for(Map.Entry<String, Histogram> entry: histograms.entrySet()) {
+			String name = toMetricName(entry.getKey());
+			Histogram histogram = entry.getValue();
+			sbuffer.append("# TYPE ").append(name).append(" summary\n");
+			for(double quantile: QUANTILES) {
+				sbuffer.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+						.append(histogram.getPercentile(quantile * 100)).append("\n");
+			}
+			sbuffer.append(name).append("_sum ").append(histogram.getSum()).append("\n");
+			sbuffer.append(name).append("_count ").append(histogram.getCount()).append("\n");
+			sbuffer.append("# TYPE ").append(name).append("_max gauge\n");
+			sbuffer.append(name).append("_max ").append(histogram.getMax()).append("\n");
+		}
+		for(Map.Entry<String, GaugeMXBean> entry: gauges.entrySet()) {
+			String name = toMetricName(entry.getKey());
+			sbuffer.append("# TYPE ").append(name).append(" gauge\n");
+			sbuffer.append(name).append(" ").append(entry.getValue().getValue()).append("\n");
+		}
+		return sbuffer.toString();
+	}
+
+	private static String toMetricName(String name) {
+		return "cs6378_"+name.replaceAll("[^a-zA-Z0-9_]", "_");
+	}
+
+	public static Map<String, Histogram> getHistograms() {
+		return new TreeMap<String, Histogram>(histograms);
+	}
+
+	public static Map<String, GaugeMXBean> getGauges() {
+		return new TreeMap<String, GaugeMXBean>(gauges);
+	}
+}
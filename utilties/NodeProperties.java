@@ -4,16 +4,25 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Properties;
 
 import org.apache.log4j.Logger;
 /**
  * This class loads the properties file. 
  * 
+ * The properties are read from resources/server.properties in the working directory, unless
+ * the class loader of the node serves them as the resource "node.properties" next to this
+ * class. This is how EmbeddedCluster gives every node it runs in one JVM its own properties.
+ * 
  * @Method: getProperty()
  * This method is used to access the property by passing the parameter as the 
  * property name
  * 
+ * @Method: getProperty(key, defaultValue)
+ * Same as getProperty() but returns the default value when the property is
+ * not present in the properties file. This is used for optional properties.
+ * 
  */
 
 public class NodeProperties {
@@ -21,14 +30,22 @@ public class NodeProperties {
 	private static Logger logger = Logger.getLogger(NodeProperties.class);
 	private static Properties nodeProperties = new Properties();
 	private static String propertiesFile;
+	public static final String RESOURCE = "node.properties";
 
 	static {
 		propertiesFile = "resources"+File.separator+"server.properties";
 		FileReader fReader = null;
+		InputStream resource = NodeProperties.class.getResourceAsStream(RESOURCE);
 		try {
-			fReader = new FileReader(propertiesFile);
-			nodeProperties.load(fReader);
-			logger.debug("Properties are loaded into server's context");
+			if(resource != null) {
+				nodeProperties.load(resource);
+				resource.close();
+				logger.debug("Properties are loaded into server's context from its class loader");
+			} else {
+				fReader = new FileReader(propertiesFile);
+				nodeProperties.load(fReader);
+				logger.debug("Properties are loaded into server's context");
+			}
 		} catch (FileNotFoundException e) {
 			logger.error("Properties file name \"" + propertiesFile
 					+ "\"is not valid ");
@@ -43,7 +60,9 @@ public class NodeProperties {
 			e.printStackTrace();
 		} finally {
 			try {
-				fReader.close();
+				if(fReader != null) {
+					fReader.close();
+				}
 			} catch (IOException e) {
 
 			}
@@ -53,4 +72,12 @@ public class NodeProperties {
 	public static String getProperty(String key) {
 		return (String) nodeProperties.get(key);
 	}
+	
+	public static String getProperty(String key, String defaultValue) {
+		String value = getProperty(key);
+		if(value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		return value.trim();
+	}
 }
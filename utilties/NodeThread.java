@@ -0,0 +1,42 @@
+package edu.utdallas.cs6378.utilities;
+
+/**
+ * This class is the base class of the long-lived activities of a node (senders, receivers,
+ * write request processors and the client threads). When the property "threads" is
+ * "virtual", start() runs the activity on a virtual thread instead of starting this thread,
+ * and interrupt() and isInterrupted() are forwarded to that virtual thread, so the activities
+ * are written and stopped the same way in both modes.
+ *
+ */
+public class NodeThread extends Thread {
+
+	private volatile Thread virtualThread;
+
+	@Override
+	public synchronized void start() {
+		if(NodeThreads.isVirtual()) {
+			virtualThread = NodeThreads.startVirtualThread(this, getName());
+			if(virtualThread != null) {
+				return;
+			}
+		}
+		super.start();
+	}
+
+	@Override
+	public void interrupt() {
+		if(virtualThread != null) {
+			virtualThread.interrupt();
+		} else {
+			super.interrupt();
+		}
+	}
+
+	@Override
+	public boolean isInterrupted() {
+		if(virtualThread != null) {
+			return virtualThread.isInterrupted();
+		}
+		return super.isInterrupted();
+	}
+}
@@ -0,0 +1,110 @@
+package edu.utdallas.cs6378.utilities;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class decides whether the long-lived activities of a node run on platform threads or
+ * on virtual threads. The mode is given by the property "threads", which is "platform" by
+ * default. Virtual threads are created through reflection so that the project still builds
+ * and runs on JDKs that do not have them, in which case the node falls back to platform
+ * threads and says so in its log.
+ *
+ * @Method: isVirtual()
+ * Returns true if the node runs its activities on virtual threads.
+ *
+ * @Method: newThreadFactory()
+ * Returns a factory of virtual threads if they are asked for and available, and of platform
+ * threads otherwise. Executors of the node take their threads from it.
+ *
+ * @Method: startVirtualThread()
+ * Starts a virtual thread that runs the given task, or returns null if virtual threads are
+ * not available.
+ *
+ * @Method: getThreadSummary()
+ * Describes the thread mode of the node and the peak number of platform threads of the JVM,
+ * for the statistics printed at shutdown. Virtual threads are not counted by the JVM, so the
+ * peak shows how many carrier and platform threads the node really needed.
+ *
+ */
+public class NodeThreads {
+
+	private static Logger logger = Logger.getLogger(NodeThreads.class);
+	public static final String PLATFORM = "platform";
+	public static final String VIRTUAL = "virtual";
+	private static final Object VIRTUAL_BUILDER = newVirtualBuilder();
+	private static volatile Boolean virtual;
+
+	/*
+	 * Thread.ofVirtual() exists from JDK 21 on (JDK 19 and 20 with preview features enabled).
+	 */
+	private static Object newVirtualBuilder() {
+		try {
+			return Thread.class.getMethod("ofVirtual").invoke(null);
+		} catch(Exception e) {
+			return null;
+		}
+	}
+
+	public static boolean isVirtualAvailable() {
+		return VIRTUAL_BUILDER != null;
+	}
+
+	public static boolean isVirtual() {
+		if(virtual == null) {
+			boolean asked = VIRTUAL.equalsIgnoreCase(Constants.THREADS);
+			if(asked && !isVirtualAvailable()) {
+				logger.debug("Virtual threads are not available on Java "+System.getProperty("java.version")
+						+", running on platform threads");
+			}
+			virtual = asked && isVirtualAvailable();
+		}
+		return virtual;
+	}
+
+	public static ThreadFactory newThreadFactory() {
+		return newThreadFactory(isVirtual());
+	}
+
+	public static ThreadFactory newThreadFactory(boolean virtual) {
+		if(virtual && isVirtualAvailable()) {
+			try {
+				Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+				return (ThreadFactory) factory.invoke(VIRTUAL_BUILDER);
+			} catch(Exception e) {
+				logger.debug("Virtual thread factory could not be created: "+e);
+			}
+		}
+		return Executors.defaultThreadFactory();
+	}
+
+	public static ExecutorService newFixedThreadPool(int numOfThreads) {
+		return Executors.newFixedThreadPool(numOfThreads, newThreadFactory());
+	}
+
+	public static Thread startVirtualThread(Runnable task, String name) {
+		if(!isVirtualAvailable()) {
+			return null;
+		}
+		try {
+			Thread thread = newThreadFactory(true).newThread(task);
+			thread.setName(name);
+			thread.start();
+			return thread;
+		} catch(Exception e) {
+			return null;
+		}
+	}
+
+	public static String getThreadSummary() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		return "Thread mode: "+(isVirtual() ? VIRTUAL : PLATFORM)+", live threads: "+threadMXBean.getThreadCount()
+				+", peak threads: "+threadMXBean.getPeakThreadCount();
+	}
+}
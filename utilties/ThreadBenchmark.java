@@ -0,0 +1,106 @@
+package edu.utdallas.cs6378.utilities;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class is an independent class that has a main method which compares platform threads
+ * with virtual threads for the blocking style of the nodes. This is not part of the project
+ * specification.
+ *
+ * Every simulated client is a pair of threads, a "client" and a "server", that hand a message
+ * back and forth over blocking queues the way a critical section waits for the grant handler.
+ * The heap used, the peak number of platform threads and the time per handoff are printed
+ * for each mode. Virtual threads are measured only on Java versions that have them.
+ *
+ * Usage: java edu.utdallas.cs6378.utilities.ThreadBenchmark [numOfClients] [numOfHandoffs]
+ *
+ */
+public class ThreadBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int numOfClients = 500;
+		int numOfHandoffs = 2000;
+		if(args.length > 0) {
+			numOfClients = Integer.parseInt(args[0]);
+		}
+		if(args.length > 1) {
+			numOfHandoffs = Integer.parseInt(args[1]);
+		}
+		run(NodeThreads.PLATFORM, NodeThreads.newThreadFactory(false), numOfClients, numOfHandoffs);
+		if(NodeThreads.isVirtualAvailable()) {
+			run(NodeThreads.VIRTUAL, NodeThreads.newThreadFactory(true), numOfClients, numOfHandoffs);
+		} else {
+			System.out.println("mode: virtual  not available on Java "+System.getProperty("java.version"));
+		}
+	}
+
+	private static void run(String mode, ThreadFactory threadFactory, int numOfClients, int numOfHandoffs) throws InterruptedException {
+		// warm up before measuring
+		pingPong(threadFactory, numOfClients / 10 + 1, numOfHandoffs / 10 + 1);
+		System.gc();
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		threadMXBean.resetPeakThreadCount();
+		long[] result = pingPong(threadFactory, numOfClients, numOfHandoffs);
+		System.out.println(String.format("mode: %-8s clients: %5d  heap used: %6.1f MB  peak threads: %5d  ns/handoff: %8.1f",
+				mode, numOfClients, result[1] / (1024.0 * 1024.0), threadMXBean.getPeakThreadCount(),
+				(double) result[0] / ((long) numOfClients * numOfHandoffs * 2)));
+	}
+
+	/*
+	 * Returns the nanoseconds spent for all the handoffs and the heap used while all the
+	 * threads were alive.
+	 */
+	private static long[] pingPong(ThreadFactory threadFactory, int numOfClients, final int numOfHandoffs) throws InterruptedException {
+		final CountDownLatch started = new CountDownLatch(numOfClients * 2);
+		final CountDownLatch go = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(numOfClients * 2);
+		for(int i = 0; i < numOfClients; i++) {
+			final BlockingQueue<Integer> toServer = new ArrayBlockingQueue<Integer>(1);
+			final BlockingQueue<Integer> toClient = new ArrayBlockingQueue<Integer>(1);
+			threadFactory.newThread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						started.countDown();
+						go.await();
+						for(int j = 0; j < numOfHandoffs; j++) {
+							toServer.put(j);
+							toClient.take();
+						}
+					} catch(InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					done.countDown();
+				}
+			}).start();
+			threadFactory.newThread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						started.countDown();
+						go.await();
+						for(int j = 0; j < numOfHandoffs; j++) {
+							toClient.put(toServer.take());
+						}
+					} catch(InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					done.countDown();
+				}
+			}).start();
+		}
+		started.await();
+		Runtime runtime = Runtime.getRuntime();
+		long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+		long start = System.nanoTime();
+		go.countDown();
+		done.await();
+		long elapsed = System.nanoTime() - start;
+		return new long[] {elapsed, heapUsed};
+	}
+}
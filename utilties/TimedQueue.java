@@ -0,0 +1,98 @@
+package edu.utdallas.cs6378.utilities;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is a blocking queue that records how long every element waited in it. It is bounded
+ * and backed by an ArrayBlockingQueue when it is given a capacity, and unbounded and backed by
+ * a LinkedBlockingQueue otherwise, for a consumer that must never hold up its producers. The time from put() to the take(), poll() or drainTo()
+ * that removed an element is recorded in microseconds in the histogram of the queue, which
+ * all the queues of the same name share, for instance all the send queues of a node.
+ *
+ * @Method: put()
+ * Inserts an element, waiting for space if the queue is full. An unbounded queue never waits.
+ *
+ * @Method: take()
+ * Removes the oldest element, waiting for one if the queue is empty.
+ *
+ * @Method: drainTo()
+ * Removes the queued elements, up to the given number, without waiting.
+ *
+ */
+public class TimedQueue<E> {
+
+	private final BlockingQueue<Entry<E>> queue;
+	private final Histogram waitMicros;
+	private final ArrayList<Entry<E>> drained = new ArrayList<Entry<E>>();
+
+	private static class Entry<E> {
+		private final E element;
+		private final long enqueueNanos;
+
+		private Entry(E element) {
+			this.element = element;
+			this.enqueueNanos = System.nanoTime();
+		}
+	}
+
+	public TimedQueue(String name, int capacity) {
+		this.queue = new ArrayBlockingQueue<Entry<E>>(capacity);
+		this.waitMicros = Metrics.histogram("queue."+name+".wait.us");
+	}
+
+	public TimedQueue(String name) {
+		this.queue = new LinkedBlockingQueue<Entry<E>>();
+		this.waitMicros = Metrics.histogram("queue."+name+".wait.us");
+	}
+
+	public void put(E element) throws InterruptedException {
+		queue.put(new Entry<E>(element));
+	}
+
+	public E take() throws InterruptedException {
+		return dequeued(queue.take());
+	}
+
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		Entry<E> entry = queue.poll(timeout, unit);
+		return entry == null ? null : dequeued(entry);
+	}
+
+	public int drainTo(Collection<? super E> collection) {
+		return drainTo(collection, Integer.MAX_VALUE);
+	}
+
+	/*
+	 * Only one thread of a node drains a given queue, but the buffer is locked anyway so
+	 * that the queue stays safe to share between consumers.
+	 */
+	public int drainTo(Collection<? super E> collection, int maxElements) {
+		synchronized(drained) {
+			drained.clear();
+			int numOfElements = queue.drainTo(drained, maxElements);
+			for(Entry<E> entry: drained) {
+				collection.add(dequeued(entry));
+			}
+			drained.clear();
+			return numOfElements;
+		}
+	}
+
+	public int size() {
+		return queue.size();
+	}
+
+	public Histogram getWaitMicros() {
+		return waitMicros;
+	}
+
+	private E dequeued(Entry<E> entry) {
+		waitMicros.record((System.nanoTime() - entry.enqueueNanos) / 1000);
+		return entry.element;
+	}
+}